@@ -5,8 +5,10 @@ import edu.psu.ist.analyzer.errors.ParseError;
 import edu.psu.ist.analyzer.utils.SourceLocation;
 import edu.psu.ist.analyzer.utils.TextInput;
 import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.LexerNoViableAltException;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,9 +40,21 @@ public class AntlrErrorReportingListener extends BaseErrorListener {
         String updatedMsg = msg + "(line: " + line + ", column " +
                 charPositionInLine + ")";
 
+        // offending tokens (parser) and the failed token start (lexer) both
+        // give the offsets directly
+        int begin = -1;
+        int end = -1;
+        if (offendingSymbol instanceof Token t) {
+            begin = t.getStartIndex();
+            end = Math.max(begin, t.getStopIndex() + 1);
+        } else if (e instanceof LexerNoViableAltException lex) {
+            begin = lex.getStartIndex();
+            end = begin + 1;
+        }
+        int endCol = charPositionInLine + Math.max(end - begin, 0);
         ParseError err = new ParseError(updatedMsg, line, charPositionInLine,
                 new SourceLocation(source, line, charPositionInLine, line,
-                        charPositionInLine));
+                        endCol, begin, end));
         errors.add(err);
     }
 }
@@ -0,0 +1,66 @@
+package antlr4;
+
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.CancelledException;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * A {@link TokenSource} decorator that polls a {@link CancellationToken}
+ * every {@link #CHECK_INTERVAL} tokens and throws a
+ * {@link CancelledException} once it is cancelled.
+ * <p>
+ * The parser pulls every token it consumes (and every token it looks ahead
+ * at) from its source, so wrapping the lexer bounds the time both the lexer
+ * and the parser keep running after a cancellation. Since the exception is
+ * not a {@link org.antlr.v4.runtime.RecognitionException}, the parser's
+ * error strategy does not try to recover from it: it unwinds the whole parse.
+ */
+public class CancellableTokenSource implements TokenSource {
+
+    /** Tokens produced between two polls of the cancellation token. */
+    public static final int CHECK_INTERVAL = 1024;
+
+    private final TokenSource delegate;
+    private final CancellationToken cancellation;
+    private int untilCheck = CHECK_INTERVAL;
+
+    public CancellableTokenSource(TokenSource delegate, CancellationToken cancellation) {
+        this.delegate = delegate;
+        this.cancellation = cancellation;
+    }
+
+    @Override public Token nextToken() {
+        if (--untilCheck == 0) {
+            untilCheck = CHECK_INTERVAL;
+            cancellation.throwIfCancelled();
+        }
+        return delegate.nextToken();
+    }
+
+    @Override public int getLine() {
+        return delegate.getLine();
+    }
+
+    @Override public int getCharPositionInLine() {
+        return delegate.getCharPositionInLine();
+    }
+
+    @Override public CharStream getInputStream() {
+        return delegate.getInputStream();
+    }
+
+    @Override public String getSourceName() {
+        return delegate.getSourceName();
+    }
+
+    @Override public void setTokenFactory(TokenFactory<?> factory) {
+        delegate.setTokenFactory(factory);
+    }
+
+    @Override public TokenFactory<?> getTokenFactory() {
+        return delegate.getTokenFactory();
+    }
+}
@@ -0,0 +1,181 @@
+package antlr4;
+
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.InputMismatchException;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * An error strategy for {@link PiethonParser} that recovers at procedure
+ * boundaries instead of at whatever token {@link DefaultErrorStrategy}
+ * computes from the follow sets of the rules currently being parsed.
+ * <p>
+ * After a syntax error the parser skips ahead to the next {@code 'end'} or
+ * {@code 'def'}, so a single bad token costs at most the rest of its
+ * procedure rather than producing a cascade of errors from repeated
+ * resynchronization on {@code ';'} or identifiers. Single-token repairs
+ * (a missing or an extra token) are still attempted first, but at most
+ * {@code maxErrorsPerDef} errors are reported for any one procedure; past
+ * that, the rest of the procedure is skipped up to the next {@code 'def'}.
+ * Every recovery consumes input, so the time spent recovering is linear in
+ * the number of tokens however broken the script is.
+ * <p>
+ * The procedures in which errors were found are remembered (see
+ * {@link #isBroken}), so the remaining ones can still be checked.
+ */
+public class DefBoundaryErrorStrategy extends DefaultErrorStrategy {
+
+    public static final int DEFAULT_MAX_ERRORS_PER_DEF = 3;
+
+    private static final int DEF = PiethonTokens.DEF;
+    private static final int END = PiethonTokens.END;
+
+    private final int maxErrorsPerDef;
+    private final Set<ParserRuleContext> broken =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // defs never nest, so counting errors for the current one is enough
+    private PiethonParser.DefContext currentDef;
+    private int currentDefErrors;
+
+    public DefBoundaryErrorStrategy() {
+        this(DEFAULT_MAX_ERRORS_PER_DEF);
+    }
+
+    public DefBoundaryErrorStrategy(int maxErrorsPerDef) {
+        if (maxErrorsPerDef < 1) {
+            throw new IllegalArgumentException("maxErrorsPerDef should be positive");
+        }
+        this.maxErrorsPerDef = maxErrorsPerDef;
+    }
+
+    /** Returns true if a syntax error was found in {@code def}. */
+    public boolean isBroken(PiethonParser.DefContext def) {
+        return broken.contains(def);
+    }
+
+    /**
+     * Forgets which procedures were broken, so that a parser discarding
+     * each {@code def} after use does not have them retained here.
+     */
+    public void clear() {
+        broken.clear();
+    }
+
+    @Override public void reset(Parser recognizer) {
+        super.reset(recognizer);
+        broken.clear();
+        currentDef = null;
+        currentDefErrors = 0;
+    }
+
+    @Override public void reportError(Parser recognizer, RecognitionException e) {
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        if (count(recognizer)) {
+            super.reportError(recognizer, e);
+        } else {
+            beginErrorCondition(recognizer);
+        }
+    }
+
+    @Override protected void reportUnwantedToken(Parser recognizer) {
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        if (count(recognizer)) {
+            super.reportUnwantedToken(recognizer);
+        } else {
+            beginErrorCondition(recognizer);
+        }
+    }
+
+    @Override protected void reportMissingToken(Parser recognizer) {
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        if (count(recognizer)) {
+            super.reportMissingToken(recognizer);
+        } else {
+            beginErrorCondition(recognizer);
+        }
+    }
+
+    @Override public Token recoverInline(Parser recognizer) throws RecognitionException {
+        if (overLimit(recognizer)) {
+            // no more repairs: fail the rule and skip the procedure in recover
+            throw new InputMismatchException(recognizer);
+        }
+        return super.recoverInline(recognizer);
+    }
+
+    @Override public void sync(Parser recognizer) throws RecognitionException {
+        if (!overLimit(recognizer)) {
+            super.sync(recognizer);
+        }
+    }
+
+    @Override public void recover(Parser recognizer, RecognitionException e) {
+        var tokens = recognizer.getInputStream();
+        if (lastErrorIndex == tokens.index()) {
+            // failed again without consuming anything; force progress
+            recognizer.consume();
+        }
+        lastErrorIndex = tokens.index();
+
+        IntervalSet resync = IntervalSet.of(DEF);
+        resync.add(Token.EOF);
+        if (!overLimit(recognizer)) {
+            resync.add(END);
+        }
+        consumeUntil(recognizer, resync);
+        if (tokens.LA(1) == END && recognizer.getContext() instanceof PiethonParser.DefContext) {
+            // the def rule is about to return: let it take its 'end' along
+            recognizer.consume();
+        }
+    }
+
+    /**
+     * Counts an error against the procedure being parsed and returns true
+     * if it should be reported. The error that exceeds the limit is replaced
+     * by a note that the rest of the procedure is being skipped.
+     */
+    private boolean count(Parser recognizer) {
+        var def = enclosingDef(recognizer);
+        if (def != currentDef) {
+            currentDef = def;
+            currentDefErrors = 0;
+        }
+        if (def != null) {
+            broken.add(def);
+        }
+        currentDefErrors++;
+        if (currentDefErrors == maxErrorsPerDef + 1) {
+            recognizer.notifyErrorListeners(recognizer.getCurrentToken(),
+                    "too many syntax errors in this procedure; skipping to the next 'def'", null);
+        }
+        return currentDefErrors <= maxErrorsPerDef;
+    }
+
+    private boolean overLimit(Parser recognizer) {
+        return currentDefErrors > maxErrorsPerDef && enclosingDef(recognizer) == currentDef;
+    }
+
+    private static PiethonParser.DefContext enclosingDef(Parser recognizer) {
+        for (var ctx = recognizer.getContext(); ctx != null; ctx = ctx.getParent()) {
+            if (ctx instanceof PiethonParser.DefContext def) {
+                return def;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package antlr4;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * A {@link TokenSource} decorator that only passes through tokens on the
+ * {@link Token#DEFAULT_CHANNEL}.
+ * <p>
+ * {@link org.antlr.v4.runtime.CommonTokenStream} does this filtering itself,
+ * but {@link org.antlr.v4.runtime.UnbufferedTokenStream} hands every token to
+ * the parser, so hidden-channel tokens (e.g., the {@code WS} rule in
+ * {@code Piethon.g4}) have to be dropped before they reach it.
+ */
+public class DefaultChannelTokenSource implements TokenSource {
+
+    private final TokenSource delegate;
+
+    public DefaultChannelTokenSource(TokenSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override public Token nextToken() {
+        Token t = delegate.nextToken();
+        while (t.getChannel() != Token.DEFAULT_CHANNEL && t.getType() != Token.EOF) {
+            t = delegate.nextToken();
+        }
+        return t;
+    }
+
+    @Override public int getLine() {
+        return delegate.getLine();
+    }
+
+    @Override public int getCharPositionInLine() {
+        return delegate.getCharPositionInLine();
+    }
+
+    @Override public CharStream getInputStream() {
+        return delegate.getInputStream();
+    }
+
+    @Override public String getSourceName() {
+        return delegate.getSourceName();
+    }
+
+    @Override public void setTokenFactory(TokenFactory<?> factory) {
+        delegate.setTokenFactory(factory);
+    }
+
+    @Override public TokenFactory<?> getTokenFactory() {
+        return delegate.getTokenFactory();
+    }
+}
@@ -0,0 +1,70 @@
+package antlr4;
+
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A drop-in replacement for {@link ParseTreeWalker} that fires the exact same
+ * sequence of listener events, but keeps its traversal state on an explicit
+ * heap-allocated stack rather than on the call stack.
+ * <p>
+ * The left-recursive {@code exp} rule in {@code Piethon.g4} produces trees as
+ * deep as the expression is long (e.g., {@code a + a + ... + a}), which is
+ * enough to overflow the recursive {@link ParseTreeWalker#DEFAULT}.
+ */
+public class IterativeParseTreeWalker extends ParseTreeWalker {
+
+    public static final IterativeParseTreeWalker DEFAULT =
+            new IterativeParseTreeWalker();
+
+    @Override public void walk(ParseTreeListener listener, ParseTree t) {
+        if (!(t instanceof RuleNode root)) {
+            visitLeaf(listener, t);
+            return;
+        }
+        // parallel stacks: the rule nodes currently open and, for each, the
+        // index of the next child to visit
+        Deque<RuleNode> nodes = new ArrayDeque<>();
+        int[] nextChild = new int[64];
+
+        enterRule(listener, root);
+        nodes.push(root);
+        nextChild[0] = 0;
+
+        while (!nodes.isEmpty()) {
+            int depth = nodes.size() - 1;
+            RuleNode node = nodes.peek();
+            if (nextChild[depth] < node.getChildCount()) {
+                ParseTree child = node.getChild(nextChild[depth]++);
+                if (child instanceof RuleNode r) {
+                    enterRule(listener, r);
+                    nodes.push(r);
+                    if (depth + 1 == nextChild.length) {
+                        nextChild = Arrays.copyOf(nextChild, nextChild.length * 2);
+                    }
+                    nextChild[depth + 1] = 0;
+                } else {
+                    visitLeaf(listener, child);
+                }
+            } else {
+                exitRule(listener, nodes.pop());
+            }
+        }
+    }
+
+    private static void visitLeaf(ParseTreeListener listener, ParseTree t) {
+        if (t instanceof ErrorNode e) {
+            listener.visitErrorNode(e);
+        } else if (t instanceof TerminalNode n) {
+            listener.visitTerminal(n);
+        }
+    }
+}
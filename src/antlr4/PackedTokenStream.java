@@ -0,0 +1,189 @@
+package antlr4;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.RuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * A {@link TokenStream} that buffers the tokens of its source packed into
+ * {@code int} arrays instead of keeping a {@link Token} object for each.
+ * <p>
+ * {@link org.antlr.v4.runtime.CommonTokenStream} keeps every token the
+ * lexer produces, hidden ones included, as a {@link org.antlr.v4.runtime.CommonToken} of some
+ * 50 bytes plus its slot in a list. Here only the tokens on the
+ * {@link Token#DEFAULT_CHANNEL} are kept (the parser never sees the others),
+ * in a {@link PackedTokens} buffer of five {@code int}s per token. Their text
+ * is not stored: it is read back from the lexer's {@link CharStream} when
+ * asked for.
+ * <p>
+ * {@link #LA} reads token types straight from the pages. {@link Token}
+ * objects are only created when the parser asks for one ({@link #LT},
+ * {@link #get}), i.e., for the tokens it matches into the parse tree and
+ * those it reports errors at; the last few are cached, as the parser asks
+ * for the current token repeatedly. Like {@code CommonTokenStream}, the
+ * stream pulls tokens from its source as the parser looks ahead, so a
+ * {@link CancellableTokenSource} still interrupts parsing.
+ * <p>
+ * The tokens matched into the parse tree are still {@link Token} objects,
+ * and the tree dominates what a parse retains: for a large script, the
+ * stream and tree together retain only about a tenth less than with
+ * {@code CommonTokenStream} (see {@code TokenMemoryBenchmark}). The saving
+ * is in the buffer itself, which matters most where tokens are held without
+ * a tree, as in the pre-scan of a parallel parse.
+ * <p>
+ * Token indexes count default-channel tokens only; the text between two
+ * tokens (see {@link #getText(Interval)}) still includes whatever hidden
+ * text lies between them.
+ */
+public class PackedTokenStream implements TokenStream {
+
+    /** How many recently created tokens are cached (a power of two). */
+    private static final int RECENT = 64;
+
+    private final TokenSource source;
+    private final Pair<TokenSource, CharStream> sourcePair;
+
+    private final PackedTokens tokens = new PackedTokens();
+    private boolean fetchedEOF;
+    private final Token[] recent = new Token[RECENT];
+
+    /** The index of the current token (the next to be consumed). */
+    private int p;
+
+    public PackedTokenStream(TokenSource source) {
+        this.source = source;
+        this.sourcePair = new Pair<>(source, source.getInputStream());
+    }
+
+    /** Returns the number of bytes the packed tokens take up. */
+    public long packedBytes() {
+        return tokens.packedBytes();
+    }
+
+    @Override public Token LT(int k) {
+        int i = lookahead(k);
+        return i < 0 ? null : get(i);
+    }
+
+    @Override public int LA(int k) {
+        int i = lookahead(k);
+        return i < 0 ? Token.INVALID_TYPE : tokens.type(i);
+    }
+
+    @Override public Token get(int index) {
+        Token cached = recent[index & (RECENT - 1)];
+        if (cached != null && cached.getTokenIndex() == index) {
+            return cached;
+        }
+        Token t = tokens.token(index, sourcePair);
+        recent[index & (RECENT - 1)] = t;
+        return t;
+    }
+
+    @Override public void consume() {
+        if (LA(1) == Token.EOF) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        p++;
+        sync(p);
+    }
+
+    @Override public int index() {
+        return p;
+    }
+
+    @Override public void seek(int index) {
+        sync(index);
+        p = Math.min(Math.max(index, 0), tokens.size() - 1);
+    }
+
+    /** Every token is kept, so marks are not needed to rewind. */
+    @Override public int mark() {
+        return -1;
+    }
+
+    @Override public void release(int marker) {
+    }
+
+    /** Returns the number of tokens read from the source so far. */
+    @Override public int size() {
+        return tokens.size();
+    }
+
+    @Override public String getSourceName() {
+        return source.getSourceName();
+    }
+
+    @Override public TokenSource getTokenSource() {
+        return source;
+    }
+
+    @Override public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = interval.b;
+        if (start < 0 || stop < 0) {
+            return "";
+        }
+        sync(stop);
+        stop = Math.min(stop, tokens.size() - 1);
+        if (tokens.type(stop) == Token.EOF) {
+            stop--;
+        }
+        if (start > stop) {
+            return "";
+        }
+        return sourcePair.b.getText(Interval.of(tokens.start(start), tokens.stop(stop)));
+    }
+
+    /** Returns the text of the whole input, reading every remaining token first. */
+    @Override public String getText() {
+        while (!fetchedEOF) {
+            fetch();
+        }
+        return getText(Interval.of(0, tokens.size() - 1));
+    }
+
+    @Override public String getText(RuleContext ctx) {
+        return getText(ctx.getSourceInterval());
+    }
+
+    @Override public String getText(Token start, Token stop) {
+        if (start == null || stop == null) {
+            return "";
+        }
+        return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+    }
+
+    /** Returns the index of the {@code k}-th token ahead (behind if negative), or -1. */
+    private int lookahead(int k) {
+        if (k == 0) {
+            return -1;
+        }
+        if (k < 0) {
+            return p + k;
+        }
+        int i = p + k - 1;
+        sync(i);
+        return Math.min(i, tokens.size() - 1);
+    }
+
+    /** Reads tokens from the source until token {@code i} is buffered, or EOF is. */
+    private void sync(int i) {
+        while (tokens.size() <= i && !fetchedEOF) {
+            fetch();
+        }
+    }
+
+    private void fetch() {
+        Token t = source.nextToken();
+        while (t.getChannel() != Token.DEFAULT_CHANNEL && t.getType() != Token.EOF) {
+            t = source.nextToken();
+        }
+        tokens.add(t);
+        fetchedEOF = t.getType() == Token.EOF;
+    }
+}
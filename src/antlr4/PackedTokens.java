@@ -0,0 +1,168 @@
+package antlr4;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of tokens packed into {@code int} arrays: each token is
+ * five {@code int}s (type, start and stop offsets, line and column) in pages
+ * of 4096 tokens, so the buffer grows without copying. Channels and text are
+ * not kept; {@link Token} objects are created on demand by {@link #token}.
+ * <p>
+ * This is the storage behind {@link PackedTokenStream}; it can also hold a
+ * whole script's tokens, to be parsed a range at a time through
+ * {@link #source(int, int, CharStream)}.
+ */
+public final class PackedTokens {
+
+    private static final int TYPE = 0;
+    private static final int START = 1;
+    private static final int STOP = 2;
+    private static final int LINE = 3;
+    private static final int COLUMN = 4;
+    private static final int FIELDS = 5;
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_TOKENS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_TOKENS - 1;
+
+    private int[][] pages = new int[16][];
+    private int size;
+
+    /** Appends {@code t}, whose channel and explicit text (if any) are dropped. */
+    public void add(Token t) {
+        int pageIndex = size >>> PAGE_SHIFT;
+        if (pageIndex == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        }
+        if (pages[pageIndex] == null) {
+            pages[pageIndex] = new int[PAGE_TOKENS * FIELDS];
+        }
+        int[] page = pages[pageIndex];
+        int o = (size & PAGE_MASK) * FIELDS;
+        page[o + TYPE] = t.getType();
+        page[o + START] = t.getStartIndex();
+        page[o + STOP] = t.getStopIndex();
+        page[o + LINE] = t.getLine();
+        page[o + COLUMN] = t.getCharPositionInLine();
+        size++;
+    }
+
+    /** Returns the number of tokens in the buffer. */
+    public int size() {
+        return size;
+    }
+
+    public int type(int i) {
+        return field(i, TYPE);
+    }
+
+    public int start(int i) {
+        return field(i, START);
+    }
+
+    public int stop(int i) {
+        return field(i, STOP);
+    }
+
+    /** Returns the number of bytes the packed tokens take up. */
+    public long packedBytes() {
+        long pageCount = (size + PAGE_TOKENS - 1) >>> PAGE_SHIFT;
+        return pageCount * PAGE_TOKENS * FIELDS * Integer.BYTES;
+    }
+
+    /**
+     * Creates token {@code i} as a default-channel {@link CommonToken} of
+     * {@code source}, with token index {@code i}.
+     *
+     * @throws IndexOutOfBoundsException if there is no token {@code i}.
+     */
+    public CommonToken token(int i, Pair<TokenSource, CharStream> source) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("token index " + i + " out of range 0.." + (size - 1));
+        }
+        int[] page = pages[i >>> PAGE_SHIFT];
+        int o = (i & PAGE_MASK) * FIELDS;
+        var t = new CommonToken(source, page[o + TYPE], Token.DEFAULT_CHANNEL, page[o + START], page[o + STOP]);
+        t.setLine(page[o + LINE]);
+        t.setCharPositionInLine(page[o + COLUMN]);
+        t.setTokenIndex(i);
+        return t;
+    }
+
+    /**
+     * Returns a source producing tokens {@code [from, to)} of this buffer,
+     * lexed from {@code input}, followed by an {@code EOF}: token
+     * {@code to} retyped {@code EOF} if there is one, otherwise the last
+     * token (which should be the script's {@code EOF}). Tokens are created
+     * as they are pulled.
+     */
+    public TokenSource source(int from, int to, CharStream input) {
+        if (from < 0 || from > to || to > size || (to == size && (size == 0 || from == size))) {
+            throw new IndexOutOfBoundsException("token range " + from + ".." + to + " of " + size);
+        }
+        return new RangeSource(from, to, input);
+    }
+
+    private int field(int index, int field) {
+        return pages[index >>> PAGE_SHIFT][(index & PAGE_MASK) * FIELDS + field];
+    }
+
+    private final class RangeSource implements TokenSource {
+        private final int to;
+        private final CharStream input;
+        private final Pair<TokenSource, CharStream> sourcePair;
+        private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+        private int next;
+
+        RangeSource(int from, int to, CharStream input) {
+            this.to = to;
+            this.input = input;
+            this.sourcePair = new Pair<>(this, input);
+            this.next = from;
+        }
+
+        @Override public Token nextToken() {
+            if (next < to) {
+                return token(next++, sourcePair);
+            }
+            if (to < size) {
+                CommonToken end = token(to, sourcePair);
+                end.setType(Token.EOF);
+                return end;
+            }
+            return token(size - 1, sourcePair);
+        }
+
+        @Override public int getLine() {
+            return field(Math.min(next, size - 1), LINE);
+        }
+
+        @Override public int getCharPositionInLine() {
+            return field(Math.min(next, size - 1), COLUMN);
+        }
+
+        @Override public CharStream getInputStream() {
+            return input;
+        }
+
+        @Override public String getSourceName() {
+            return input.getSourceName();
+        }
+
+        @Override public void setTokenFactory(TokenFactory<?> factory) {
+            this.factory = factory;
+        }
+
+        @Override public TokenFactory<?> getTokenFactory() {
+            return factory;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package antlr4;
+
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+
+/**
+ * Token types of the Piethon keywords and punctuation, which ANTLR only
+ * names {@code T__0}, {@code T__1}, ... (their numbering changes whenever a
+ * literal is added to {@code Piethon.g4}), looked up by their literal text.
+ */
+public final class PiethonTokens {
+
+    public static final int DEF = type("'def'");
+    public static final int END = type("'end'");
+    public static final int IS = type("'is'");
+    public static final int LPAREN = type("'('");
+    public static final int RPAREN = type("')'");
+    public static final int SEMI = type("';'");
+
+    private PiethonTokens() {
+    }
+
+    /**
+     * Returns the token type of {@code literal}, quoted as in the grammar
+     * (e.g., {@code "'def'"}).
+     *
+     * @throws IllegalStateException if the grammar has no such literal.
+     */
+    public static int type(String literal) {
+        var vocabulary = PiethonLexer.VOCABULARY;
+        for (int t = 1; t <= vocabulary.getMaxTokenType(); t++) {
+            if (literal.equals(vocabulary.getLiteralName(t))) {
+                return t;
+            }
+        }
+        throw new IllegalStateException("no token for " + literal);
+    }
+}
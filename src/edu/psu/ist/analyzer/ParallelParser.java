@@ -0,0 +1,226 @@
+package edu.psu.ist.analyzer;
+
+import antlr4.AntlrErrorReportingListener;
+import antlr4.CancellableTokenSource;
+import antlr4.DefBoundaryErrorStrategy;
+import antlr4.PackedTokenStream;
+import antlr4.PackedTokens;
+import antlr4.PiethonTokens;
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a large script on several threads.
+ * <p>
+ * Since {@code script : def* EOF} and procedures do not nest, every
+ * {@code 'def'} token starts an independent top-level unit (and is where
+ * {@link DefBoundaryErrorStrategy} resynchronizes after errors anyway). The
+ * script is lexed once, on the calling thread, noting where each
+ * {@code 'def'} starts; the tokens are then cut at such boundaries into
+ * chunks of roughly equal size, each parsed by its own
+ * {@link PiethonParser} on a pool of threads, and the procedures of all
+ * chunks are stitched together under a single
+ * {@link PiethonParser.ScriptContext}.
+ * <p>
+ * The pre-scan keeps the tokens packed in a {@link PackedTokens} buffer
+ * (five {@code int}s each), and each chunk is parsed from a
+ * {@link PackedTokenStream} over its range, so no {@link Token} object
+ * outlives the parse unless it is in the tree. Lines, columns and offsets
+ * (and hence every {@link edu.psu.ist.analyzer.utils.SourceLocation}) are
+ * those of the whole script; only token indexes restart in each chunk. A
+ * chunk ends with the next chunk's first token, retyped {@code EOF}, so an error
+ * at the end of a chunk is reported at the same token, with the same
+ * message, as in a sequential parse. The syntax errors of all chunks are
+ * returned ordered by position.
+ * <p>
+ * Lexing stays sequential, so it bounds the achievable speedup; it is,
+ * however, a fraction of the cost of parsing.
+ */
+final class ParallelParser {
+
+    /** Scripts shorter than this (in chars) are not worth splitting. */
+    static final int MIN_CHARS = 64 * 1024;
+
+    /** Chunks per thread, so threads finishing early can take another one. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelParser() {
+    }
+
+    /** The parse of one chunk. */
+    private record Chunk(PiethonParser.ScriptContext tree, AntlrErrorReportingListener errors,
+                         DefBoundaryErrorStrategy recovery) {
+    }
+
+    /**
+     * Parses {@code source} on up to {@code threads} threads.
+     *
+     * @throws edu.psu.ist.analyzer.utils.CancelledException if
+     *         {@code cancellation} is cancelled while lexing or parsing.
+     */
+    static PieChecker.Parsed parse(TextInput source, CancellationToken cancellation, int threads) {
+        var lexErrors = new AntlrErrorReportingListener(source);
+        var lexer = new PiethonLexer(CharStreams.fromString(source.text(), source.name()));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(lexErrors);
+        TokenSource tokenSource = lexer;
+        if (cancellation != CancellationToken.NONE) {
+            tokenSource = new CancellableTokenSource(lexer, cancellation);
+        }
+
+        // pre-scan: the tokens the parser sees, and where each def starts
+        var tokens = new PackedTokens();
+        List<Integer> defs = new ArrayList<>();
+        for (Token t = tokenSource.nextToken(); ; t = tokenSource.nextToken()) {
+            if (t.getType() == Token.EOF) {
+                tokens.add(t);
+                break;
+            }
+            if (t.getChannel() == Token.DEFAULT_CHANNEL) {
+                if (t.getType() == PiethonTokens.DEF) {
+                    defs.add(tokens.size());
+                }
+                tokens.add(t);
+            }
+        }
+
+        CharStream input = lexer.getInputStream();
+        List<Integer> starts = chunkStarts(tokens.size(), defs, threads * CHUNKS_PER_THREAD);
+        List<Callable<Chunk>> tasks = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            int from = starts.get(i);
+            int to = i + 1 < starts.size() ? starts.get(i + 1) : tokens.size();
+            tasks.add(() -> parseChunk(source, tokens.source(from, to, input), cancellation));
+        }
+        List<Chunk> chunks = runAll(tasks, threads);
+
+        // stitch the chunks' top-level children under one script
+        var script = new PiethonParser.ScriptContext(null, -1);
+        List<DefBoundaryErrorStrategy> recoveries = new ArrayList<>();
+        List<PieErrorMessage> errors = new ArrayList<>(lexErrors.errors());
+        for (Chunk chunk : chunks) {
+            PiethonParser.ScriptContext tree = chunk.tree();
+            if (tree.children != null) {
+                for (ParseTree child : tree.children) {
+                    if (child instanceof ParserRuleContext ctx) {
+                        script.addChild(ctx);
+                        ctx.setParent(script);
+                    } else if (child instanceof ErrorNode error) {
+                        script.addErrorNode(error);
+                    } else if (child instanceof TerminalNode t && t.getSymbol().getType() != Token.EOF) {
+                        script.addChild(t);
+                    }
+                }
+            }
+            if (script.exception == null) {
+                script.exception = tree.exception;
+            }
+            recoveries.add(chunk.recovery());
+            errors.addAll(chunk.errors().errors());
+        }
+        var sourcePair = new Pair<TokenSource, CharStream>(lexer, input);
+        Token eof = tokens.token(tokens.size() - 1, sourcePair);
+        script.addChild(new TerminalNodeImpl(eof));
+        script.start = tokens.token(0, sourcePair);
+        script.stop = eof;
+
+        errors.sort(Comparator.comparingInt(e -> e.loc().beginOffset()));
+        return new PieChecker.Parsed(script, errors, def -> {
+            for (var recovery : recoveries) {
+                if (recovery.isBroken(def)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Returns the token indexes at which chunks start: {@code 0}, then at
+     * most {@code maxChunks - 1} of the {@code defs}, spaced so that chunks
+     * hold about the same number of tokens.
+     */
+    private static List<Integer> chunkStarts(int tokenCount, List<Integer> defs, int maxChunks) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        int chunks = Math.min(maxChunks, defs.size());
+        if (chunks < 2) {
+            return starts;
+        }
+        long target = tokenCount / chunks;
+        for (int def : defs) {
+            if (def - starts.get(starts.size() - 1) >= target && starts.size() < chunks) {
+                starts.add(def);
+            }
+        }
+        return starts;
+    }
+
+    private static Chunk parseChunk(TextInput source, TokenSource chunk, CancellationToken cancellation) {
+        cancellation.throwIfCancelled();
+        var errors = new AntlrErrorReportingListener(source);
+        var recovery = new DefBoundaryErrorStrategy();
+        if (cancellation != CancellationToken.NONE) {
+            chunk = new CancellableTokenSource(chunk, cancellation);
+        }
+        var parser = new PiethonParser(new PackedTokenStream(chunk));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+        parser.setErrorHandler(recovery);
+        return new Chunk(parser.script(), errors, recovery);
+    }
+
+    private static List<Chunk> runAll(List<Callable<Chunk>> tasks, int threads) {
+        if (tasks.size() == 1) {
+            try {
+                return List.of(tasks.get(0).call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            List<Chunk> chunks = new ArrayList<>();
+            for (Future<Chunk> f : pool.invokeAll(tasks)) {
+                chunks.add(f.get());
+            }
+            return chunks;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parsing interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package edu.psu.ist.analyzer;
+
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+import java.util.List;
+
+/**
+ * Everything a single run of the analyzer learns about one script: the
+ * errors found by checking it, the signatures of the procedures it defines,
+ * and its call graph.
+ * <p>
+ * The call graph is built even if the script contains semantic errors; for
+ * scripts with syntax errors it (like the list of procedures) only covers
+ * the procedures that parsed.
+ *
+ * @param errors     the syntactic or semantic errors (empty if the script is ok).
+ * @param procedures the procedures defined by the script, in definition order.
+ * @param graph      the call graph of the script.
+ */
+public record PieAnalysis(List<PieErrorMessage> errors,
+                          List<SymbolTableEntry.ProcDefEntry> procedures,
+                          Digraph<ProcNode> graph) {
+
+    /** Returns {@code true} only if the script has no errors. */
+    public boolean isOk() {
+        return errors.isEmpty();
+    }
+}
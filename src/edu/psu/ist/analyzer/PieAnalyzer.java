@@ -1,28 +1,44 @@
 package edu.psu.ist.analyzer;
 
 import antlr4.AntlrErrorReportingListener;
+import antlr4.CancellableTokenSource;
+import antlr4.DefBoundaryErrorStrategy;
+import antlr4.DefaultChannelTokenSource;
+import antlr4.IterativeParseTreeWalker;
 import antlr4.edu.psu.ist.parser.PiethonLexer;
 import antlr4.edu.psu.ist.parser.PiethonParser;
-import edu.psu.ist.analyzer.errors.ParseError;
+import edu.psu.ist.analyzer.graph.GraphStyle;
+import edu.psu.ist.analyzer.graph.SvgWriter;
+import edu.psu.ist.analyzer.render.RenderService;
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.CancelledException;
 import edu.psu.ist.analyzer.utils.Digraph;
 import edu.psu.ist.analyzer.utils.Options;
 import edu.psu.ist.analyzer.utils.Result;
 import edu.psu.ist.analyzer.utils.TextInput;
-import guru.nidi.graphviz.attribute.*;
 import guru.nidi.graphviz.engine.Format;
 import guru.nidi.graphviz.engine.Graphviz;
 import guru.nidi.graphviz.model.MutableGraph;
 import guru.nidi.graphviz.model.MutableNode;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static guru.nidi.graphviz.model.Factory.mutGraph;
 import static guru.nidi.graphviz.model.Factory.mutNode;
@@ -30,12 +46,24 @@ import static guru.nidi.graphviz.model.Link.to;
 
 public final class PieAnalyzer {
 
+    /** Size (in chars) of the sliding window used by the streaming mode. */
+    private static final int STREAMING_CHAR_BUFFER = 8192;
+
+    /** Width (in pixels) of exported call graph images. */
+    private static final int EXPORT_WIDTH = 2340;
+
+    /** How often (in ms) a pending render polls for cancellation. */
+    private static final long EXPORT_POLL_MILLIS = 50;
+
     /** The current {@code .pie} source to be parsed into a CST. */
     private TextInput currentSource;
 
     /** Stores current settings/options for the checker (minimal currently). */
     private Options options = Options.TestOpts;
 
+    /** Renders exported graphs when set; otherwise they are rendered inline. */
+    private RenderService renderService;
+
     /** Adds the source code with the given {@code name} and {@code text}. */
     public PieAnalyzer setScriptCode(String name, String text) {
         if (name == null || text == null) {
@@ -51,6 +79,15 @@ public final class PieAnalyzer {
         return this;
     }
 
+    /**
+     * Routes {@link #exportGraph} through the given pool of warm engines
+     * (pass {@code null} to go back to rendering on the calling thread).
+     */
+    public PieAnalyzer setRenderService(RenderService service) {
+        this.renderService = service;
+        return this;
+    }
+
     /** Removes the current {@code .pie} script with the given {@code name}. */
     public PieAnalyzer removeSourceCode() {
         this.currentSource = null;
@@ -61,7 +98,8 @@ public final class PieAnalyzer {
      * Returns a {@link Result} instance that is either a {@link Result.Ok}
      * holding the successully parsed syntax tree for the current piethon
      * program or an {@link Result.Err} that encapsulates a list of error
-     * messages.
+     * messages; or a {@link Result.Cancelled} if the
+     * {@link Options#cancellation()} token was cancelled first.
      */
     public Result<PiethonParser.ScriptContext, List<PieErrorMessage>> check() {
 
@@ -69,43 +107,110 @@ public final class PieAnalyzer {
             throw new IllegalStateException("Cannot call check until a " +
                     "script is set (call setScriptCode(..))");
         }
-        var parseResult = parseRoot(currentSource);
-        if (parseResult.isError()) {
-            if (!options.runSilent()) {
-                reportErrors(parseResult.getError());
-            }
-            return parseResult;
+        return checker().check(currentSource);
+    }
+
+    /**
+     * Checks the current script and builds its call graph in a single pass,
+     * returning everything learned as a {@link PieAnalysis}. Unlike
+     * {@link #buildGraph()}, this does not throw for erroneous scripts.
+     */
+    public PieAnalysis analyze() {
+        if (currentSource == null) {
+            throw new IllegalStateException("Cannot call analyze until a " +
+                    "script is set (call setScriptCode(..))");
         }
+        return checker().analyze(currentSource);
+    }
 
-        PiethonParser.ScriptContext scriptRootNode = parseResult.get();
-        PieScriptCheckingListener checkingListener =
-                new PieScriptCheckingListener(currentSource, scriptRootNode);
-        ParseTreeWalker.DEFAULT.walk(checkingListener, scriptRootNode);
+    /** Returns an immutable checker with the current options. */
+    public PieChecker checker() {
+        return new PieChecker(options);
+    }
 
-        var result = checkingListener.getCheckedScript();
-        if (result.isError() && !options.runSilent()) {
-            reportErrors(result.getError());
+    public Digraph<ProcNode> buildGraph() {
+        if (currentSource == null) {
+            throw new IllegalStateException("Cannot call buildGraph until a " +
+                    "script is set (call setScriptCode(..))");
         }
-        return result;
+        return checker().buildGraph(currentSource);
     }
 
-    private void reportErrors(List<PieErrorMessage> errors) {
-        for (var err : errors) {
-            System.err.println(err);
+    /**
+     * Streaming counterpart of {@link #check()} followed by {@link #buildGraph()}
+     * for scripts too large to hold in memory as a single parse tree.
+     * <p>
+     * The script is read from {@code input} through an
+     * {@link UnbufferedCharStream}/{@link UnbufferedTokenStream} pair and
+     * parsed one {@code def} at a time; each completed
+     * {@link PiethonParser.DefContext} is handed to the checking and
+     * graph-building listeners (unless it has syntax errors) and then
+     * discarded. Peak memory is therefore
+     * bounded by the largest procedure rather than by the size of the file.
+     * <p>
+     * This does not use (or require) the script set via
+     * {@link #setScriptCode(String, String)}. Since the text is never
+     * materialized, the {@link TextInput} referenced by reported
+     * {@link edu.psu.ist.analyzer.utils.SourceLocation}s has empty text.
+     *
+     * @return the call graph if the script is free of syntactic and semantic
+     * errors; otherwise the list of errors encountered, or
+     * {@link Result.Cancelled} if the {@link Options#cancellation()} token
+     * was cancelled first.
+     */
+    public Result<Digraph<ProcNode>, List<PieErrorMessage>> checkStreaming(String name, Reader input) {
+        if (name == null || input == null) {
+            throw new IllegalArgumentException("name, input should not be null");
         }
-    }
+        var source = new TextInput(name, "");
+        var errorListener = new AntlrErrorReportingListener(source);
 
-    public Digraph<ProcNode> buildGraph() {
+        var chars = new UnbufferedCharStream(input, STREAMING_CHAR_BUFFER);
+        chars.name = name;
+        var lexer = new PiethonLexer(chars);
+        // tokens must own their text: the char buffer slides past them
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+
+        CancellationToken cancellation = options.cancellation();
+        var tokens = new UnbufferedTokenStream<Token>(
+                new CancellableTokenSource(new DefaultChannelTokenSource(lexer), cancellation));
+        var recovery = new DefBoundaryErrorStrategy();
+        var parser = new PiethonParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(recovery);
+
+        var checkingListener = new PieScriptCheckingListener(source, null, options.lint(), cancellation);
+        var graphListener = new PieGraphBuildingListener(cancellation);
+        try {
+            cancellation.throwIfCancelled();
+            while (tokens.LA(1) != Token.EOF) {
+                int before = tokens.index();
+                PiethonParser.DefContext def = parser.def();
+                if (!recovery.isBroken(def)) {
+                    IterativeParseTreeWalker.DEFAULT.walk(checkingListener, def);
+                    IterativeParseTreeWalker.DEFAULT.walk(graphListener, def);
+                } else if (def.ID() != null) {
+                    checkingListener.assumeProcedure(def.ID().getText());
+                }
+                recovery.clear();
+                if (tokens.index() == before) {
+                    tokens.consume(); // no progress on garbage input; skip a token
+                }
+            }
+        } catch (CancelledException e) {
+            return Result.cancelled(e.getMessage());
+        }
 
-        var checkResult = check();
-        if (!checkResult.isOk()) {
-            throw new IllegalArgumentException("Script contains errors " +
-                    "(call check first to ensure the script is well formed)");
+        List<PieErrorMessage> errors = new ArrayList<>(errorListener.errors());
+        errors.addAll(checkingListener.getErrors());
+        if (!errors.isEmpty()) {
+            checker().report(errors);
+            return Result.err(errors);
         }
-        PieGraphBuildingListener l = new PieGraphBuildingListener();
-        // walk the tree & build the graph
-        ParseTreeWalker.DEFAULT.walk(l, checkResult.get());
-        return l.getGraph();
+        return Result.ok(graphListener.getGraph());
     }
 
     /**
@@ -114,29 +219,41 @@ public final class PieAnalyzer {
      * <p>
      * Implement this method using
      * <a href="https://github.com/nidi3/graphviz-java">this graphviz library</a>
+     * <p>
+     * This blocks until the png is written; see
+     * {@link edu.psu.ist.analyzer.render.GraphExporter} for exporting many
+     * graphs asynchronously. Nothing is written if the
+     * {@link Options#cancellation()} token is cancelled first; a render
+     * already in progress is abandoned (and its worker interrupted) only
+     * when it runs on a {@link RenderService}, since an inline render cannot
+     * be stopped part way.
      */
     public void exportGraph(Digraph<ProcNode> g, String outputImageName, String graphTitle) {
-        MutableGraph graph = mutGraph(graphTitle).setDirected(true).graphAttrs().add("rankdir", "LR");
-
-        Map<ProcNode, MutableNode> nodeMap = new HashMap<>();
-        for (ProcNode node : g.getVertices()) {
-            MutableNode graphNode = mutNode(node.toString()).add(Shape.TRIANGLE, Style.FILLED, Color.BLUE);
-            nodeMap.put(node, graphNode);
-            graph.add(graphNode);
-        }
-
-        for (ProcNode node : g.getVertices()) {
-            MutableNode sourceNode = nodeMap.get(node);
-            for (ProcNode target : g.neighbors(node)) {
-                MutableNode targetNode = nodeMap.get(target);
-                sourceNode.addLink(to(targetNode).with(Label.of("calls")));
-            }
-        }
+        exportGraph(g, outputImageName, graphTitle, GraphStyle.DEFAULT);
+    }
 
+    /**
+     * Same as {@link #exportGraph(Digraph, String, String)}, but nodes and
+     * edges are drawn with the attributes supplied by {@code style}.
+     */
+    public void exportGraph(Digraph<ProcNode> g, String outputImageName,
+                            String graphTitle, GraphStyle style) {
+        CancellationToken cancellation = options.cancellation();
         Path path = Paths.get(outputImageName);
         try {
-            Graphviz.fromGraph(graph).width(2340).render(Format.PNG).toFile(new File(path.toString()));
+            cancellation.throwIfCancelled();
+            MutableGraph graph = toGraphviz(g, graphTitle, style);
+            if (renderService != null) {
+                awaitRender(renderService.render(graph, Format.PNG, EXPORT_WIDTH, path), cancellation);
+            } else {
+                Graphviz.fromGraph(graph).width(EXPORT_WIDTH).render(Format.PNG).toFile(new File(path.toString()));
+            }
             System.out.println("Graph has been exported to: " + path.toString());
+        } catch (CancelledException e) {
+            System.err.println("Graph export " + e.getMessage() + ": " + path);
+        } catch (CompletionException e) {
+            System.err.println("Error while exporting graph: " + e.getCause().getMessage());
+            e.getCause().printStackTrace();
         } catch (Exception e) {
             System.err.println("Error while exporting graph: " + e.getMessage());
             e.printStackTrace();
@@ -144,29 +261,71 @@ public final class PieAnalyzer {
     }
 
     /**
-     * Given a piethon {@code source}, returns an {@link Result} instance that
-     * holds either the root of a successfully parsed piethon parse tree, or a
-     * List of {@link ParseError} messages.
+     * Waits for {@code render}, polling {@code cancellation} meanwhile; once
+     * it is cancelled, cancels the render (which interrupts its worker) and
+     * throws.
      */
-    private Result<PiethonParser.ScriptContext, List<PieErrorMessage>> parseRoot(TextInput source) {
-        var errorListener = new AntlrErrorReportingListener(source);
-        var lexer = new PiethonLexer(CharStreams.fromString(source.text(),
-                source.name()));
+    private static void awaitRender(CompletableFuture<?> render, CancellationToken cancellation)
+            throws InterruptedException {
+        if (cancellation == CancellationToken.NONE) {
+            render.join();
+            return;
+        }
+        while (true) {
+            long waitNanos = Math.min(cancellation.remainingNanos(),
+                    TimeUnit.MILLISECONDS.toNanos(EXPORT_POLL_MILLIS));
+            try {
+                render.get(waitNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (TimeoutException e) {
+                if (cancellation.isCancelled()) {
+                    render.cancel(true);
+                    cancellation.throwIfCancelled();
+                }
+            }
+        }
+    }
 
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(errorListener);
+    /**
+     * Draws {@code g} as an SVG file with the built-in
+     * {@link edu.psu.ist.analyzer.graph.LayeredLayout} instead of graphviz.
+     * Use this for call graphs too large for {@link #exportGraph}.
+     */
+    public void exportSvg(Digraph<ProcNode> g, String outputName, String graphTitle) {
+        Path path = Paths.get(outputName);
+        try {
+            SvgWriter.export(g, graphTitle, path);
+            System.out.println("Graph has been exported to: " + path);
+        } catch (IOException e) {
+            System.err.println("Error while exporting graph: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 
-        var parser = new PiethonParser(new CommonTokenStream(lexer));
-        parser.removeErrorListeners();
-        parser.addErrorListener(errorListener);
+    /** Converts {@code g} into a graphviz graph drawn according to {@code style}. */
+    public static MutableGraph toGraphviz(Digraph<ProcNode> g, String graphTitle, GraphStyle style) {
+        MutableGraph graph = mutGraph(graphTitle).setDirected(true).graphAttrs().add("rankdir", "LR");
 
-        PiethonParser.ScriptContext tree = parser.script();
-        // NOTE: we don't want our parser to stop cold on the first
-        // syntactic error encountered
-        if (!errorListener.errors().isEmpty()) {
-            // failure (one or more syntactic errors)
-            return Result.err(errorListener.errors());
+        Map<ProcNode, MutableNode> nodeMap = new HashMap<>();
+        for (ProcNode node : g.getVertices()) {
+            MutableNode graphNode = mutNode(node.toString()).add(style.node(node));
+            nodeMap.put(node, graphNode);
+            graph.add(graphNode);
+        }
+
+        for (ProcNode node : g.getVertices()) {
+            MutableNode sourceNode = nodeMap.get(node);
+            for (ProcNode target : g.neighbors(node)) {
+                MutableNode targetNode = nodeMap.computeIfAbsent(target, t -> {
+                    MutableNode n = mutNode(t.toString()).add(style.node(t));
+                    graph.add(n);
+                    return n;
+                });
+                sourceNode.addLink(to(targetNode).with(style.edge(node, target)));
+            }
         }
-        return Result.ok(tree);
+        return graph;
     }
 }
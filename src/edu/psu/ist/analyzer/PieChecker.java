@@ -0,0 +1,258 @@
+package edu.psu.ist.analyzer;
+
+import antlr4.AntlrErrorReportingListener;
+import antlr4.CancellableTokenSource;
+import antlr4.DefBoundaryErrorStrategy;
+import antlr4.IterativeParseTreeWalker;
+import antlr4.PackedTokenStream;
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.errors.DiagnosticsText;
+import edu.psu.ist.analyzer.module.ModuleUnit;
+import edu.psu.ist.analyzer.summary.ProcedureFactsListener;
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.CancelledException;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.Result;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, thread-safe counterpart of {@link PieAnalyzer}: configured
+ * once with {@link Options}, it checks and analyzes any number of scripts,
+ * concurrently, through methods that take the script as an argument.
+ * <p>
+ * Every call creates its own lexer, parser and listeners, so calls share no
+ * mutable state except ANTLR's static ATN and DFA caches
+ * ({@code PiethonParser._decisionToDFA} and the shared prediction context
+ * cache), which the ANTLR runtime updates under its own locks. Sharing
+ * them is what makes parsing fast once warm: the DFAs built by one call are
+ * reused by every later call on any thread. The locks are held only briefly
+ * and never across blocking operations, so calls may be made from
+ * (thousands of) virtual threads.
+ * <p>
+ * Every call polls {@link Options#cancellation()}: in the lexer (every
+ * {@link CancellableTokenSource#CHECK_INTERVAL} tokens) and at every
+ * procedure the listeners visit. A cancelled {@link #check} returns a
+ * {@link Result.Cancelled}; the other methods throw a
+ * {@link CancelledException}.
+ */
+public final class PieChecker {
+
+    private final Options options;
+
+    public PieChecker(Options options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options should not be null");
+        }
+        this.options = options;
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /** Returns a checker like this one, but configured with {@code o}. */
+    public PieChecker withOptions(Options o) {
+        return new PieChecker(o);
+    }
+
+    /**
+     * Returns a {@link Result} instance that is either a {@link Result.Ok}
+     * holding the successfully parsed syntax tree for {@code source} or an
+     * {@link Result.Err} that encapsulates a list of error messages; or a
+     * {@link Result.Cancelled} if {@link Options#cancellation()} was
+     * cancelled before checking finished.
+     */
+    public Result<PiethonParser.ScriptContext, List<PieErrorMessage>> check(TextInput source) {
+        CancellationToken cancellation = options.cancellation();
+        try {
+            cancellation.throwIfCancelled();
+            var parsed = parse(source);
+            PieScriptCheckingListener checkingListener =
+                    new PieScriptCheckingListener(source, parsed.tree(), options.lint(), cancellation);
+            parsed.walk(checkingListener);
+
+            if (parsed.errors().isEmpty()) {
+                var result = checkingListener.getCheckedScript();
+                if (result.isError()) {
+                    report(result.getError());
+                }
+                return result;
+            }
+            List<PieErrorMessage> errors = new ArrayList<>(parsed.errors());
+            errors.addAll(checkingListener.getErrors());
+            report(errors);
+            return Result.err(errors);
+        } catch (CancelledException e) {
+            return Result.cancelled(e.getMessage());
+        }
+    }
+
+    /**
+     * Checks {@code source} and builds its call graph in a single pass,
+     * returning everything learned as a {@link PieAnalysis}. Does not throw
+     * for erroneous scripts; the procedures and call graph of a script with
+     * syntax errors cover the procedures that parsed.
+     *
+     * @throws CancelledException if {@link Options#cancellation()} was
+     *                            cancelled before the analysis finished.
+     */
+    public PieAnalysis analyze(TextInput source) {
+        CancellationToken cancellation = options.cancellation();
+        cancellation.throwIfCancelled();
+        var parsed = parse(source);
+        PieScriptCheckingListener checkingListener =
+                new PieScriptCheckingListener(source, parsed.tree(), options.lint(), cancellation);
+        parsed.walk(checkingListener);
+        PieGraphBuildingListener graphListener = new PieGraphBuildingListener(cancellation);
+        parsed.walk(graphListener);
+
+        List<PieErrorMessage> errors = new ArrayList<>(parsed.errors());
+        errors.addAll(checkingListener.getErrors());
+        report(errors);
+        return new PieAnalysis(errors, checkingListener.getProcedures(), graphListener.getGraph());
+    }
+
+    /**
+     * Like {@link #analyze}, but for {@code source} as one file of a
+     * multi-file program: calls to procedures it does not define are not
+     * reported but returned, to be linked against the procedures of the
+     * other files (see {@link edu.psu.ist.analyzer.module.ProgramAnalyzer}).
+     * Errors are not printed, since linking may add more.
+     *
+     * @throws CancelledException if {@link Options#cancellation()} was
+     *                            cancelled before the analysis finished.
+     */
+    public ModuleUnit analyzeModule(TextInput source) {
+        CancellationToken cancellation = options.cancellation();
+        cancellation.throwIfCancelled();
+        var parsed = parse(source);
+        PieScriptCheckingListener checkingListener =
+                new PieScriptCheckingListener(source, parsed.tree(), options.lint(), cancellation);
+        checkingListener.deferUnknownCalls();
+        parsed.walk(checkingListener);
+        PieGraphBuildingListener graphListener = new PieGraphBuildingListener(cancellation);
+        parsed.walk(graphListener);
+        ProcedureFactsListener factsListener = new ProcedureFactsListener(cancellation);
+        parsed.walk(factsListener);
+
+        List<PieErrorMessage> errors = new ArrayList<>(parsed.errors());
+        errors.addAll(checkingListener.getErrors());
+        var analysis = new PieAnalysis(errors, checkingListener.getProcedures(), graphListener.getGraph());
+        return new ModuleUnit(source, analysis, List.copyOf(checkingListener.getExternalCalls()),
+                List.copyOf(factsListener.getFacts()));
+    }
+
+    /**
+     * Returns the call graph of {@code source}.
+     *
+     * @throws IllegalArgumentException if the script contains errors.
+     * @throws CancelledException       if {@link Options#cancellation()} was
+     *                                  cancelled before the graph was built.
+     */
+    public Digraph<ProcNode> buildGraph(TextInput source) {
+        var checkResult = check(source);
+        if (checkResult instanceof Result.Cancelled<?, ?> c) {
+            throw new CancelledException(c.reason());
+        }
+        if (!checkResult.isOk()) {
+            throw new IllegalArgumentException("Script contains errors " +
+                    "(call check first to ensure the script is well formed)");
+        }
+        PieGraphBuildingListener l = new PieGraphBuildingListener(options.cancellation());
+        // walk the tree & build the graph
+        IterativeParseTreeWalker.DEFAULT.walk(l, checkResult.get());
+        return l.getGraph();
+    }
+
+    /** Prints {@code errors}, with source snippets, to stderr unless running silently. */
+    void report(List<PieErrorMessage> errors) {
+        if (!options.runSilent()) {
+            for (var err : errors) {
+                System.err.println(DiagnosticsText.format(err));
+            }
+        }
+    }
+
+    /**
+     * A parsed script: its tree, the syntax errors found, and which
+     * procedures those errors occurred in (as known by the
+     * {@link DefBoundaryErrorStrategy} that parsed them).
+     */
+    record Parsed(PiethonParser.ScriptContext tree, List<PieErrorMessage> errors,
+                  Predicate<PiethonParser.DefContext> broken) {
+
+        /**
+         * Walks {@code listener} over the whole tree if it is free of syntax
+         * errors, and otherwise over each procedure that parsed cleanly.
+         * The checking listener is told about the broken procedures, so
+         * calls to them are not reported as calls to unknown procedures.
+         */
+        void walk(ParseTreeListener listener) {
+            if (errors.isEmpty()) {
+                IterativeParseTreeWalker.DEFAULT.walk(listener, tree);
+                return;
+            }
+            for (var def : tree.def()) {
+                if (!broken.test(def)) {
+                    IterativeParseTreeWalker.DEFAULT.walk(listener, def);
+                } else if (listener instanceof PieScriptCheckingListener checking && def.ID() != null) {
+                    checking.assumeProcedure(def.ID().getText());
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses {@code source} as configured by {@link #options}: on several
+     * threads (see {@link ParallelParser}) if allowed and the script is
+     * large enough, otherwise on the calling one.
+     */
+    private Parsed parse(TextInput source) {
+        if (options.parseThreads() > 1 && source.text().length() >= ParallelParser.MIN_CHARS) {
+            return ParallelParser.parse(source, options.cancellation(), options.parseThreads());
+        }
+        return parse(source, options.cancellation());
+    }
+
+    /**
+     * Parses a piethon {@code source}, recovering from syntax errors at
+     * procedure boundaries (see {@link DefBoundaryErrorStrategy}). The
+     * tokens are buffered packed (see {@link PackedTokenStream}), so only
+     * those in the tree are kept as objects.
+     *
+     * @throws CancelledException if {@code cancellation} is cancelled while
+     *                            parsing.
+     */
+    static Parsed parse(TextInput source, CancellationToken cancellation) {
+        var errorListener = new AntlrErrorReportingListener(source);
+        var lexer = new PiethonLexer(CharStreams.fromString(source.text(),
+                source.name()));
+
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+
+        var recovery = new DefBoundaryErrorStrategy();
+        TokenSource tokens = lexer;
+        if (cancellation != CancellationToken.NONE) {
+            tokens = new CancellableTokenSource(lexer, cancellation);
+        }
+        var parser = new PiethonParser(new PackedTokenStream(tokens));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(recovery);
+
+        // NOTE: we don't want our parser to stop cold on the first
+        // syntactic error encountered
+        PiethonParser.ScriptContext tree = parser.script();
+        return new Parsed(tree, errorListener.errors(), recovery::isBroken);
+    }
+}
@@ -2,14 +2,37 @@ package edu.psu.ist.analyzer;
 
 import antlr4.edu.psu.ist.parser.PiethonBaseListener;
 import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.utils.CancellationToken;
 import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.DigraphBuilder;
 
 public final class PieGraphBuildingListener extends PiethonBaseListener {
-    private final Digraph<ProcNode> graph;
+    private final DigraphBuilder<ProcNode> graph;
+    private final CancellationToken cancellation;
     private ProcNode currentProcedureNode;
 
     public PieGraphBuildingListener() {
-        this.graph = new Digraph<>();
+        this(CancellationToken.NONE);
+    }
+
+    /**
+     * Creates a listener that polls {@code cancellation} at every procedure,
+     * throwing a {@link edu.psu.ist.analyzer.utils.CancelledException} from
+     * the walk once it is cancelled.
+     */
+    public PieGraphBuildingListener(CancellationToken cancellation) {
+        this(new Digraph<>(), cancellation);
+    }
+
+    /**
+     * Creates a listener that adds the procedures and calls it visits to
+     * {@code graph}, which several listeners may share (e.g., a
+     * {@link edu.psu.ist.analyzer.utils.ConcurrentDigraph} filled by one
+     * walk per file).
+     */
+    public PieGraphBuildingListener(DigraphBuilder<ProcNode> graph, CancellationToken cancellation) {
+        this.graph = graph;
+        this.cancellation = cancellation;
     }
     /**
      * Handles the entry into a procedure definition in the Piethon language.
@@ -21,6 +44,7 @@ public final class PieGraphBuildingListener extends PiethonBaseListener {
 
     @Override
     public void enterDef(PiethonParser.DefContext ctx) {
+        cancellation.throwIfCancelled();
         String procedureName = ctx.ID().getText();
         currentProcedureNode = new ProcNode(procedureName);
         graph.add(currentProcedureNode);
@@ -66,8 +90,14 @@ public final class PieGraphBuildingListener extends PiethonBaseListener {
     /**
      * Retrieves the graph for the script built up over the course of the
      * traversal of this script.
+     *
+     * @throws IllegalStateException if this listener was given a graph
+     *         other than a {@link Digraph} to build.
      */
     public Digraph<ProcNode> getGraph() {
-        return graph;
+        if (graph instanceof Digraph<ProcNode> digraph) {
+            return digraph;
+        }
+        throw new IllegalStateException("building into a " + graph.getClass().getSimpleName());
     }
 }
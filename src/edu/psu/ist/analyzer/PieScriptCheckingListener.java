@@ -4,34 +4,88 @@ import antlr4.edu.psu.ist.parser.PiethonBaseListener;
 import antlr4.edu.psu.ist.parser.PiethonParser;
 import edu.psu.ist.analyzer.entry.SymbolTableEntry;
 import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.flow.FlowChecks;
+import edu.psu.ist.analyzer.module.ExternalCall;
+import edu.psu.ist.analyzer.utils.CancellationToken;
 import edu.psu.ist.analyzer.utils.Result;
 import edu.psu.ist.analyzer.utils.SourceLocation;
 import edu.psu.ist.analyzer.utils.TextInput;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class PieScriptCheckingListener extends PiethonBaseListener {
-    private final Map<String, SymbolTableEntry.ProcDefEntry> procedures = new HashMap<>();
+    private final Map<String, SymbolTableEntry.ProcDefEntry> procedures = new LinkedHashMap<>();
+    private final Set<String> assumedProcedures = new HashSet<>();
+    private List<ExternalCall> externalCalls; // set once unknown calls are deferred
     private Map<String, SymbolTableEntry> currLocalScope;
     private final List<PieErrorMessage> errors = new ArrayList<>();
     private final TextInput source;
     private final PiethonParser.ScriptContext hostContext;
+    private final boolean lint;
+    private final CancellationToken cancellation;
 
     private final Map<PiethonParser.ExpContext, PieType> expressionTypes = new HashMap<>();
 
     public PieScriptCheckingListener(TextInput source, PiethonParser.ScriptContext hostContext) {
+        this(source, hostContext, false);
+    }
+
+    /**
+     * Creates a listener that, if {@code lint} is set, also reports unused
+     * variables and dead stores (see {@link FlowChecks}).
+     */
+    public PieScriptCheckingListener(TextInput source, PiethonParser.ScriptContext hostContext,
+                                     boolean lint) {
+        this(source, hostContext, lint, CancellationToken.NONE);
+    }
+
+    /**
+     * Creates a listener that also polls {@code cancellation} at every
+     * procedure, throwing a
+     * {@link edu.psu.ist.analyzer.utils.CancelledException} from the walk
+     * once it is cancelled.
+     */
+    public PieScriptCheckingListener(TextInput source, PiethonParser.ScriptContext hostContext,
+                                     boolean lint, CancellationToken cancellation) {
         this.source = source;
         this.hostContext = hostContext;
+        this.lint = lint;
+        this.cancellation = cancellation;
         this.currLocalScope = new HashMap<>();
     }
 
+    /**
+     * Declares a procedure whose definition could not be parsed: calls to it
+     * are accepted without checking their arguments, rather than reported as
+     * calls to an unknown procedure.
+     */
+    public void assumeProcedure(String name) {
+        assumedProcedures.add(name);
+    }
+
+    /**
+     * Records calls to unknown procedures (see {@link #getExternalCalls()})
+     * instead of reporting them, so they can be linked against procedures
+     * defined in other files.
+     */
+    public void deferUnknownCalls() {
+        if (externalCalls == null) {
+            externalCalls = new ArrayList<>();
+        }
+    }
+
     @Override
     public void enterDef(PiethonParser.DefContext ctx) {
+        cancellation.throwIfCancelled();
         currLocalScope = new HashMap<>();
     }
 
@@ -40,7 +94,8 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
      * This method is responsible for checking if the procedure name already exists in the procedures map.
      * If it does, a semantic error for duplicate symbol is added to the errors list.
      * If not, the procedure is added to the procedures map with its formal parameters, return type, and source location.
-     * Additionally, this method checks for return statements and unreachable code within the procedure definition.
+     * Additionally, this method checks for return statements and unreachable code within the procedure definition,
+     * and runs the dataflow checks of {@link FlowChecks} over its body.
      *
      * @param ctx The context of the procedure definition from the parsed Piethon code.
      */
@@ -56,6 +111,12 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
         }
         checkReturnStatement(ctx);
         checkUnreachableCode(ctx);
+        cancellation.throwIfCancelled(); // the dataflow checks are the costliest part of a def
+        errors.addAll(FlowChecks.check(ctx, lint, this::mkSl));
+        // expression types never escape the procedure they occur in; dropping
+        // them here keeps this def's subtree from being retained (which the
+        // streaming mode in PieAnalyzer relies on)
+        expressionTypes.clear();
     }
 
     private void setExpressionType(PiethonParser.ExpContext ctx, PieType type) {
@@ -66,6 +127,18 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
         return expressionTypes.getOrDefault(ctx, PieType.Error);
     }
 
+    /**
+     * Reports a {@link SemanticError.TypeMismatch} if {@code exp} cannot be
+     * stored in a location of type {@code expected}. Expressions already
+     * typed {@link PieType#Error} are skipped to avoid cascading errors.
+     */
+    private void checkAssignable(PieType expected, PiethonParser.ExpContext exp) {
+        PieType actual = getExpressionType(exp);
+        if (actual != PieType.Error && expected != actual) {
+            errors.add(new SemanticError.TypeMismatch(expected, actual, mkSl(exp)));
+        }
+    }
+
     private List<SymbolTableEntry.ParamDefEntry> getFormalParams(PiethonParser.ParamListContext paramListCtx) {
         List<SymbolTableEntry.ParamDefEntry> params = new ArrayList<>();
         if (paramListCtx != null) {
@@ -78,8 +151,16 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
         return params;
     }
 
+    /**
+     * Handles the exit from a local variable definition. The definition is
+     * checked on exit (rather than on entry) so that the type of its
+     * initializer expression has already been computed by the time it is
+     * compared against the declared type.
+     *
+     * @param ctx The context of the variable definition from the parsed Piethon code.
+     */
     @Override
-    public void enterVarDef(PiethonParser.VarDefContext ctx) {
+    public void exitVarDef(PiethonParser.VarDefContext ctx) {
         String varName = ctx.ID().getText();
         if (currLocalScope.containsKey(varName)) {
             errors.add(new SemanticError.DupSymbol(varName, SymbolKind.Variable, mkSl(ctx)));
@@ -87,13 +168,7 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
             PieType type = resolvePieType(ctx.ty().getText());
             boolean isInitialized = ctx.exp() != null;
             if (isInitialized) {
-                PiethonParser.ExpContext exp = ctx.exp();
-                PieType expType = getExpressionType(exp);
-                if (type != expType) {
-                    errors.add(new SemanticError.TypeMismatch(type, expType, mkSl(exp)));
-                } else {
-                    setExpressionType(exp, type);
-                }
+                checkAssignable(type, ctx.exp());
             }
             currLocalScope.put(varName, new SymbolTableEntry.VarDefEntry(varName, type, mkSl(ctx), isInitialized));
         }
@@ -110,41 +185,113 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
         }
     }
 
+    /**
+     * Handles the exit from a call statement: verifies that the called
+     * procedure exists and that the (already typed) arguments agree with its
+     * formal parameters.
+     *
+     * @param ctx The context of the call statement from the parsed Piethon code.
+     */
     @Override
-    public void enterCallStmt(PiethonParser.CallStmtContext ctx) {
+    public void exitCallStmt(PiethonParser.CallStmtContext ctx) {
         String procName = ctx.ID().getText();
         if (!currLocalScope.containsKey(procName) && !procedures.containsKey(procName)) {
-            errors.add(new SemanticError.NoSuchSymbol(procName, mkSl(ctx)));
+            if (assumedProcedures.contains(procName)) {
+                return;
+            }
+            if (externalCalls != null) {
+                externalCalls.add(new ExternalCall(procName, argumentTypes(ctx), mkSl(ctx)));
+            } else {
+                errors.add(new SemanticError.NoSuchSymbol(procName, mkSl(ctx)));
+            }
         } else if (procedures.containsKey(procName)) {
-            SymbolTableEntry.ProcDefEntry procEntry = procedures.get(procName);
-            List<PiethonParser.ExpContext> providedArgs = ctx.expList() != null ? ctx.expList().exp() : new ArrayList<>();
+            checkArguments(procedures.get(procName), argumentTypes(ctx), mkSl(ctx), errors);
+        }
+    }
 
-            int expectedArgsCount = procEntry.getParameters().size();
-            int providedArgsCount = providedArgs.size();
+    private List<PieType> argumentTypes(PiethonParser.CallStmtContext ctx) {
+        List<PieType> types = new ArrayList<>();
+        if (ctx.expList() != null) {
+            for (PiethonParser.ExpContext arg : ctx.expList().exp()) {
+                types.add(getExpressionType(arg));
+            }
+        }
+        return types;
+    }
 
-            if (expectedArgsCount != providedArgsCount) {
-                errors.add(new SemanticError.ArgCountMismatch(expectedArgsCount, providedArgsCount, mkSl(ctx)));
-            } else {
-                for (int i = 0; i < providedArgs.size(); i++) {
-                    PieType expectedType = procEntry.getParameters().get(i).tpe();
-                    PieType actualType = getExpressionType(providedArgs.get(i));
+    /**
+     * Adds to {@code errors} the mismatches between the formal parameters of
+     * {@code proc} and the types of the arguments of a call to it at {@code loc}.
+     */
+    public static void checkArguments(SymbolTableEntry.ProcDefEntry proc, List<PieType> argumentTypes,
+                                      SourceLocation loc, List<PieErrorMessage> errors) {
+        int expectedArgsCount = proc.getParameters().size();
+        int providedArgsCount = argumentTypes.size();
 
-                    if (expectedType != actualType) {
-                        errors.add(new SemanticError.TypeMismatch(expectedType, actualType, mkSl(ctx)));
-                    }
+        if (expectedArgsCount != providedArgsCount) {
+            errors.add(new SemanticError.ArgCountMismatch(expectedArgsCount, providedArgsCount, loc));
+        } else {
+            for (int i = 0; i < providedArgsCount; i++) {
+                PieType expectedType = proc.getParameters().get(i).tpe();
+                PieType actualType = argumentTypes.get(i);
+
+                if (actualType != PieType.Error && expectedType != actualType) {
+                    errors.add(new SemanticError.TypeMismatch(expectedType, actualType, loc));
                 }
             }
         }
     }
 
+    /**
+     * Handles the exit from an assignment statement: the assigned name must
+     * refer to a local variable or parameter whose type agrees with the type
+     * of the right-hand side.
+     *
+     * @param ctx The context of the assignment statement from the parsed Piethon code.
+     */
     @Override
-    public void enterVarRefExp(PiethonParser.VarRefExpContext ctx) {
+    public void exitAssignStmt(PiethonParser.AssignStmtContext ctx) {
         String varName = ctx.name.getText();
-        if (currLocalScope.containsKey(varName)) {
-            SymbolTableEntry entry = currLocalScope.get(varName);
-            if (entry instanceof SymbolTableEntry.VarDefEntry varEntry) {
-                setExpressionType(ctx, varEntry.tpe());
-            }
+        SymbolTableEntry entry = currLocalScope.get(varName);
+        if (entry == null) {
+            errors.add(new SemanticError.NoSuchSymbol(varName, mkSl(ctx)));
+        } else {
+            checkAssignable(entry.tpe(), ctx.exp());
+        }
+    }
+
+    @Override
+    public void exitVarRefExp(PiethonParser.VarRefExpContext ctx) {
+        String varName = ctx.name.getText();
+        SymbolTableEntry entry = currLocalScope.get(varName);
+        if (entry == null) {
+            errors.add(new SemanticError.NoSuchSymbol(varName, mkSl(ctx)));
+        } else {
+            setExpressionType(ctx, entry.tpe());
+        }
+    }
+
+    /**
+     * Handles the exit from an addition expression. Both operands have been
+     * typed by the time this fires (the walker visits children first), so the
+     * type of arbitrarily long sums is computed bottom-up without recursion.
+     * Operands of type {@link PieType#Error} were already reported and are not
+     * reported again.
+     *
+     * @param ctx The context of the addition expression from the parsed Piethon code.
+     */
+    @Override
+    public void exitAddExp(PiethonParser.AddExpContext ctx) {
+        PieType leftType = getExpressionType(ctx.left);
+        PieType rightType = getExpressionType(ctx.right);
+        if (leftType == PieType.Error || rightType == PieType.Error) {
+            setExpressionType(ctx, PieType.Error);
+        } else if (leftType != PieType.Int32 || rightType != PieType.Int32) {
+            PieType offending = leftType != PieType.Int32 ? leftType : rightType;
+            errors.add(new SemanticError.TypeMismatch(PieType.Int32, offending, mkSl(ctx)));
+            setExpressionType(ctx, PieType.Error);
+        } else {
+            setExpressionType(ctx, PieType.Int32);
         }
     }
 
@@ -218,7 +365,7 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
                 PiethonParser.ExpContext returnExp = returnStmt.exp();
                 if (returnExp != null) {
                     PieType actualReturnType = getExpressionType(returnExp);
-                    if (expectedReturnType != actualReturnType) {
+                    if (actualReturnType != PieType.Error && expectedReturnType != actualReturnType) {
                         errors.add(new SemanticError.TypeMismatch(expectedReturnType, actualReturnType, mkSl(returnStmt)));
                     }
                 } else if (expectedReturnType != PieType.Void) {
@@ -257,10 +404,33 @@ public final class PieScriptCheckingListener extends PiethonBaseListener {
 
 
 
+    /** Returns the location spanning {@code ctx}, from its first token through its last. */
     public SourceLocation mkSl(ParserRuleContext ctx) {
-        var start = ctx.start;
-        var stop = ctx.start;
-        return new SourceLocation(source, start.getLine(), start.getCharPositionInLine(), stop.getLine(), stop.getCharPositionInLine());
+        Token start = ctx.start;
+        Token stop = ctx.stop != null && ctx.stop.getTokenIndex() >= start.getTokenIndex() ? ctx.stop : start;
+        int stopLength = stop.getStopIndex() - stop.getStartIndex() + 1;
+        return new SourceLocation(source, start.getLine(), start.getCharPositionInLine(),
+                stop.getLine(), stop.getCharPositionInLine() + stopLength,
+                start.getStartIndex(), stop.getStopIndex() + 1);
+    }
+
+    /** Returns the procedures defined so far, in definition order. */
+    public List<SymbolTableEntry.ProcDefEntry> getProcedures() {
+        return new ArrayList<>(procedures.values());
+    }
+
+    /**
+     * Returns the calls to unknown procedures recorded so far, in order, if
+     * they are deferred (see {@link #deferUnknownCalls()}); otherwise an
+     * empty list.
+     */
+    public List<ExternalCall> getExternalCalls() {
+        return externalCalls == null ? List.of() : externalCalls;
+    }
+
+    /** Returns the errors reported so far over the course of the traversal. */
+    public List<PieErrorMessage> getErrors() {
+        return errors;
     }
 
     public Result<PiethonParser.ScriptContext, List<PieErrorMessage>> getCheckedScript() {
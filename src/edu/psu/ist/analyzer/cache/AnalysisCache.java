@@ -0,0 +1,332 @@
+package edu.psu.ist.analyzer.cache;
+
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.errors.DiagnosticsText;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, size-bounded, on-disk cache of {@link PieAnalysis} results
+ * shared across analyzer runs (and safe to share between threads).
+ * <p>
+ * Each entry is keyed by a SHA-256 hash of the script's text and of the
+ * options that change the analysis (lint checks), salted with
+ * {@link #ANALYZER_VERSION} and a fingerprint of the Piethon grammar, so
+ * entries are invalidated automatically when either changes. Entries are
+ * stored one per file as:
+ * <pre>
+ *   magic:int  format:short  key:byte[32]  length:int  payload:byte[length]  crc32:long
+ * </pre>
+ * where the CRC covers the key and payload. Entries that fail any of these
+ * checks are treated as misses and deleted. When the cache grows beyond its
+ * size bound, the least recently used entries are evicted.
+ */
+public final class AnalysisCache {
+
+    /**
+     * Version of the analyzer's output. Bump this whenever the checker or the
+     * graph builder start producing different results for the same script.
+     */
+    public static final int ANALYZER_VERSION = 2;
+
+    private static final int MAGIC = 0x50494543; // "PIEC"
+    private static final short FORMAT_VERSION = 4;
+    private static final int KEY_BYTES = 32;
+    private static final String ENTRY_SUFFIX = ".pac";
+
+    /** After eviction, the cache is trimmed down to this fraction of its bound. */
+    private static final double EVICTION_LOW_WATERMARK = 0.9;
+
+    private static final byte[] VERSION_SALT = versionSalt();
+
+    private final Path dir;
+    private final long maxBytes;
+    private final AtomicLong currentBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private AnalysisCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens (creating if needed) the cache rooted at {@code dir}, which will
+     * hold at most (roughly) {@code maxBytes} bytes of entries.
+     */
+    public static AnalysisCache open(Path dir, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        Files.createDirectories(dir);
+        var cache = new AnalysisCache(dir, maxBytes);
+        cache.currentBytes.set(cache.entries().stream().mapToLong(Entry::size).sum());
+        return cache;
+    }
+
+    /**
+     * Returns the analysis of {@code source}, from the cache if present and
+     * otherwise by running a {@link PieChecker} (and storing the result).
+     */
+    public PieAnalysis analyze(TextInput source, Options options) {
+        Optional<PieAnalysis> cached = lookup(source, options);
+        if (cached.isPresent()) {
+            if (!options.runSilent()) {
+                for (PieErrorMessage err : cached.get().errors()) {
+                    System.err.println(DiagnosticsText.format(err));
+                }
+            }
+            return cached.get();
+        }
+        PieAnalysis analysis = new PieChecker(options).analyze(source);
+        store(source, options, analysis);
+        return analysis;
+    }
+
+    /** Returns the cached analysis (without lint checks) of {@code source}, if any. */
+    public Optional<PieAnalysis> lookup(TextInput source) {
+        return lookup(source, Options.TestOpts);
+    }
+
+    /** Returns the cached analysis of {@code source} under {@code options}, if any. */
+    public Optional<PieAnalysis> lookup(TextInput source, Options options) {
+        byte[] key = key(source.text(), options);
+        Path file = entryPath(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // typically a NoSuchFileException: not cached yet
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            PieAnalysis analysis = readEntry(bytes, key, source);
+            touch(file);
+            hits.incrementAndGet();
+            return Optional.of(analysis);
+        } catch (IOException | RuntimeException e) {
+            // corrupt, truncated or foreign entry: drop it and recompute
+            delete(file, bytes.length);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores {@code analysis} as the result for {@code source}, evicting old
+     * entries if this pushes the cache over its size bound. Analyses that
+     * contain error messages with no binary encoding are not cached.
+     */
+    public void store(TextInput source, PieAnalysis analysis) {
+        store(source, Options.TestOpts, analysis);
+    }
+
+    /** Stores {@code analysis} as the result for {@code source} under {@code options}. */
+    public void store(TextInput source, Options options, PieAnalysis analysis) {
+        byte[] key = key(source.text(), options);
+        byte[] entry;
+        try {
+            entry = writeEntry(key, AnalysisCodec.encode(analysis));
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        Path file = entryPath(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            Files.write(tmp, entry);
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            currentBytes.addAndGet(entry.length - previous);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write cache entry " + file, e);
+        }
+        if (currentBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /** Returns the (approximate) total size of the entries in this cache. */
+    public long sizeInBytes() {
+        return currentBytes.get();
+    }
+
+    /** Returns the number of lookups that were answered from the cache. */
+    public long hits() {
+        return hits.get();
+    }
+
+    /** Returns the number of lookups that missed the cache. */
+    public long misses() {
+        return misses.get();
+    }
+
+    /** Deletes least recently used entries until the cache is back under its bound. */
+    private synchronized void evict() {
+        if (currentBytes.get() <= maxBytes) {
+            return; // another thread got here first
+        }
+        List<Entry> entries = entries();
+        entries.sort(Comparator.comparing(Entry::lastUsed));
+        long total = entries.stream().mapToLong(Entry::size).sum();
+        long target = (long) (maxBytes * EVICTION_LOW_WATERMARK);
+        for (Entry e : entries) {
+            if (total <= target) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(e.path());
+                total -= e.size();
+            } catch (IOException ignored) {
+                // still in use or already gone; try the next one
+            }
+        }
+        currentBytes.set(total);
+    }
+
+    private record Entry(Path path, long size, FileTime lastUsed) {
+    }
+
+    private List<Entry> entries() {
+        List<Entry> result = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    try {
+                        result.add(new Entry(p, Files.size(p), Files.getLastModifiedTime(p)));
+                    } catch (IOException ignored) {
+                        // deleted concurrently
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to list cache directory " + dir, e);
+        }
+        return result;
+    }
+
+    private Path entryPath(byte[] key) {
+        String hex = HexFormat.of().formatHex(key);
+        // fan out over 256 subdirectories to keep directory sizes manageable
+        return dir.resolve(hex.substring(0, 2)).resolve(hex.substring(2) + ENTRY_SUFFIX);
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // only affects eviction order
+        }
+    }
+
+    private void delete(Path file, long size) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                currentBytes.addAndGet(-size);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static byte[] writeEntry(byte[] key, byte[] payload) {
+        var bytes = new ByteArrayOutputStream(payload.length + 64);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.write(key);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(checksum(key, payload));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen for in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PieAnalysis readEntry(byte[] bytes, byte[] expectedKey,
+                                         TextInput source) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+            throw new IOException("not a cache entry (or an older format)");
+        }
+        byte[] key = in.readNBytes(KEY_BYTES);
+        if (!Arrays.equals(key, expectedKey)) {
+            throw new IOException("key mismatch");
+        }
+        int length = in.readInt();
+        if (length < 0 || length > in.available() - Long.BYTES) {
+            throw new IOException("truncated entry");
+        }
+        byte[] payload = in.readNBytes(length);
+        if (in.readLong() != checksum(key, payload)) {
+            throw new IOException("checksum mismatch");
+        }
+        return AnalysisCodec.decode(new DataInputStream(new ByteArrayInputStream(payload)), source);
+    }
+
+    private static long checksum(byte[] key, byte[] payload) {
+        var crc = new CRC32();
+        crc.update(key);
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    private static byte[] key(String text, Options options) {
+        MessageDigest digest = sha256();
+        digest.update(VERSION_SALT);
+        digest.update((byte) (options.lint() ? 1 : 0));
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /** Fingerprints the analyzer version and the (serialized) grammar. */
+    private static byte[] versionSalt() {
+        MessageDigest digest = sha256();
+        digest.update(("pie-analysis:" + ANALYZER_VERSION).getBytes(StandardCharsets.UTF_8));
+        digest.update(PiethonLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+        digest.update(PiethonParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported", e);
+        }
+    }
+}
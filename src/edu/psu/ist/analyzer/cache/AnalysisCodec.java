@@ -0,0 +1,290 @@
+package edu.psu.ist.analyzer.cache;
+
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.PieType;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.SymbolKind;
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+import edu.psu.ist.analyzer.errors.ParseError;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.SourceLocation;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a {@link PieAnalysis} as a compact binary record (and back).
+ * <p>
+ * Source locations are stored as bare line/column numbers and offsets; on decode they are
+ * re-attached to the {@link TextInput} being analyzed, so a record can be
+ * shared by any script with the same content regardless of its name.
+ */
+final class AnalysisCodec {
+
+    // error tags (never reorder -- bump AnalysisCache.FORMAT_VERSION instead)
+    private static final byte PARSE_ERROR = 0;
+    private static final byte DUP_SYMBOL = 1;
+    private static final byte UNREACHABLE_CODE = 2;
+    private static final byte UNINITIALIZED_VARIABLE = 3;
+    private static final byte NO_SUCH_SYMBOL = 4;
+    private static final byte TYPE_MISMATCH = 5;
+    private static final byte ARG_COUNT_MISMATCH = 6;
+    private static final byte TOO_FEW_OR_TOO_MANY_RETURNS = 7;
+    private static final byte UNUSED_VARIABLE = 8;
+    private static final byte DEAD_STORE = 9;
+
+    private AnalysisCodec() {
+    }
+
+    /**
+     * Returns the binary encoding of {@code analysis}.
+     *
+     * @throws IllegalArgumentException if the analysis contains an error
+     *                                  message type this codec doesn't know.
+     */
+    static byte[] encode(PieAnalysis analysis) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(analysis.errors().size());
+            for (PieErrorMessage e : analysis.errors()) {
+                writeError(out, e);
+            }
+            out.writeInt(analysis.procedures().size());
+            for (SymbolTableEntry.ProcDefEntry p : analysis.procedures()) {
+                writeString(out, p.name());
+                out.writeByte(p.tpe().ordinal());
+                writeLoc(out, p.loc());
+                out.writeInt(p.fparams().size());
+                for (SymbolTableEntry.ParamDefEntry f : p.fparams()) {
+                    writeString(out, f.name());
+                    out.writeByte(f.tpe().ordinal());
+                    writeLoc(out, f.loc());
+                }
+            }
+            writeGraph(out, analysis.graph());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen for in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Decodes a record produced by {@link #encode(PieAnalysis)}. */
+    static PieAnalysis decode(DataInputStream in, TextInput source) throws IOException {
+        int errorCount = in.readInt();
+        List<PieErrorMessage> errors = new ArrayList<>(errorCount);
+        for (int i = 0; i < errorCount; i++) {
+            errors.add(readError(in, source));
+        }
+        int procCount = in.readInt();
+        List<SymbolTableEntry.ProcDefEntry> procs = new ArrayList<>(procCount);
+        for (int i = 0; i < procCount; i++) {
+            String name = readString(in);
+            PieType tpe = readType(in);
+            SourceLocation loc = readLoc(in, source);
+            int paramCount = in.readInt();
+            List<SymbolTableEntry.ParamDefEntry> params = new ArrayList<>(paramCount);
+            for (int j = 0; j < paramCount; j++) {
+                params.add(new SymbolTableEntry.ParamDefEntry(readString(in),
+                        readType(in), readLoc(in, source)));
+            }
+            procs.add(new SymbolTableEntry.ProcDefEntry(name, params, tpe, loc));
+        }
+        return new PieAnalysis(errors, procs, readGraph(in));
+    }
+
+    private static void writeError(DataOutputStream out, PieErrorMessage e) throws IOException {
+        switch (e) {
+            case ParseError p -> {
+                out.writeByte(PARSE_ERROR);
+                writeString(out, p.msg());
+                out.writeInt(p.line());
+                out.writeInt(p.col());
+            }
+            case SemanticError.DupSymbol d -> {
+                out.writeByte(DUP_SYMBOL);
+                writeString(out, d.dupName());
+                out.writeByte(d.k().ordinal());
+            }
+            case SemanticError.UnreachableCode u -> {
+                out.writeByte(UNREACHABLE_CODE);
+                writeString(out, u.additionalInfo());
+            }
+            case SemanticError.UninitializedVariable u -> {
+                out.writeByte(UNINITIALIZED_VARIABLE);
+                writeString(out, u.variableName());
+            }
+            case SemanticError.NoSuchSymbol n -> {
+                out.writeByte(NO_SUCH_SYMBOL);
+                writeString(out, n.referencedSymbol());
+            }
+            case SemanticError.TypeMismatch t -> {
+                out.writeByte(TYPE_MISMATCH);
+                out.writeByte(t.expected().ordinal());
+                out.writeByte(t.actual().ordinal());
+            }
+            case SemanticError.ArgCountMismatch a -> {
+                out.writeByte(ARG_COUNT_MISMATCH);
+                out.writeInt(a.numArgsExpected());
+                out.writeInt(a.numProvided());
+            }
+            case SemanticError.TooFewOrTooManyReturns r -> {
+                out.writeByte(TOO_FEW_OR_TOO_MANY_RETURNS);
+                out.writeInt(r.numOfReturnsExpected());
+            }
+            case SemanticError.UnusedVariable u -> {
+                out.writeByte(UNUSED_VARIABLE);
+                writeString(out, u.variableName());
+            }
+            case SemanticError.DeadStore d -> {
+                out.writeByte(DEAD_STORE);
+                writeString(out, d.variableName());
+            }
+            default -> throw new IllegalArgumentException(
+                    "no binary encoding for error type: " + e.getClass().getName());
+        }
+        writeLoc(out, e.loc());
+    }
+
+    private static PieErrorMessage readError(DataInputStream in, TextInput source) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case PARSE_ERROR -> {
+                String msg = readString(in);
+                int line = in.readInt();
+                int col = in.readInt();
+                yield new ParseError(msg, line, col, readLoc(in, source));
+            }
+            case DUP_SYMBOL -> {
+                String name = readString(in);
+                SymbolKind k = SymbolKind.values()[in.readByte()];
+                yield new SemanticError.DupSymbol(name, k, readLoc(in, source));
+            }
+            case UNREACHABLE_CODE -> {
+                String info = readString(in);
+                yield new SemanticError.UnreachableCode(readLoc(in, source), info);
+            }
+            case UNINITIALIZED_VARIABLE -> {
+                String name = readString(in);
+                yield new SemanticError.UninitializedVariable(name, readLoc(in, source));
+            }
+            case NO_SUCH_SYMBOL -> {
+                String name = readString(in);
+                yield new SemanticError.NoSuchSymbol(name, readLoc(in, source));
+            }
+            case TYPE_MISMATCH -> {
+                PieType expected = readType(in);
+                PieType actual = readType(in);
+                yield new SemanticError.TypeMismatch(expected, actual, readLoc(in, source));
+            }
+            case ARG_COUNT_MISMATCH -> {
+                int expected = in.readInt();
+                int provided = in.readInt();
+                yield new SemanticError.ArgCountMismatch(expected, provided, readLoc(in, source));
+            }
+            case TOO_FEW_OR_TOO_MANY_RETURNS -> {
+                int expected = in.readInt();
+                yield new SemanticError.TooFewOrTooManyReturns(expected, readLoc(in, source));
+            }
+            case UNUSED_VARIABLE -> {
+                String name = readString(in);
+                yield new SemanticError.UnusedVariable(name, readLoc(in, source));
+            }
+            case DEAD_STORE -> {
+                String name = readString(in);
+                yield new SemanticError.DeadStore(name, readLoc(in, source));
+            }
+            default -> throw new IOException("unknown error tag: " + tag);
+        };
+    }
+
+    private static void writeGraph(DataOutputStream out, Digraph<ProcNode> g) throws IOException {
+        Map<ProcNode, Integer> ids = new HashMap<>();
+        out.writeInt(g.getVertices().size());
+        for (ProcNode v : g.getVertices()) {
+            ids.put(v, ids.size());
+            writeString(out, v.name());
+        }
+        int edgeCount = 0;
+        for (ProcNode v : g.getVertices()) {
+            edgeCount += g.outDegree(v);
+        }
+        out.writeInt(edgeCount);
+        for (ProcNode v : g.getVertices()) {
+            for (ProcNode w : g.neighbors(v)) {
+                out.writeInt(ids.get(v));
+                out.writeInt(ids.get(w));
+            }
+        }
+    }
+
+    private static Digraph<ProcNode> readGraph(DataInputStream in) throws IOException {
+        var g = new Digraph<ProcNode>();
+        int vertexCount = in.readInt();
+        ProcNode[] vertices = new ProcNode[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            vertices[i] = new ProcNode(readString(in));
+            g.add(vertices[i]);
+        }
+        int edgeCount = in.readInt();
+        for (int i = 0; i < edgeCount; i++) {
+            int from = in.readInt();
+            int to = in.readInt();
+            if (from < 0 || from >= vertexCount || to < 0 || to >= vertexCount) {
+                throw new IOException("edge endpoint out of range");
+            }
+            g.add(vertices[from], vertices[to]);
+        }
+        return g;
+    }
+
+    /**
+     * Writes {@code s} as its length and UTF-8 bytes. Unlike
+     * {@link DataOutputStream#writeUTF}, this has no 64K limit, which a long
+     * parse error message or identifier could exceed.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("string length out of range: " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeLoc(DataOutputStream out, SourceLocation loc) throws IOException {
+        out.writeInt(loc.beginLine());
+        out.writeInt(loc.beginCol());
+        out.writeInt(loc.endLine());
+        out.writeInt(loc.endCol());
+        out.writeInt(loc.beginOffset());
+        out.writeInt(loc.endOffset());
+    }
+
+    private static SourceLocation readLoc(DataInputStream in, TextInput source) throws IOException {
+        return new SourceLocation(source, in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                in.readInt(), in.readInt());
+    }
+
+    private static PieType readType(DataInputStream in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= PieType.values().length) {
+            throw new IOException("unknown type ordinal: " + ordinal);
+        }
+        return PieType.values()[ordinal];
+    }
+}
@@ -0,0 +1,326 @@
+package edu.psu.ist.analyzer.cli;
+
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.cache.AnalysisCache;
+import edu.psu.ist.analyzer.errors.DiagnosticsJson;
+import edu.psu.ist.analyzer.errors.DiagnosticsText;
+import edu.psu.ist.analyzer.graph.CallGraphScanner;
+import edu.psu.ist.analyzer.graph.SvgWriter;
+import edu.psu.ist.analyzer.utils.JsonWriter;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes every script named by a {@link CliArgs} on a fixed pool of
+ * threads, printing each file's result as soon as it is done.
+ * <p>
+ * Inputs are expanded lazily and at most two files per thread are in flight
+ * at any time, so memory use does not grow with the size of the tree being
+ * analyzed. Results are printed in completion order.
+ * <p>
+ * With a cache directory, scripts are analyzed through an
+ * {@link AnalysisCache}, so a rerun over an unchanged tree only reads and
+ * hashes each file.
+ */
+public final class BatchAnalyzer {
+
+    /** Process exit code when every file is free of errors. */
+    public static final int EXIT_OK = 0;
+    /** Process exit code when some file had errors or could not be read. */
+    public static final int EXIT_ERRORS = 1;
+    /** Process exit code for a malformed command line. */
+    public static final int EXIT_USAGE = 2;
+
+    private static final String SCRIPT_SUFFIX = ".pie";
+
+    /** Size bound of the analysis cache. */
+    private static final long CACHE_BYTES = 256L << 20;
+
+    private final CliArgs args;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Options options;
+    private final PieChecker checker;
+    /** Opened by {@link #run()}; {@code null} without a cache directory. */
+    private AnalysisCache cache;
+
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger withErrors = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final LongAdder bytes = new LongAdder();
+
+    /** The outcome for one file; {@code failure} is set if it could not be analyzed at all. */
+    private record FileResult(Path file, long bytes, long nanos, PieAnalysis analysis, String failure) {
+    }
+
+    public BatchAnalyzer(CliArgs args, PrintStream out, PrintStream err) {
+        this.args = args;
+        this.out = out;
+        this.err = err;
+        this.options = Options.TestOpts.withLint(args.lint());
+        this.checker = new PieChecker(options);
+    }
+
+    /** Parses {@code argv} and runs the batch, returning the process exit code. */
+    public static int run(String[] argv, PrintStream out, PrintStream err) {
+        CliArgs args;
+        try {
+            args = CliArgs.parse(argv);
+        } catch (IllegalArgumentException e) {
+            err.println("error: " + e.getMessage());
+            err.println(CliArgs.USAGE);
+            return EXIT_USAGE;
+        }
+        return new BatchAnalyzer(args, out, err).run();
+    }
+
+    /** Analyzes all inputs and prints the summary, returning the process exit code. */
+    public int run() {
+        for (String input : args.inputs()) {
+            if (!isGlob(input) && !Files.exists(Path.of(input))) {
+                err.println("error: no such file or directory: " + input);
+                return EXIT_USAGE;
+            }
+        }
+        if (args.cacheDir() != null) {
+            try {
+                cache = AnalysisCache.open(args.cacheDir(), CACHE_BYTES);
+            } catch (IOException e) {
+                err.println("error: unable to open cache directory: " + e.getMessage());
+                return EXIT_USAGE;
+            }
+        }
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(args.threads(), r -> {
+            Thread t = new Thread(r, "pie-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        var inFlight = new Semaphore(args.threads() * 2);
+        try {
+            for (String input : args.inputs()) {
+                // one input at a time: flatMap would buffer a whole directory listing
+                try (Stream<Path> scripts = expand(input)) {
+                    Iterator<Path> it = scripts.iterator();
+                    while (!stop.get() && it.hasNext()) {
+                        Path file = it.next();
+                        inFlight.acquireUninterruptibly();
+                        pool.execute(() -> {
+                            try {
+                                if (!stop.get()) {
+                                    report(analyze(file));
+                                }
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            err.println("error: while listing inputs: " + e.getCause().getMessage());
+            failed.incrementAndGet();
+        } finally {
+            pool.shutdown();
+            awaitQuietly(pool);
+        }
+        printSummary(System.nanoTime() - start);
+        return withErrors.get() + failed.get() == 0 ? EXIT_OK : EXIT_ERRORS;
+    }
+
+    private FileResult analyze(Path file) {
+        long start = System.nanoTime();
+        try {
+            byte[] content = Files.readAllBytes(file);
+            var source = new TextInput(file.toString(), new String(content, StandardCharsets.UTF_8));
+            PieAnalysis analysis = args.graphOnly()
+                    ? new PieAnalysis(List.of(), List.of(), CallGraphScanner.scan(source))
+                    : cache != null ? cache.analyze(source, options) : checker.analyze(source);
+            if (args.graphOut() != null) {
+                Path svg = args.graphOut().resolve(withoutRoot(file) + ".svg");
+                Files.createDirectories(svg.getParent());
+                SvgWriter.export(analysis.graph(), file.toString(), svg);
+            }
+            return new FileResult(file, content.length, System.nanoTime() - start, analysis, null);
+        } catch (IOException | RuntimeException e) {
+            return new FileResult(file, 0, System.nanoTime() - start, null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void report(FileResult r) {
+        files.incrementAndGet();
+        bytes.add(r.bytes());
+        boolean bad = r.failure() != null || !r.analysis().isOk();
+        if (r.failure() != null) {
+            failed.incrementAndGet();
+        } else if (!r.analysis().isOk()) {
+            withErrors.incrementAndGet();
+        }
+        if (bad && args.failFast()) {
+            stop.set(true);
+        }
+        String text = args.format() == CliArgs.OutputFormat.JSON ? toJson(r) : toText(r);
+        synchronized (out) {
+            out.println(text);
+        }
+    }
+
+    private String toText(FileResult r) {
+        double millis = r.nanos() / 1e6;
+        if (r.failure() != null) {
+            return String.format("ERROR %s: %s", r.file(), r.failure());
+        }
+        PieAnalysis a = r.analysis();
+        if (args.graphOnly()) {
+            return String.format("GRAPH %s (%d vertices, %d calls, %.1f ms)", r.file(),
+                    a.graph().getVertices().size(), a.graph().edges().size(), millis);
+        }
+        if (a.isOk()) {
+            return String.format("OK    %s (%d procedures, %d calls, %.1f ms)", r.file(),
+                    a.procedures().size(), a.graph().edges().size(), millis);
+        }
+        var s = new StringBuilder(String.format("FAIL  %s (%d errors, %.1f ms)",
+                r.file(), a.errors().size(), millis));
+        for (PieErrorMessage e : a.errors()) {
+            s.append("\n      ").append(DiagnosticsText.format(e).replace("\n", "\n      "));
+        }
+        return s.toString();
+    }
+
+    private String toJson(FileResult r) {
+        var json = new JsonWriter().beginObject()
+                .name("file").value(r.file().toString())
+                .name("bytes").value(r.bytes())
+                .name("millis").value(r.nanos() / 1e6);
+        if (r.failure() != null) {
+            return json.name("status").value("failed")
+                    .name("message").value(r.failure())
+                    .endObject().toString();
+        }
+        PieAnalysis a = r.analysis();
+        if (args.graphOnly()) {
+            return json.name("status").value("graph")
+                    .name("vertices").value(a.graph().getVertices().size())
+                    .name("calls").value(a.graph().edges().size())
+                    .endObject().toString();
+        }
+        json.name("status").value(a.isOk() ? "ok" : "errors")
+                .name("procedures").value(a.procedures().size())
+                .name("calls").value(a.graph().edges().size())
+                .name("errors");
+        DiagnosticsJson.write(json, a.errors());
+        return json.endObject().toString();
+    }
+
+    private void printSummary(long nanos) {
+        double seconds = nanos / 1e9;
+        double megabytes = bytes.sum() / (1024.0 * 1024.0);
+        if (args.format() == CliArgs.OutputFormat.JSON) {
+            var json = new JsonWriter().beginObject().name("summary").beginObject()
+                    .name("files").value(files.get())
+                    .name("withErrors").value(withErrors.get())
+                    .name("failed").value(failed.get())
+                    .name("bytes").value(bytes.sum())
+                    .name("seconds").value(seconds)
+                    .name("filesPerSecond").value(files.get() / seconds)
+                    .name("megabytesPerSecond").value(megabytes / seconds);
+            if (cache != null) {
+                json.name("cacheHits").value(cache.hits())
+                        .name("cacheMisses").value(cache.misses());
+            }
+            out.println(json.endObject().endObject());
+        } else {
+            out.printf("%d files (%d with errors, %d failed), %.2f MB in %.2f s: %.1f files/s, %.2f MB/s%n",
+                    files.get(), withErrors.get(), failed.get(), megabytes, seconds,
+                    files.get() / seconds, megabytes / seconds);
+            if (cache != null) {
+                out.printf("cache: %d hits, %d misses%n", cache.hits(), cache.misses());
+            }
+        }
+    }
+
+    /** Lazily lists the scripts named by one input (a file, directory or glob). */
+    private static Stream<Path> expand(String input) {
+        try {
+            if (isGlob(input)) {
+                String pattern = input.replace('\\', '/');
+                int firstGlob = indexOfGlob(pattern);
+                int cut = pattern.lastIndexOf('/', firstGlob);
+                Path base = Path.of(cut < 0 ? "" : pattern.substring(0, cut + 1));
+                int depth = pattern.contains("**") ? Integer.MAX_VALUE
+                        : pattern.substring(cut + 1).split("/").length;
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+                return Files.walk(base, depth)
+                        .filter(p -> Files.isRegularFile(p) && matcher.matches(p));
+            }
+            Path path = Path.of(input);
+            if (Files.isDirectory(path)) {
+                return Files.walk(path).filter(p -> Files.isRegularFile(p)
+                        && p.getFileName().toString().endsWith(SCRIPT_SUFFIX));
+            }
+            return Stream.of(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isGlob(String input) {
+        return indexOfGlob(input) >= 0;
+    }
+
+    private static int indexOfGlob(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if ("*?[{".indexOf(s.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns {@code file} as a relative path, so it can be mirrored under another directory. */
+    private static Path withoutRoot(Path file) {
+        Path normalized = file.normalize();
+        Path root = normalized.getRoot();
+        Path relative = root == null ? normalized : root.relativize(normalized);
+        // keep ".." segments from escaping the output directory
+        Path safe = null;
+        for (Path name : relative) {
+            Path segment = name.toString().equals("..") ? Path.of("__") : name;
+            safe = safe == null ? segment : safe.resolve(segment);
+        }
+        return safe == null ? relative : safe;
+    }
+
+    private static void awaitQuietly(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting; every task finishes on its own
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
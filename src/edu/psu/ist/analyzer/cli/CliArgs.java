@@ -0,0 +1,100 @@
+package edu.psu.ist.analyzer.cli;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsed command line of {@link edu.psu.ist.analyzer.BasicMainCli}.
+ *
+ * @param inputs    files, directories (searched recursively for {@code .pie}
+ *                  files) and glob patterns to analyze.
+ * @param threads   how many files are analyzed concurrently.
+ * @param format    how per-file results and the summary are printed.
+ * @param graphOut  directory receiving an svg call graph per file, or
+ *                  {@code null} for none.
+ * @param failFast  stop starting new files once one has errors.
+ * @param lint      also report unused variables and dead stores.
+ * @param graphOnly only extract call graphs (see
+ *                  {@link edu.psu.ist.analyzer.graph.CallGraphScanner});
+ *                  scripts are not checked.
+ * @param cacheDir  directory of the {@link edu.psu.ist.analyzer.cache.AnalysisCache}
+ *                  that analyses are reused from and stored in, or
+ *                  {@code null} for none.
+ */
+public record CliArgs(List<String> inputs, int threads, OutputFormat format,
+                      Path graphOut, boolean failFast, boolean lint, boolean graphOnly,
+                      Path cacheDir) {
+
+    public enum OutputFormat { TEXT, JSON }
+
+    public static final String USAGE = """
+            usage: pie-analyzer [options] <file|dir|glob>...
+              --threads=N       analyze N files at a time (default: one per core)
+              --format=FORMAT   'text' (default) or 'json' (one object per line)
+              --graph-out=DIR   write each file's call graph to DIR as svg
+              --fail-fast       stop after the first file with errors
+              --lint            also report unused variables and dead stores
+              --graph-only      only extract call graphs, without checking
+              --cache-dir=DIR   reuse analyses of unchanged scripts cached in DIR
+            directories are searched recursively for .pie files; quote globs
+            (e.g. 'src/**/*.pie') so the shell does not expand them.""";
+
+    /**
+     * Parses {@code args}.
+     *
+     * @throws IllegalArgumentException describing the first malformed
+     * option, or if no inputs are given.
+     */
+    public static CliArgs parse(String[] args) {
+        List<String> inputs = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        OutputFormat format = OutputFormat.TEXT;
+        Path graphOut = null;
+        boolean failFast = false;
+        boolean lint = false;
+        boolean graphOnly = false;
+        Path cacheDir = null;
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                inputs.add(arg);
+            } else if (arg.startsWith("--threads=")) {
+                try {
+                    threads = Integer.parseInt(valueOf(arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("--threads expects a number: " + arg);
+                }
+                if (threads < 1) {
+                    throw new IllegalArgumentException("--threads must be >= 1");
+                }
+            } else if (arg.startsWith("--format=")) {
+                format = switch (valueOf(arg)) {
+                    case "text" -> OutputFormat.TEXT;
+                    case "json" -> OutputFormat.JSON;
+                    default -> throw new IllegalArgumentException("--format expects text or json: " + arg);
+                };
+            } else if (arg.startsWith("--graph-out=")) {
+                graphOut = Path.of(valueOf(arg));
+            } else if (arg.startsWith("--cache-dir=")) {
+                cacheDir = Path.of(valueOf(arg));
+            } else if (arg.equals("--fail-fast")) {
+                failFast = true;
+            } else if (arg.equals("--lint")) {
+                lint = true;
+            } else if (arg.equals("--graph-only")) {
+                graphOnly = true;
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("no input files given");
+        }
+        return new CliArgs(List.copyOf(inputs), threads, format, graphOut, failFast, lint, graphOnly,
+                cacheDir);
+    }
+
+    private static String valueOf(String option) {
+        return option.substring(option.indexOf('=') + 1);
+    }
+}
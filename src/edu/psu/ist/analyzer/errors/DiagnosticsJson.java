@@ -0,0 +1,32 @@
+package edu.psu.ist.analyzer.errors;
+
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.utils.JsonWriter;
+
+import java.util.List;
+
+/** Writes {@link PieErrorMessage}s as JSON, for the machine-readable front ends. */
+public final class DiagnosticsJson {
+
+    private DiagnosticsJson() {
+    }
+
+    /**
+     * Writes {@code errors} to {@code json} as an array of objects with a
+     * {@code kind}, a {@code message} and, where known, the {@code line} and
+     * {@code column} the error starts at and the {@code endLine} and
+     * {@code endColumn} it ends at.
+     */
+    public static JsonWriter write(JsonWriter json, List<? extends PieErrorMessage> errors) {
+        json.beginArray();
+        for (PieErrorMessage e : errors) {
+            json.beginObject().name("kind").value(e.kind()).name("message").value(e.message());
+            if (e.loc() != null) {
+                json.name("line").value(e.loc().beginLine()).name("column").value(e.loc().beginCol())
+                        .name("endLine").value(e.loc().endLine()).name("endColumn").value(e.loc().endCol());
+            }
+            json.endObject();
+        }
+        return json.endArray();
+    }
+}
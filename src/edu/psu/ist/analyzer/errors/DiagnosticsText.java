@@ -0,0 +1,81 @@
+package edu.psu.ist.analyzer.errors;
+
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.utils.LineIndex;
+import edu.psu.ist.analyzer.utils.SourceLocation;
+
+/**
+ * Renders {@link PieErrorMessage}s for people: the message followed by the
+ * offending source line with the reported span underlined, e.g.
+ * <pre>
+ * &gt;&gt; Type mismatch (test:2:11) - expected: Int32, but got: Bool
+ * 2 |     return true;
+ *   |            ^^^^
+ * </pre>
+ * Lines are located through the source's {@link LineIndex}, so rendering
+ * costs a binary search plus the length of the line shown, however large
+ * the file.
+ */
+public final class DiagnosticsText {
+
+    /** Longest stretch of a source line shown; longer lines are cut around the span. */
+    static final int MAX_SNIPPET_WIDTH = 120;
+
+    private DiagnosticsText() {
+    }
+
+    /** Returns {@code e}'s message followed by a snippet of the source it refers to (if known). */
+    public static String format(PieErrorMessage e) {
+        return appendSnippet(new StringBuilder(e.message()), e.loc()).toString();
+    }
+
+    /**
+     * Appends to {@code s} a newline and a two-line snippet marking
+     * {@code loc} in its source. Appends nothing if the location has no
+     * offsets or they do not fall within the source text (as for scripts
+     * checked in streaming mode, whose text is never retained).
+     */
+    public static StringBuilder appendSnippet(StringBuilder s, SourceLocation loc) {
+        if (loc == null || !loc.hasOffsets() || loc.endOffset() > loc.source().text().length()) {
+            return s;
+        }
+        String text = loc.source().text();
+        LineIndex lines = loc.source().lineIndex();
+        int line = lines.lineOf(loc.beginOffset());
+        int lineStart = lines.lineStart(line);
+        int lineEnd = lines.lineEnd(line);
+
+        int from = loc.beginOffset();
+        // spans reaching past the first line are underlined to its end
+        int to = Math.min(loc.endOffset(), lineEnd);
+        int windowStart = lineStart;
+        int windowEnd = lineEnd;
+        if (lineEnd - lineStart > MAX_SNIPPET_WIDTH) {
+            windowStart = Math.max(lineStart, Math.min(from - MAX_SNIPPET_WIDTH / 2,
+                    lineEnd - MAX_SNIPPET_WIDTH));
+            windowEnd = windowStart + MAX_SNIPPET_WIDTH;
+            to = Math.min(to, windowEnd);
+        }
+        boolean cutLeft = windowStart > lineStart;
+
+        String gutter = Integer.toString(line);
+        s.append('\n').append(gutter).append(" | ");
+        if (cutLeft) {
+            s.append("...");
+        }
+        s.append(text, windowStart, windowEnd);
+        if (windowEnd < lineEnd) {
+            s.append("...");
+        }
+
+        s.append('\n').append(" ".repeat(gutter.length())).append(" | ");
+        if (cutLeft) {
+            s.append("   ");
+        }
+        for (int i = windowStart; i < from; i++) {
+            // keep tabs so the carets line up however tabs are displayed
+            s.append(text.charAt(i) == '\t' ? '\t' : ' ');
+        }
+        return s.append("^".repeat(Math.max(1, to - from)));
+    }
+}
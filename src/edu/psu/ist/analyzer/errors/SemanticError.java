@@ -69,4 +69,20 @@ public sealed interface SemanticError extends PieErrorMessage {
                     "(%s) - expected: %s return statement", loc, numOfReturnsExpected);
         }
     }
+
+    // a local variable whose value is never read (reported by lint checks only)
+    record UnusedVariable(String variableName, SourceLocation loc) implements SemanticError {
+        @Override public String message() {
+            return String.format(">> Unused variable (%s) - %s", loc, variableName);
+        }
+    }
+
+    // a value stored to a variable but overwritten or dropped before it is
+    // read, e.g., x := 1; x := 2; (reported by lint checks only)
+    record DeadStore(String variableName, SourceLocation loc) implements SemanticError {
+        @Override public String message() {
+            return String.format(">> Dead store (%s) - value assigned to %s is never read",
+                    loc, variableName);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package edu.psu.ist.analyzer.flow;
+
+import java.util.Arrays;
+
+/**
+ * Operations on bit vectors stored as {@code long[]}, 64 bits per word, as
+ * used for the dataflow facts over variable slots. All vectors taking part
+ * in one operation have the same length.
+ */
+final class BitVectors {
+
+    private BitVectors() {
+    }
+
+    /** Returns the number of words needed for {@code bits} bits. */
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /** Returns a vector of {@code words} words with the first {@code bits} bits set. */
+    static long[] full(int words, int bits) {
+        long[] v = new long[words];
+        Arrays.fill(v, -1L);
+        if ((bits & 63) != 0) {
+            v[words - 1] = (1L << (bits & 63)) - 1;
+        }
+        return v;
+    }
+
+    static boolean get(long[] v, int bit) {
+        return (v[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static void set(long[] v, int bit) {
+        v[bit >>> 6] |= 1L << bit;
+    }
+
+    static void clear(long[] v, int bit) {
+        v[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /** {@code into |= v} */
+    static void or(long[] into, long[] v) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] |= v[i];
+        }
+    }
+
+    /** {@code into &= v} */
+    static void and(long[] into, long[] v) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] &= v[i];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.psu.ist.analyzer.flow;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A worklist solver for gen/kill dataflow problems over the variable slots
+ * of a {@link FlowGraph}.
+ * <p>
+ * Facts are bit vectors ({@code long[]}, one bit per slot). Each node's
+ * transfer function is {@code out = gen | (in & ~kill)}; a node's
+ * {@code in} is the meet (union for "may" problems, intersection for
+ * "must" problems) of the {@code out}s of its predecessors in the direction
+ * of the analysis. Gen and kill sets are given sparsely, as slot lists:
+ * a node touches a handful of slots however many the procedure declares,
+ * so applying them costs that handful rather than a pass over every word.
+ * <p>
+ * Only the {@code out} facts are stored (one vector per node); {@link #in}
+ * recomputes a node's {@code in} on demand.
+ */
+final class DataflowSolver {
+
+    /** Gen and kill slots of a node. */
+    interface Transfer {
+        int[] gen(int node);
+
+        int[] kill(int node);
+    }
+
+    private final FlowGraph graph;
+    private final boolean forward;
+    private final boolean must;
+    private final Transfer transfer;
+    private final int words;
+    private final long[] boundary;
+    private final long[] top;
+    private final long[][] out;
+
+    /**
+     * @param forward  the direction of the analysis.
+     * @param must     meet by intersection (otherwise by union).
+     * @param boundary the {@code in} fact at the entry (forward) or the exit
+     *                 (backward).
+     */
+    DataflowSolver(FlowGraph graph, boolean forward, boolean must, Transfer transfer, long[] boundary) {
+        this.graph = graph;
+        this.forward = forward;
+        this.must = must;
+        this.transfer = transfer;
+        this.words = BitVectors.words(graph.slotCount());
+        this.boundary = boundary;
+        this.top = must ? BitVectors.full(words, graph.slotCount()) : new long[words];
+        this.out = new long[graph.nodeCount()][];
+    }
+
+    /** Runs the solver to a fixed point and returns this solver. */
+    DataflowSolver solve() {
+        int n = graph.nodeCount();
+        for (int i = 0; i < n; i++) {
+            out[i] = top.clone();
+        }
+        // a ring of the queued nodes, seeded in the direction of the
+        // analysis so straight-line code settles in a single pass
+        int[] queue = new int[n];
+        var queued = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            queue[i] = forward ? i : n - 1 - i;
+        }
+        queued.set(0, n);
+        int head = 0;
+        int size = n;
+
+        long[] scratch = new long[words];
+        while (size > 0) {
+            int node = queue[head];
+            head = (head + 1) % n;
+            size--;
+            queued.clear(node);
+
+            in(node, scratch);
+            for (int k : transfer.kill(node)) {
+                BitVectors.clear(scratch, k);
+            }
+            for (int g : transfer.gen(node)) {
+                BitVectors.set(scratch, g);
+            }
+            if (!Arrays.equals(scratch, out[node])) {
+                long[] previous = out[node];
+                out[node] = scratch;
+                scratch = previous;
+                for (int next : forward ? graph.successors(node) : graph.predecessors(node)) {
+                    if (!queued.get(next)) {
+                        queued.set(next);
+                        queue[(head + size) % n] = next;
+                        size++;
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /** Returns the fact holding after {@code node}, in the direction of the analysis. */
+    long[] out(int node) {
+        return out[node];
+    }
+
+    /** Computes into {@code into} the fact holding before {@code node}, in the direction of the analysis. */
+    long[] in(int node, long[] into) {
+        if (node == (forward ? graph.entry() : graph.exit())) {
+            System.arraycopy(boundary, 0, into, 0, words);
+            return into;
+        }
+        System.arraycopy(top, 0, into, 0, words);
+        for (int p : forward ? graph.predecessors(node) : graph.successors(node)) {
+            if (must) {
+                BitVectors.and(into, out[p]);
+            } else {
+                BitVectors.or(into, out[p]);
+            }
+        }
+        return into;
+    }
+
+    /** Returns a vector of the right size for {@link #in}. */
+    long[] newFact() {
+        return new long[words];
+    }
+}
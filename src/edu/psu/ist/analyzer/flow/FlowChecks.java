@@ -0,0 +1,123 @@
+package edu.psu.ist.analyzer.flow;
+
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.SourceLocation;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The dataflow checks run on each procedure body:
+ * <ul>
+ *   <li><em>definite assignment</em> (forward, must): every variable read
+ *   must have been assigned on every path to the read, else
+ *   {@link SemanticError.UninitializedVariable};</li>
+ *   <li><em>unused variables</em> (lint): a {@code var} never read anywhere
+ *   reachable, {@link SemanticError.UnusedVariable};</li>
+ *   <li><em>dead stores</em> (lint, via backward liveness): a value written
+ *   to a variable that is not live afterwards,
+ *   {@link SemanticError.DeadStore}.</li>
+ * </ul>
+ * Unreachable nodes are skipped; they are reported as unreachable code by
+ * the checker already.
+ */
+public final class FlowChecks {
+
+    private FlowChecks() {
+    }
+
+    /**
+     * Returns the errors found in {@code def}, a procedure free of syntax
+     * errors; the lint checks only run if {@code lint} is set. Locations
+     * are made by {@code loc}.
+     */
+    public static List<PieErrorMessage> check(PiethonParser.DefContext def, boolean lint,
+                                              Function<ParserRuleContext, SourceLocation> loc) {
+        FlowGraph g = FlowGraph.of(def);
+        BitSet reachable = g.reachable();
+        List<PieErrorMessage> errors = new ArrayList<>();
+        checkDefiniteAssignment(g, reachable, loc, errors);
+        if (lint) {
+            checkUnusedAndDeadStores(g, reachable, loc, errors);
+        }
+        return errors;
+    }
+
+    private static void checkDefiniteAssignment(FlowGraph g, BitSet reachable,
+                                                Function<ParserRuleContext, SourceLocation> loc,
+                                                List<PieErrorMessage> errors) {
+        var solver = new DataflowSolver(g, true, true, new DataflowSolver.Transfer() {
+            @Override public int[] gen(int node) {
+                return g.defs(node);
+            }
+
+            @Override public int[] kill(int node) {
+                return new int[0];
+            }
+        }, new long[BitVectors.words(g.slotCount())]).solve();
+
+        var reported = new BitSet(g.slotCount());
+        long[] assigned = solver.newFact();
+        for (int n = reachable.nextSetBit(0); n >= 0; n = reachable.nextSetBit(n + 1)) {
+            solver.in(n, assigned);
+            for (int slot : g.uses(n)) {
+                if (!BitVectors.get(assigned, slot) && !reported.get(slot)) {
+                    reported.set(slot);
+                    errors.add(new SemanticError.UninitializedVariable(g.slotName(slot),
+                            loc.apply(g.context(n))));
+                }
+            }
+        }
+    }
+
+    private static void checkUnusedAndDeadStores(FlowGraph g, BitSet reachable,
+                                                 Function<ParserRuleContext, SourceLocation> loc,
+                                                 List<PieErrorMessage> errors) {
+        var read = new BitSet(g.slotCount());
+        for (int n = reachable.nextSetBit(0); n >= 0; n = reachable.nextSetBit(n + 1)) {
+            for (int slot : g.uses(n)) {
+                read.set(slot);
+            }
+        }
+
+        // liveness: a slot is live before a node if the node reads it, or if
+        // it is live after the node and the node does not overwrite it
+        var liveness = new DataflowSolver(g, false, false, new DataflowSolver.Transfer() {
+            @Override public int[] gen(int node) {
+                return g.uses(node);
+            }
+
+            @Override public int[] kill(int node) {
+                return g.defs(node);
+            }
+        }, new long[BitVectors.words(g.slotCount())]).solve();
+
+        long[] liveAfter = liveness.newFact();
+        for (int n = reachable.nextSetBit(0); n >= 0; n = reachable.nextSetBit(n + 1)) {
+            FlowGraph.Kind kind = g.kind(n);
+            if (kind != FlowGraph.Kind.VAR_DEF && kind != FlowGraph.Kind.ASSIGN) {
+                continue;
+            }
+            int slot = g.defs(n).length == 0 ? -1 : g.defs(n)[0];
+            if (slot < 0) {
+                continue;
+            }
+            if (!read.get(slot)) {
+                // never read at all: one report for the variable, not one per store
+                if (kind == FlowGraph.Kind.VAR_DEF && !g.isParameter(slot)) {
+                    errors.add(new SemanticError.UnusedVariable(g.slotName(slot), loc.apply(g.context(n))));
+                }
+                continue;
+            }
+            liveness.in(n, liveAfter);
+            if (!BitVectors.get(liveAfter, slot)) {
+                errors.add(new SemanticError.DeadStore(g.slotName(slot), loc.apply(g.context(n))));
+            }
+        }
+    }
+}
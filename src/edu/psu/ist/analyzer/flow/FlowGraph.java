@@ -0,0 +1,218 @@
+package edu.psu.ist.analyzer.flow;
+
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The control-flow graph of one procedure, at the granularity of its
+ * variable definitions and statements, annotated with the variable slots
+ * each node reads and writes.
+ * <p>
+ * Node {@code 0} is the entry, which writes the parameters; then come the
+ * {@code var} definitions and statements in source order, then the exit.
+ * Each node falls through to the next, except {@code return}s, which go
+ * straight to the exit. Parameters and variables are numbered (their
+ * <em>slots</em>) in declaration order; a name declared twice keeps its
+ * first slot. References to undeclared names are left out (they are
+ * reported by the checker), as are references in a variable's initializer
+ * to variables declared after it.
+ */
+final class FlowGraph {
+
+    /** What a node is; decides which reports it can take part in. */
+    enum Kind { ENTRY, VAR_DEF, ASSIGN, CALL, RETURN, EXIT }
+
+    private static final int[] NONE = new int[0];
+
+    private final List<String> slotNames = new ArrayList<>();
+    private final BitSet paramSlots = new BitSet();
+    private final List<Kind> kinds = new ArrayList<>();
+    private final List<ParserRuleContext> contexts = new ArrayList<>();
+    private final List<int[]> defs = new ArrayList<>();
+    private final List<int[]> uses = new ArrayList<>();
+    private int[][] successors;
+    private int[][] predecessors;
+
+    private FlowGraph() {
+    }
+
+    static FlowGraph of(PiethonParser.DefContext def) {
+        var g = new FlowGraph();
+        Map<String, Integer> slots = new HashMap<>();
+
+        List<Integer> params = new ArrayList<>();
+        if (def.paramList() != null) {
+            for (var p : def.paramList().paramDef()) {
+                int slot = g.declare(slots, p.ID().getText());
+                g.paramSlots.set(slot);
+                params.add(slot);
+            }
+        }
+        g.add(Kind.ENTRY, def, toArray(params), NONE);
+
+        for (var v : def.varDef()) {
+            // the initializer only sees the variables declared before this one
+            int[] read = g.reads(slots, v.exp());
+            int slot = g.declare(slots, v.ID().getText());
+            g.add(Kind.VAR_DEF, v, new int[] {slot}, read);
+        }
+        for (var s : def.statement()) {
+            switch (s) {
+                case PiethonParser.AssignStmtContext a -> {
+                    Integer slot = slots.get(a.name.getText());
+                    g.add(Kind.ASSIGN, a, slot == null ? NONE : new int[] {slot},
+                            g.reads(slots, a.exp()));
+                }
+                case PiethonParser.CallStmtContext c -> g.add(Kind.CALL, c, NONE,
+                        c.expList() == null ? NONE : g.reads(slots, c.expList()));
+                case PiethonParser.ReturnStmtContext r -> g.add(Kind.RETURN, r, NONE,
+                        g.reads(slots, r.exp()));
+                default -> throw new IllegalArgumentException("unknown statement: " + s.getText());
+            }
+        }
+        g.add(Kind.EXIT, def, NONE, NONE);
+        g.link();
+        return g;
+    }
+
+    int nodeCount() {
+        return kinds.size();
+    }
+
+    int slotCount() {
+        return slotNames.size();
+    }
+
+    String slotName(int slot) {
+        return slotNames.get(slot);
+    }
+
+    boolean isParameter(int slot) {
+        return paramSlots.get(slot);
+    }
+
+    Kind kind(int node) {
+        return kinds.get(node);
+    }
+
+    ParserRuleContext context(int node) {
+        return contexts.get(node);
+    }
+
+    /** Returns the slots written by {@code node}. */
+    int[] defs(int node) {
+        return defs.get(node);
+    }
+
+    /** Returns the (distinct) slots read by {@code node}. */
+    int[] uses(int node) {
+        return uses.get(node);
+    }
+
+    int[] successors(int node) {
+        return successors[node];
+    }
+
+    int[] predecessors(int node) {
+        return predecessors[node];
+    }
+
+    int entry() {
+        return 0;
+    }
+
+    int exit() {
+        return nodeCount() - 1;
+    }
+
+    /** Returns the nodes reachable from the entry. */
+    BitSet reachable() {
+        var seen = new BitSet(nodeCount());
+        var work = new ArrayDeque<Integer>();
+        seen.set(entry());
+        work.push(entry());
+        while (!work.isEmpty()) {
+            for (int s : successors[work.pop()]) {
+                if (!seen.get(s)) {
+                    seen.set(s);
+                    work.push(s);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private int declare(Map<String, Integer> slots, String name) {
+        return slots.computeIfAbsent(name, n -> {
+            slotNames.add(n);
+            return slotNames.size() - 1;
+        });
+    }
+
+    private void add(Kind kind, ParserRuleContext ctx, int[] written, int[] read) {
+        kinds.add(kind);
+        contexts.add(ctx);
+        defs.add(written);
+        uses.add(read);
+    }
+
+    /**
+     * Returns the slots of the variables referenced in {@code tree}. The
+     * walk is iterative, as expressions can be arbitrarily deep.
+     */
+    private int[] reads(Map<String, Integer> slots, ParseTree tree) {
+        var found = new BitSet();
+        var work = new ArrayDeque<ParseTree>();
+        work.push(tree);
+        while (!work.isEmpty()) {
+            ParseTree t = work.pop();
+            if (t instanceof PiethonParser.VarRefExpContext ref) {
+                Integer slot = slots.get(ref.name.getText());
+                if (slot != null) {
+                    found.set(slot);
+                }
+            } else {
+                for (int i = 0; i < t.getChildCount(); i++) {
+                    work.push(t.getChild(i));
+                }
+            }
+        }
+        return found.isEmpty() ? NONE : found.stream().toArray();
+    }
+
+    private void link() {
+        int n = nodeCount();
+        successors = new int[n][];
+        int[] predecessorCount = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i == exit()) {
+                successors[i] = NONE;
+            } else {
+                successors[i] = new int[] {kinds.get(i) == Kind.RETURN ? exit() : i + 1};
+                predecessorCount[successors[i][0]]++;
+            }
+        }
+        predecessors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            predecessors[i] = new int[predecessorCount[i]];
+        }
+        int[] filled = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int s : successors[i]) {
+                predecessors[s][filled[s]++] = i;
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> xs) {
+        return xs.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,169 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a call graph to a versioned binary file that {@link MappedCallGraph}
+ * can memory-map and query without deserializing it.
+ * <p>
+ * All values are little-endian. The file consists of a fixed-size header
+ * followed by five sections, each starting at the offset recorded for it in
+ * the header:
+ * <pre>
+ *   header:       magic:int  version:int  vertexCount:int  edgeCount:int
+ *                 nameOffsetsPos:long  nameBytesPos:long
+ *                 outOffsetsPos:long  outTargetsPos:long
+ *                 inOffsetsPos:long   inSourcesPos:long
+ *   nameOffsets:  int[vertexCount + 1]   (into nameBytes)
+ *   nameBytes:    UTF-8 procedure names, sorted by unsigned byte order
+ *   outOffsets:   int[vertexCount + 1]   (CSR row offsets into outTargets)
+ *   outTargets:   int[edgeCount]
+ *   inOffsets:    int[vertexCount + 1]   (CSR row offsets into inSources)
+ *   inSources:    int[edgeCount]
+ * </pre>
+ * Vertex ids are positions in the sorted name table, so a name can be
+ * resolved to its id by binary search. Rows are sorted by vertex id. Like
+ * {@link Digraph#edges()}, the file holds the <em>set</em> of edges: a
+ * procedure that calls another several times contributes a single edge.
+ */
+public final class CallGraphFile {
+
+    static final int MAGIC = 0x47454950; // "PIEG" (little-endian)
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + 6 * Long.BYTES;
+
+    private CallGraphFile() {
+    }
+
+    /** Writes {@code g} to {@code file}, replacing any existing file. */
+    public static void write(Digraph<ProcNode> g, Path file) throws IOException {
+        // targets of an edge need not have been added as vertices explicitly
+        Set<String> names = new LinkedHashSet<>();
+        for (ProcNode v : g.getVertices()) {
+            names.add(v.name());
+            for (ProcNode w : g.neighbors(v)) {
+                names.add(w.name());
+            }
+        }
+        byte[][] encoded = new byte[names.size()][];
+        int n = 0;
+        for (String name : names) {
+            encoded[n++] = name.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, Arrays::compareUnsigned);
+        Map<String, Integer> ids = new HashMap<>(2 * encoded.length);
+        for (int i = 0; i < encoded.length; i++) {
+            ids.put(new String(encoded[i], StandardCharsets.UTF_8), i);
+        }
+
+        int vertexCount = encoded.length;
+        // sorted, de-duplicated callee ids per vertex
+        int[][] rows = new int[vertexCount][];
+        for (ProcNode v : g.getVertices()) {
+            List<ProcNode> callees = g.neighbors(v);
+            int[] row = new int[callees.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = ids.get(callees.get(i).name());
+            }
+            Arrays.sort(row);
+            int distinct = 0;
+            for (int i = 0; i < row.length; i++) {
+                if (i == 0 || row[i] != row[i - 1]) {
+                    row[distinct++] = row[i];
+                }
+            }
+            rows[ids.get(v.name())] = Arrays.copyOf(row, distinct);
+        }
+
+        int[] outOffsets = new int[vertexCount + 1];
+        int[] inOffsets = new int[vertexCount + 1];
+        long edges = 0;
+        for (int from = 0; from < vertexCount; from++) {
+            int[] row = rows[from] == null ? new int[0] : rows[from];
+            rows[from] = row;
+            outOffsets[from + 1] = row.length;
+            for (int to : row) {
+                inOffsets[to + 1]++;
+            }
+            edges += row.length;
+        }
+        if (edges > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many edges: " + edges);
+        }
+        int edgeCount = (int) edges;
+        for (int i = 0; i < vertexCount; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] outTargets = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        int[] inFill = Arrays.copyOf(inOffsets, vertexCount);
+        for (int from = 0; from < vertexCount; from++) {
+            System.arraycopy(rows[from], 0, outTargets, outOffsets[from], rows[from].length);
+            for (int to : rows[from]) {
+                inSources[inFill[to]++] = from;
+            }
+        }
+
+        int[] nameOffsets = new int[vertexCount + 1];
+        for (int i = 0; i < vertexCount; i++) {
+            nameOffsets[i + 1] = nameOffsets[i] + encoded[i].length;
+        }
+
+        long nameOffsetsPos = HEADER_BYTES;
+        long nameBytesPos = nameOffsetsPos + intsBytes(vertexCount + 1);
+        long outOffsetsPos = nameBytesPos + nameOffsets[vertexCount];
+        long outTargetsPos = outOffsetsPos + intsBytes(vertexCount + 1);
+        long inOffsetsPos = outTargetsPos + intsBytes(edgeCount);
+        long inSourcesPos = inOffsetsPos + intsBytes(vertexCount + 1);
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(vertexCount).putInt(edgeCount)
+                    .putLong(nameOffsetsPos).putLong(nameBytesPos)
+                    .putLong(outOffsetsPos).putLong(outTargetsPos)
+                    .putLong(inOffsetsPos).putLong(inSourcesPos);
+            out.write(header.array());
+            writeInts(out, nameOffsets);
+            for (byte[] name : encoded) {
+                out.write(name);
+            }
+            writeInts(out, outOffsets);
+            writeInts(out, outTargets);
+            writeInts(out, inOffsets);
+            writeInts(out, inSources);
+        }
+    }
+
+    private static long intsBytes(int count) {
+        return (long) count * Integer.BYTES;
+    }
+
+    private static void writeInts(OutputStream out, int[] values) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int v : values) {
+            if (!buf.hasRemaining()) {
+                out.write(buf.array(), 0, buf.position());
+                buf.clear();
+            }
+            buf.putInt(v);
+        }
+        out.write(buf.array(), 0, buf.position());
+    }
+}
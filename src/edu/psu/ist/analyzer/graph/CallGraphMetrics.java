@@ -0,0 +1,380 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.PieAnalyzer;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.JsonWriter;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+import guru.nidi.graphviz.attribute.Attributes;
+import guru.nidi.graphviz.attribute.Color;
+import guru.nidi.graphviz.attribute.ForNode;
+import guru.nidi.graphviz.attribute.Shape;
+import guru.nidi.graphviz.attribute.Style;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Code-health metrics of a call graph: degree distributions, entry points
+ * and leaves, the depth of the longest call chain, and a PageRank-style
+ * centrality of every procedure.
+ * <p>
+ * Everything but the centrality is computed in a single pass, linear in
+ * the size of the graph, over primitive arrays indexed by dense vertex ids
+ * (see {@link VertexIndex}). Calls are counted as a set, as in
+ * {@link Digraph#edges()}: degrees count distinct callers and callees. The
+ * call-chain depth is measured on the {@link Condensation} of the graph, so
+ * mutually recursive procedures count as one link of a chain.
+ * <p>
+ * The centrality is computed by power iteration, each step a parallel loop
+ * over the vertices (on the common fork-join pool, once the graph is large
+ * enough for that to pay off), until the ranks change by less than
+ * {@link #TOLERANCE} in total.
+ */
+public final class CallGraphMetrics {
+
+    /** The probability that a random walk through the graph follows a call. */
+    public static final double DAMPING = 0.85;
+
+    /** Power iteration stops once the ranks change by less than this (summed). */
+    public static final double TOLERANCE = 1e-10;
+
+    /** Power iteration stops after this many steps even if not converged. */
+    public static final int MAX_ITERATIONS = 200;
+
+    /** Graphs with fewer vertices are ranked on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final VertexIndex<ProcNode> index;
+    private final int edges;
+    private final int[] outDegree;
+    private final int[] inDegree;
+    private final boolean[] selfCall;
+    private final int components;
+    private final int[] depth;
+    private final double[] rank;
+    private final int iterations;
+
+    private CallGraphMetrics(VertexIndex<ProcNode> index, int edges, int[] outDegree, int[] inDegree,
+                             boolean[] selfCall, int components, int[] depth,
+                             double[] rank, int iterations) {
+        this.index = index;
+        this.edges = edges;
+        this.outDegree = outDegree;
+        this.inDegree = inDegree;
+        this.selfCall = selfCall;
+        this.components = components;
+        this.depth = depth;
+        this.rank = rank;
+        this.iterations = iterations;
+    }
+
+    /** Computes the metrics of {@code g}. */
+    public static CallGraphMetrics of(Digraph<ProcNode> g) {
+        VertexIndex<ProcNode> index = VertexIndex.of(g);
+        int n = index.size();
+        Csr.Edges edges = Csr.Edges.distinct(g, index);
+        Csr down = Csr.of(n, edges.from(), edges.to(), true);
+        Csr up = Csr.of(n, edges.to(), edges.from(), true);
+
+        int[] outDegree = new int[n];
+        int[] inDegree = new int[n];
+        boolean[] selfCall = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            outDegree[v] = down.degree(v);
+            inDegree[v] = up.degree(v);
+        }
+        for (int e = 0; e < edges.count(); e++) {
+            if (edges.from()[e] == edges.to()[e]) {
+                selfCall[edges.from()[e]] = true;
+            }
+        }
+
+        // components are numbered callees first, so successors' depths are known
+        Condensation<ProcNode> dag = Condensation.of(index, down);
+        int[] componentDepth = new int[dag.componentCount()];
+        for (int c = 0; c < componentDepth.length; c++) {
+            for (int s : dag.successors(c)) {
+                componentDepth[c] = Math.max(componentDepth[c], componentDepth[s] + 1);
+            }
+        }
+        int[] depth = new int[n];
+        for (int v = 0; v < n; v++) {
+            depth[v] = componentDepth[dag.componentOfId(v)];
+        }
+
+        double[] rank = new double[n];
+        int iterations = rank(n, outDegree, up.start(), up.targets(), rank);
+        return new CallGraphMetrics(index, edges.count(), outDegree, inDegree, selfCall,
+                dag.componentCount(), depth, rank, iterations);
+    }
+
+    /** Returns the number of procedures. */
+    public int procedureCount() {
+        return index.size();
+    }
+
+    /** Returns the number of distinct calls (caller/callee pairs). */
+    public int callCount() {
+        return edges;
+    }
+
+    /** Returns the number of strongly connected components (1 per procedure if there is no recursion). */
+    public int componentCount() {
+        return components;
+    }
+
+    /**
+     * Returns the number of distinct procedures {@code v} calls.
+     *
+     * @throws IllegalArgumentException if {@code v} is not in the graph.
+     */
+    public int outDegree(ProcNode v) {
+        return outDegree[id(v)];
+    }
+
+    /**
+     * Returns the number of distinct procedures calling {@code v}.
+     *
+     * @throws IllegalArgumentException if {@code v} is not in the graph.
+     */
+    public int inDegree(ProcNode v) {
+        return inDegree[id(v)];
+    }
+
+    /**
+     * Returns how many procedures have each out-degree: element {@code d}
+     * counts the procedures calling exactly {@code d} distinct procedures.
+     */
+    public int[] outDegreeHistogram() {
+        return histogram(outDegree);
+    }
+
+    /** Returns how many procedures have each in-degree (as {@link #outDegreeHistogram()}). */
+    public int[] inDegreeHistogram() {
+        return histogram(inDegree);
+    }
+
+    /** Returns the procedures called by no procedure but themselves, ordered by name. */
+    public List<ProcNode> roots() {
+        return select(inDegree);
+    }
+
+    /** Returns the procedures calling no procedure but themselves, ordered by name. */
+    public List<ProcNode> leaves() {
+        return select(outDegree);
+    }
+
+    /**
+     * Returns the length of the longest chain of calls starting at
+     * {@code v}, counting each set of mutually recursive procedures once: 0
+     * for a leaf, 1 for a procedure calling only leaves, and so on.
+     *
+     * @throws IllegalArgumentException if {@code v} is not in the graph.
+     */
+    public int depth(ProcNode v) {
+        return depth[id(v)];
+    }
+
+    /** Returns the length of the longest chain of calls in the graph (see {@link #depth}). */
+    public int maxDepth() {
+        int max = 0;
+        for (int d : depth) {
+            max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the centrality of {@code v}: the probability that a random
+     * walk following calls (and jumping to a random procedure with
+     * probability {@code 1 - }{@link #DAMPING}, or when it reaches a leaf)
+     * is at {@code v}. The ranks of all procedures sum to 1.
+     *
+     * @throws IllegalArgumentException if {@code v} is not in the graph.
+     */
+    public double rank(ProcNode v) {
+        return rank[id(v)];
+    }
+
+    /** Returns the number of power-iteration steps the ranks took to converge. */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Writes the metrics to {@code json} as an object with the totals, the
+     * {@code roots} and {@code leaves}, both degree histograms and, for each
+     * procedure (ordered by name), its degrees, depth and rank.
+     */
+    public JsonWriter write(JsonWriter json) {
+        json.beginObject()
+                .name("procedures").value(procedureCount())
+                .name("calls").value(callCount())
+                .name("components").value(componentCount())
+                .name("maxDepth").value(maxDepth());
+        json.name("roots").beginArray();
+        for (ProcNode v : roots()) {
+            json.value(v.name());
+        }
+        json.endArray().name("leaves").beginArray();
+        for (ProcNode v : leaves()) {
+            json.value(v.name());
+        }
+        json.endArray().name("outDegreeHistogram").beginArray();
+        for (int count : outDegreeHistogram()) {
+            json.value(count);
+        }
+        json.endArray().name("inDegreeHistogram").beginArray();
+        for (int count : inDegreeHistogram()) {
+            json.value(count);
+        }
+        json.endArray().name("nodes").beginArray();
+        for (int v : byName()) {
+            json.beginObject()
+                    .name("name").value(index.vertex(v).name())
+                    .name("out").value(outDegree[v])
+                    .name("in").value(inDegree[v])
+                    .name("depth").value(depth[v])
+                    .name("rank").value(rank[v])
+                    .endObject();
+        }
+        return json.endArray().endObject();
+    }
+
+    /** Returns the metrics as a JSON object (see {@link #write}). */
+    public String toJson() {
+        return write(new JsonWriter()).toString();
+    }
+
+    /**
+     * Returns a style that fills each procedure with a shade of red
+     * proportional to its rank, so the most central procedures stand out
+     * when the graph is rendered by
+     * {@link PieAnalyzer#exportGraph(Digraph, String, String, GraphStyle)}.
+     * Procedures not in the graph these metrics were computed for are grey.
+     */
+    public GraphStyle heatmap() {
+        double max = 0;
+        for (double r : rank) {
+            max = Math.max(max, r);
+        }
+        double top = max;
+        return new GraphStyle() {
+            @Override public Attributes<? extends ForNode> node(ProcNode v) {
+                int id = index.idOf(v);
+                if (id < 0) {
+                    return Attributes.attrs(Shape.TRIANGLE, Style.FILLED, Color.GREY70);
+                }
+                // square root, so the long tail of rarely called procedures is not all white
+                double heat = top == 0 ? 0 : Math.sqrt(rank[id] / top);
+                return Attributes.attrs(Shape.TRIANGLE, Style.FILLED, Color.hsv(0, 0.1 + 0.9 * heat, 1));
+            }
+        };
+    }
+
+    private int id(ProcNode v) {
+        int id = index.idOf(v);
+        if (id < 0) {
+            throw new IllegalArgumentException("vertex: " + v + " not present");
+        }
+        return id;
+    }
+
+    private static int[] histogram(int[] degree) {
+        int max = 0;
+        for (int d : degree) {
+            max = Math.max(max, d);
+        }
+        int[] histogram = new int[max + 1];
+        for (int d : degree) {
+            histogram[d]++;
+        }
+        return histogram;
+    }
+
+    /** Returns the vertices whose only edges in {@code degree}'s direction are self-calls. */
+    private List<ProcNode> select(int[] degree) {
+        List<ProcNode> result = new ArrayList<>();
+        for (int v = 0; v < degree.length; v++) {
+            if (degree[v] == (selfCall[v] ? 1 : 0)) {
+                result.add(index.vertex(v));
+            }
+        }
+        result.sort(Comparator.comparing(ProcNode::name));
+        return result;
+    }
+
+    private int[] byName() {
+        return IntStream.range(0, index.size()).boxed()
+                .sorted(Comparator.comparing(v -> index.vertex(v).name()))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Fills {@code rank} by power iteration, pulling each vertex's new rank
+     * from its callers ({@code start}/{@code callers}), and returns the
+     * number of steps taken. The rank of leaves is spread over all vertices.
+     */
+    private static int rank(int n, int[] outDegree, int[] start, int[] callers, double[] rank) {
+        if (n == 0) {
+            return 0;
+        }
+        boolean parallel = n >= PARALLEL_THRESHOLD;
+        double[] share = new double[n];
+        double[] next = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        double[] current = rank;
+        int step = 0;
+        while (step < MAX_ITERATIONS) {
+            step++;
+            double[] r = current;
+            forEach(n, parallel, u -> share[u] = outDegree[u] == 0 ? 0 : r[u] / outDegree[u]);
+            double dangling = sum(n, parallel, u -> outDegree[u] == 0 ? r[u] : 0);
+            double base = (1 - DAMPING) / n + DAMPING * dangling / n;
+            double[] out = current == rank ? next : rank;
+            forEach(n, parallel, v -> {
+                double s = 0;
+                for (int e = start[v]; e < start[v + 1]; e++) {
+                    s += share[callers[e]];
+                }
+                out[v] = base + DAMPING * s;
+            });
+            double delta = sum(n, parallel, v -> Math.abs(out[v] - r[v]));
+            current = out;
+            if (delta < TOLERANCE) {
+                break;
+            }
+        }
+        if (current != rank) {
+            System.arraycopy(current, 0, rank, 0, n);
+        }
+        return step;
+    }
+
+    private static void forEach(int n, boolean parallel, IntConsumer body) {
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(body);
+        } else {
+            for (int i = 0; i < n; i++) {
+                body.accept(i);
+            }
+        }
+    }
+
+    private static double sum(int n, boolean parallel, IntToDoubleFunction term) {
+        if (parallel) {
+            return IntStream.range(0, n).parallel().mapToDouble(term).sum();
+        }
+        double s = 0;
+        for (int i = 0; i < n; i++) {
+            s += term.applyAsDouble(i);
+        }
+        return s;
+    }
+}
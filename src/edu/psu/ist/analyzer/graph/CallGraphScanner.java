@@ -0,0 +1,137 @@
+package edu.psu.ist.analyzer.graph;
+
+import antlr4.PiethonTokens;
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import edu.psu.ist.analyzer.PieGraphBuildingListener;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Extracts a call graph straight from the token stream of a script, without
+ * parsing or checking it.
+ * <p>
+ * A small state machine recognizes the two patterns that contribute to the
+ * graph: a procedure header {@code def ID (}, which adds a vertex, and a
+ * call statement {@code ID ( ... ) ;} in a procedure body, which adds an
+ * edge from the enclosing procedure. Since Piethon has no call
+ * expressions, these are the only places calls occur. For a well-formed
+ * script the result equals the graph built by
+ * {@link PieGraphBuildingListener}; for a broken one it is a best effort:
+ * every {@code def} starts a new procedure and every {@code end} closes the
+ * current one, whatever came before. Lexical errors are ignored.
+ * <p>
+ * Skipping the parser (and its parse tree) makes this several times faster
+ * than {@link edu.psu.ist.analyzer.PieChecker#analyze}, for clients that
+ * only need the edges.
+ */
+public final class CallGraphScanner {
+
+    private enum State {
+        /** Between procedures. */
+        OUTSIDE,
+        /** After {@code def}, expecting the procedure name. */
+        DEF_NAME,
+        /** After {@code def ID}, expecting {@code (}. */
+        DEF_OPEN,
+        /** In a procedure header, up to {@code is}. */
+        HEADER,
+        /** At the start of a statement (or var definition) in a body. */
+        STATEMENT,
+        /** After an identifier starting a statement: a call if {@code (} follows. */
+        CALL_OPEN,
+        /** Inside the argument list of a call. */
+        CALL_ARGS,
+        /** After a call's {@code )}, expecting {@code ;}. */
+        CALL_CLOSE,
+        /** In any other statement, up to its {@code ;}. */
+        OTHER
+    }
+
+    private CallGraphScanner() {
+    }
+
+    /** Returns the call graph of {@code source}. */
+    public static Digraph<ProcNode> scan(TextInput source) {
+        return scan(CharStreams.fromString(source.text(), source.name()));
+    }
+
+    /** Returns the call graph of the script read from {@code chars}. */
+    public static Digraph<ProcNode> scan(CharStream chars) {
+        var lexer = new PiethonLexer(chars);
+        lexer.removeErrorListeners();
+
+        var graph = new Digraph<ProcNode>();
+        State state = State.OUTSIDE;
+        ProcNode current = null;
+        String pendingName = null; // a def's name, or a possible callee
+        for (Token t = lexer.nextToken(); t.getType() != Token.EOF; t = lexer.nextToken()) {
+            if (t.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            int type = t.getType();
+            if (type == PiethonTokens.DEF) {
+                current = null;
+                state = State.DEF_NAME;
+                continue;
+            }
+            if (type == PiethonTokens.END) {
+                current = null;
+                state = State.OUTSIDE;
+                continue;
+            }
+            state = switch (state) {
+                case OUTSIDE -> State.OUTSIDE;
+                case DEF_NAME -> {
+                    if (type != PiethonLexer.ID) {
+                        yield State.OUTSIDE;
+                    }
+                    pendingName = t.getText();
+                    yield State.DEF_OPEN;
+                }
+                case DEF_OPEN -> {
+                    if (type != PiethonTokens.LPAREN) {
+                        yield State.OUTSIDE;
+                    }
+                    current = new ProcNode(pendingName);
+                    graph.add(current);
+                    yield State.HEADER;
+                }
+                case HEADER -> type == PiethonTokens.IS ? State.STATEMENT : State.HEADER;
+                case STATEMENT -> {
+                    if (type == PiethonLexer.ID) {
+                        pendingName = t.getText();
+                        yield State.CALL_OPEN;
+                    }
+                    yield type == PiethonTokens.SEMI ? State.STATEMENT : State.OTHER;
+                }
+                case CALL_OPEN -> type == PiethonTokens.LPAREN ? State.CALL_ARGS
+                        : type == PiethonTokens.SEMI ? State.STATEMENT : State.OTHER;
+                case CALL_ARGS -> type == PiethonTokens.RPAREN ? State.CALL_CLOSE
+                        : type == PiethonTokens.SEMI ? State.STATEMENT : State.CALL_ARGS;
+                case CALL_CLOSE -> {
+                    if (type != PiethonTokens.SEMI) {
+                        yield State.OTHER;
+                    }
+                    addCall(graph, current, pendingName);
+                    yield State.STATEMENT;
+                }
+                case OTHER -> type == PiethonTokens.SEMI ? State.STATEMENT : State.OTHER;
+            };
+        }
+        return graph;
+    }
+
+    /** Adds a call the way {@link PieGraphBuildingListener#enterCallStmt} does. */
+    private static void addCall(Digraph<ProcNode> graph, ProcNode caller, String calleeName) {
+        ProcNode callee = graph.getVertex(calleeName);
+        if (callee == null) {
+            callee = new ProcNode(calleeName);
+            graph.add(callee);
+        }
+        graph.add(caller, callee);
+    }
+}
@@ -0,0 +1,248 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The condensation of a {@link Digraph}: its strongly connected components,
+ * and the acyclic graph of calls between them, grouped into levels for
+ * bottom-up processing.
+ * <p>
+ * Components are found by an iterative Tarjan's algorithm (so deep call
+ * chains cannot overflow the stack) and numbered callees first: every
+ * successor of a component has a smaller number. A component's
+ * <em>level</em> is 0 if it calls no other component, and otherwise one
+ * more than the highest level among those it calls; the components of one
+ * level never call each other, so they can be processed in parallel once
+ * every lower level is done. All of this takes time linear in the size of
+ * the graph.
+ *
+ * @param <V> the type for vertices.
+ */
+public final class Condensation<V> {
+
+    private final VertexIndex<V> index;
+    private final int[] component;
+    private final int[][] members;
+    private final int[][] successors;
+    private final boolean[] cyclic;
+    private final int[] level;
+    private final int[][] levels;
+
+    private Condensation(VertexIndex<V> index, int[] component, int[][] members, int[][] successors,
+                         boolean[] cyclic, int[] level, int[][] levels) {
+        this.index = index;
+        this.component = component;
+        this.members = members;
+        this.successors = successors;
+        this.cyclic = cyclic;
+        this.level = level;
+        this.levels = levels;
+    }
+
+    /** Computes the condensation of {@code g} (whose edge targets count as vertices). */
+    public static <V> Condensation<V> of(Digraph<V> g) {
+        VertexIndex<V> index = VertexIndex.of(g);
+        Csr.Edges edges = Csr.Edges.distinct(g, index);
+        return of(index, Csr.of(index.size(), edges.from(), edges.to(), true));
+    }
+
+    /** Computes the condensation of the graph {@code down} between the vertices of {@code index}. */
+    static <V> Condensation<V> of(VertexIndex<V> index, Csr down) {
+        int n = index.size();
+        int[] start = down.start();
+        int[] targets = down.targets();
+        boolean[] selfLoop = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            for (int e = start[v]; e < start[v + 1]; e++) {
+                selfLoop[v] |= targets[e] == v;
+            }
+        }
+
+        int[] component = new int[n];
+        int count = tarjan(n, start, targets, component);
+
+        // members, grouped by component
+        int[] memberStart = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            memberStart[component[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        int[] fill = Arrays.copyOf(memberStart, count);
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            order[fill[component[v]]++] = v;
+        }
+
+        // distinct successor components and levels, callees first
+        int[][] members = new int[count][];
+        int[][] successors = new int[count][];
+        boolean[] cyclic = new boolean[count];
+        int[] level = new int[count];
+        int[] lastSeen = new int[count];
+        Arrays.fill(lastSeen, -1);
+        int[] scratch = new int[count];
+        int levelCount = 0;
+        for (int c = 0; c < count; c++) {
+            members[c] = Arrays.copyOfRange(order, memberStart[c], memberStart[c + 1]);
+            cyclic[c] = members[c].length > 1 || selfLoop[members[c][0]];
+            int k = 0;
+            int l = 0;
+            for (int v : members[c]) {
+                for (int e = start[v]; e < start[v + 1]; e++) {
+                    int d = component[targets[e]];
+                    if (d != c && lastSeen[d] != c) {
+                        lastSeen[d] = c;
+                        scratch[k++] = d;
+                        l = Math.max(l, level[d] + 1);
+                    }
+                }
+            }
+            successors[c] = Arrays.copyOf(scratch, k);
+            level[c] = l;
+            levelCount = Math.max(levelCount, l + 1);
+        }
+
+        int[] levelStart = new int[levelCount + 1];
+        for (int c = 0; c < count; c++) {
+            levelStart[level[c] + 1]++;
+        }
+        int[][] levels = new int[levelCount][];
+        for (int l = 0; l < levelCount; l++) {
+            levels[l] = new int[levelStart[l + 1]];
+            levelStart[l + 1] = 0;
+        }
+        for (int c = 0; c < count; c++) {
+            levels[level[c]][levelStart[level[c] + 1]++] = c;
+        }
+        return new Condensation<>(index, component, members, successors, cyclic, level, levels);
+    }
+
+    /** Returns the number of strongly connected components. */
+    public int componentCount() {
+        return members.length;
+    }
+
+    /**
+     * Returns the component of {@code v}.
+     *
+     * @throws IllegalArgumentException if {@code v} is not in the graph.
+     */
+    public int componentOf(V v) {
+        int id = index.idOf(v);
+        if (id < 0) {
+            throw new IllegalArgumentException("vertex: " + v + " not present");
+        }
+        return component[id];
+    }
+
+    /** Returns the component of the vertex with id {@code id} in the index this was built over. */
+    int componentOfId(int id) {
+        return component[id];
+    }
+
+    /** Returns the vertices of component {@code c}. */
+    public List<V> members(int c) {
+        int[] ids = members[c];
+        return new AbstractList<>() {
+            @Override public V get(int i) {
+                return index.vertex(ids[i]);
+            }
+
+            @Override public int size() {
+                return ids.length;
+            }
+        };
+    }
+
+    /** Returns the (distinct) components that component {@code c} has edges to, other than itself. */
+    public int[] successors(int c) {
+        return successors[c].clone();
+    }
+
+    /** Returns {@code true} if component {@code c} has a cycle: several vertices, or a self-loop. */
+    public boolean isCyclic(int c) {
+        return cyclic[c];
+    }
+
+    /** Returns the level of component {@code c}. */
+    public int level(int c) {
+        return level[c];
+    }
+
+    /** Returns the number of levels (one more than the highest level). */
+    public int levelCount() {
+        return levels.length;
+    }
+
+    /** Returns the components at level {@code l}. */
+    public int[] componentsAtLevel(int l) {
+        return levels[l].clone();
+    }
+
+    /**
+     * Numbers the strongly connected components of the graph
+     * {@code start}/{@code targets} into {@code component}, callees first,
+     * and returns their number.
+     */
+    private static int tarjan(int n, int[] start, int[] targets, int[] component) {
+        int[] number = new int[n];
+        int[] low = new int[n];
+        int[] cursor = new int[n];
+        int[] path = new int[n];
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(number, -1);
+        int counter = 0;
+        int count = 0;
+        int sp = 0;
+        for (int root = 0; root < n; root++) {
+            if (number[root] != -1) {
+                continue;
+            }
+            int top = 0;
+            number[root] = low[root] = counter++;
+            cursor[root] = start[root];
+            stack[sp++] = root;
+            onStack[root] = true;
+            path[top++] = root;
+            while (top > 0) {
+                int v = path[top - 1];
+                if (cursor[v] < start[v + 1]) {
+                    int w = targets[cursor[v]++];
+                    if (number[w] == -1) {
+                        number[w] = low[w] = counter++;
+                        cursor[w] = start[w];
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        path[top++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], number[w]);
+                    }
+                    continue;
+                }
+                top--;
+                if (top > 0) {
+                    int parent = path[top - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == number[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
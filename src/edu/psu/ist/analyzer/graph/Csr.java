@@ -0,0 +1,84 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.LongHashSet;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+
+import java.util.Arrays;
+
+/**
+ * Edges grouped by endpoint (compressed sparse rows): the vertices adjacent
+ * to vertex {@code v} are {@code targets[start[v] .. start[v + 1])}.
+ */
+record Csr(int[] start, int[] targets) {
+
+    /** The edges {@code from[e] -> to[e]} of a graph, between dense vertex ids. */
+    record Edges(int[] from, int[] to) {
+
+        /**
+         * Returns the distinct edges of {@code g}, as in
+         * {@link Digraph#edges()}, ordered by the id of their source in
+         * {@code index} (which must hold every edge target of {@code g}).
+         */
+        static <V> Edges distinct(Digraph<V> g, VertexIndex<V> index) {
+            int n = index.size();
+            var seen = new LongHashSet(n * 2);
+            int[] from = new int[Math.max(16, n)];
+            int[] to = new int[from.length];
+            int m = 0;
+            for (int a = 0; a < n; a++) {
+                V v = index.vertex(a);
+                if (!g.contains(v)) {
+                    continue; // only an edge target
+                }
+                for (V w : g.neighbors(v)) {
+                    int b = index.idOf(w);
+                    if (seen.add((long) a << 32 | b)) {
+                        if (m == from.length) {
+                            from = Arrays.copyOf(from, m * 2);
+                            to = Arrays.copyOf(to, m * 2);
+                        }
+                        from[m] = a;
+                        to[m] = b;
+                        m++;
+                    }
+                }
+            }
+            return new Edges(Arrays.copyOf(from, m), Arrays.copyOf(to, m));
+        }
+
+        int count() {
+            return from.length;
+        }
+    }
+
+    /**
+     * Groups the edges {@code from[e] -> to[e]} between {@code n} vertices by
+     * {@code from}, keeping their order; self-loops are dropped unless
+     * {@code selfLoops}.
+     */
+    static Csr of(int n, int[] from, int[] to, boolean selfLoops) {
+        int[] start = new int[n + 1];
+        for (int e = 0; e < from.length; e++) {
+            if (selfLoops || from[e] != to[e]) {
+                start[from[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] fill = Arrays.copyOf(start, n);
+        int[] targets = new int[start[n]];
+        for (int e = 0; e < from.length; e++) {
+            if (selfLoops || from[e] != to[e]) {
+                targets[fill[from[e]]++] = to[e];
+            }
+        }
+        return new Csr(start, targets);
+    }
+
+    /** Returns the number of vertices adjacent to {@code v}. */
+    int degree(int v) {
+        return start[v + 1] - start[v];
+    }
+}
@@ -0,0 +1,230 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.PieAnalyzer;
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.LongHashSet;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.Pair;
+import edu.psu.ist.analyzer.utils.TextInput;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+import guru.nidi.graphviz.attribute.Attributes;
+import guru.nidi.graphviz.attribute.Color;
+import guru.nidi.graphviz.attribute.ForLink;
+import guru.nidi.graphviz.attribute.ForNode;
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.attribute.Shape;
+import guru.nidi.graphviz.attribute.Style;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The difference between two versions of a call graph: the procedures and
+ * calls that were added or removed going from {@code before} to
+ * {@code after}.
+ * <p>
+ * The diff is computed in time linear in the size of both graphs. Vertices
+ * are interned to dense integer ids and each edge is packed into a single
+ * {@code long} in a {@link LongHashSet}, so no per-edge objects are
+ * allocated except for the edges that actually changed. Edges are compared
+ * as sets (as in {@link Digraph#edges()}), so calling a procedure once more
+ * or less often is not a change.
+ */
+public final class GraphDiff {
+
+    private final Digraph<ProcNode> after;
+    private final List<ProcNode> addedVertices;
+    private final List<ProcNode> removedVertices;
+    private final List<Pair<ProcNode, ProcNode>> addedEdges;
+    private final List<Pair<ProcNode, ProcNode>> removedEdges;
+
+    private GraphDiff(Digraph<ProcNode> after,
+                      List<ProcNode> addedVertices, List<ProcNode> removedVertices,
+                      List<Pair<ProcNode, ProcNode>> addedEdges,
+                      List<Pair<ProcNode, ProcNode>> removedEdges) {
+        this.after = after;
+        this.addedVertices = addedVertices;
+        this.removedVertices = removedVertices;
+        this.addedEdges = addedEdges;
+        this.removedEdges = removedEdges;
+    }
+
+    /**
+     * Diffs the call graphs of two versions of a script. Each script's graph
+     * is built even if it has semantic errors; for a script with syntax
+     * errors it covers the procedures that parsed.
+     */
+    public static GraphDiff between(TextInput before, TextInput after) {
+        return between(graphOf(before), graphOf(after));
+    }
+
+    /** Diffs two call graphs. */
+    public static GraphDiff between(Digraph<ProcNode> before, Digraph<ProcNode> after) {
+        int expectedVertices = before.getVertices().size() + after.getVertices().size();
+        var vertices = new VertexIndex<ProcNode>(expectedVertices);
+        LongHashSet beforeEdges = edgeSet(before, vertices, new BitSet());
+        int beforeVertexCount = vertices.size();
+        BitSet inAfter = new BitSet(expectedVertices);
+        LongHashSet afterEdges = edgeSet(after, vertices, inAfter);
+
+        List<ProcNode> added = new ArrayList<>(
+                vertices.vertices().subList(beforeVertexCount, vertices.size()));
+        List<ProcNode> removed = new ArrayList<>();
+        for (int i = inAfter.nextClearBit(0); i < beforeVertexCount; i = inAfter.nextClearBit(i + 1)) {
+            removed.add(vertices.vertex(i));
+        }
+
+        List<Pair<ProcNode, ProcNode>> addedEdges = new ArrayList<>();
+        afterEdges.forEach(e -> {
+            if (!beforeEdges.contains(e)) {
+                addedEdges.add(decode(e, vertices));
+            }
+        });
+        List<Pair<ProcNode, ProcNode>> removedEdges = new ArrayList<>();
+        beforeEdges.forEach(e -> {
+            if (!afterEdges.contains(e)) {
+                removedEdges.add(decode(e, vertices));
+            }
+        });
+
+        Comparator<ProcNode> byName = Comparator.comparing(ProcNode::name);
+        Comparator<Pair<ProcNode, ProcNode>> byEndpoints =
+                Comparator.comparing((Pair<ProcNode, ProcNode> p) -> p.first(), byName)
+                        .thenComparing(Pair::second, byName);
+        added.sort(byName);
+        removed.sort(byName);
+        addedEdges.sort(byEndpoints);
+        removedEdges.sort(byEndpoints);
+        return new GraphDiff(after, added, removed, addedEdges, removedEdges);
+    }
+
+    public List<ProcNode> addedVertices() {
+        return addedVertices;
+    }
+
+    public List<ProcNode> removedVertices() {
+        return removedVertices;
+    }
+
+    public List<Pair<ProcNode, ProcNode>> addedEdges() {
+        return addedEdges;
+    }
+
+    public List<Pair<ProcNode, ProcNode>> removedEdges() {
+        return removedEdges;
+    }
+
+    /** Returns {@code true} only if both graphs have the same vertices and edges. */
+    public boolean isEmpty() {
+        return addedVertices.isEmpty() && removedVertices.isEmpty()
+                && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    /** Returns a graph holding every vertex and edge of both versions. */
+    public Digraph<ProcNode> union() {
+        var g = new Digraph<ProcNode>();
+        for (ProcNode v : after.getVertices()) {
+            g.add(v);
+            for (ProcNode w : after.neighbors(v)) {
+                g.add(w);
+                g.add(v, w);
+            }
+        }
+        for (ProcNode v : removedVertices) {
+            g.add(v);
+        }
+        for (Pair<ProcNode, ProcNode> e : removedEdges) {
+            g.add(e.second());
+            g.add(e.first(), e.second());
+        }
+        return g;
+    }
+
+    /**
+     * Returns a style that draws added procedures and calls in green, removed
+     * ones in red (dashed), and everything unchanged in grey. Intended to be
+     * used together with {@link #union()}.
+     */
+    public GraphStyle highlighting() {
+        Set<ProcNode> addedV = new HashSet<>(addedVertices);
+        Set<ProcNode> removedV = new HashSet<>(removedVertices);
+        Set<Pair<ProcNode, ProcNode>> addedE = new HashSet<>(addedEdges);
+        Set<Pair<ProcNode, ProcNode>> removedE = new HashSet<>(removedEdges);
+        return new GraphStyle() {
+            @Override public Attributes<? extends ForNode> node(ProcNode v) {
+                if (addedV.contains(v)) {
+                    return Attributes.attrs(Shape.TRIANGLE, Style.FILLED, Color.GREEN3);
+                } else if (removedV.contains(v)) {
+                    return Attributes.attrs(Shape.TRIANGLE, Style.DASHED, Color.RED);
+                }
+                return Attributes.attrs(Shape.TRIANGLE, Style.FILLED, Color.GREY70);
+            }
+
+            @Override public Attributes<? extends ForLink> edge(ProcNode from, ProcNode to) {
+                var e = new Pair<>(from, to);
+                if (addedE.contains(e)) {
+                    return Attributes.attrs(Label.of("added"), Color.GREEN3, Style.BOLD);
+                } else if (removedE.contains(e)) {
+                    return Attributes.attrs(Label.of("removed"), Color.RED, Style.DASHED);
+                }
+                return Attributes.attrs(Label.of("calls"), Color.GREY50);
+            }
+        };
+    }
+
+    /** Renders {@link #union()} highlighted by {@link #highlighting()} to a png. */
+    public void export(PieAnalyzer analyzer, String outputImageName, String graphTitle) {
+        analyzer.exportGraph(union(), outputImageName, graphTitle, highlighting());
+    }
+
+    @Override public String toString() {
+        var s = new StringBuilder();
+        for (ProcNode v : addedVertices) {
+            s.append("+ ").append(v).append('\n');
+        }
+        for (ProcNode v : removedVertices) {
+            s.append("- ").append(v).append('\n');
+        }
+        for (Pair<ProcNode, ProcNode> e : addedEdges) {
+            s.append("+ ").append(e.first()).append(" -> ").append(e.second()).append('\n');
+        }
+        for (Pair<ProcNode, ProcNode> e : removedEdges) {
+            s.append("- ").append(e.first()).append(" -> ").append(e.second()).append('\n');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Interns the vertices of {@code g} into {@code vertices}, marks their ids
+     * in {@code present}, and returns the edges of {@code g}, each packed as
+     * {@code (fromId << 32) | toId}.
+     */
+    private static LongHashSet edgeSet(Digraph<ProcNode> g, VertexIndex<ProcNode> vertices,
+                                       BitSet present) {
+        var edges = new LongHashSet(g.getVertices().size() * 2);
+        for (ProcNode v : g.getVertices()) {
+            int from = vertices.intern(v);
+            present.set(from);
+            for (ProcNode w : g.neighbors(v)) {
+                int to = vertices.intern(w);
+                present.set(to);
+                edges.add((long) from << 32 | to);
+            }
+        }
+        return edges;
+    }
+
+    private static Pair<ProcNode, ProcNode> decode(long edge, VertexIndex<ProcNode> vertices) {
+        return new Pair<>(vertices.vertex((int) (edge >>> 32)), vertices.vertex((int) edge));
+    }
+
+    private static Digraph<ProcNode> graphOf(TextInput source) {
+        return new PieChecker(new Options(true)).analyze(source).graph();
+    }
+}
@@ -0,0 +1,34 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.PieAnalyzer;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import guru.nidi.graphviz.attribute.Attributes;
+import guru.nidi.graphviz.attribute.Color;
+import guru.nidi.graphviz.attribute.ForLink;
+import guru.nidi.graphviz.attribute.ForNode;
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.attribute.Shape;
+import guru.nidi.graphviz.attribute.Style;
+
+/**
+ * Decides how vertices and edges look when a call graph is rendered by
+ * {@link PieAnalyzer#exportGraph(Digraph, String, String, GraphStyle)}.
+ * Override either method to highlight parts of the graph; the defaults give
+ * the look of the plain {@link PieAnalyzer#exportGraph(Digraph, String, String)}.
+ */
+public interface GraphStyle {
+
+    /** The style used by the plain {@code exportGraph}. */
+    GraphStyle DEFAULT = new GraphStyle() {};
+
+    /** Returns the attributes of the node drawn for procedure {@code v}. */
+    default Attributes<? extends ForNode> node(ProcNode v) {
+        return Attributes.attrs(Shape.TRIANGLE, Style.FILLED, Color.BLUE);
+    }
+
+    /** Returns the attributes of the edge drawn for the call {@code from -> to}. */
+    default Attributes<? extends ForLink> edge(ProcNode from, ProcNode to) {
+        return Label.of("calls");
+    }
+}
@@ -0,0 +1,155 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Small, focused views of (potentially huge) call graphs, meant to be handed
+ * to {@code PieAnalyzer.exportGraph} instead of the whole graph so that
+ * rendering time depends on the size of the view rather than the program.
+ * <p>
+ * Every view is an induced subgraph (all edges of the original graph between
+ * the selected vertices) and is capped at {@code maxVertices} vertices before
+ * it is built. Neighborhoods are explored breadth-first from the center, so
+ * the vertices closest to it are kept when the cap is hit.
+ */
+public final class GraphViews {
+
+    /** Which edges a neighborhood follows away from its center. */
+    public enum Direction {
+        /** Follow calls: the procedures the center (transitively) calls. */
+        CALLEES,
+        /** Follow calls backwards: the procedures that (transitively) call the center. */
+        CALLERS,
+        /** Follow calls in both directions. */
+        BOTH
+    }
+
+    private GraphViews() {
+    }
+
+    /**
+     * Returns the subgraph of {@code g} induced by the vertices at most
+     * {@code k} calls away from {@code center} in the given {@code direction},
+     * keeping at most {@code maxVertices} of them.
+     *
+     * @throws IllegalArgumentException if {@code center} is not in {@code g}.
+     */
+    public static <V> Digraph<V> neighborhood(Digraph<V> g, V center, int k,
+                                              Direction direction, int maxVertices) {
+        if (!g.contains(center)) {
+            throw new IllegalArgumentException("vertex: " + center + " not present");
+        }
+        if (k < 0 || maxVertices < 1) {
+            throw new IllegalArgumentException("k must be >= 0 and maxVertices >= 1");
+        }
+        Set<V> selected = new LinkedHashSet<>();
+        Deque<V> frontier = new ArrayDeque<>();
+        selected.add(center);
+        frontier.add(center);
+        for (int hop = 0; hop < k && !frontier.isEmpty(); hop++) {
+            Deque<V> next = new ArrayDeque<>();
+            for (V v : frontier) {
+                if (direction != Direction.CALLERS && g.contains(v)) {
+                    if (!visit(g.neighbors(v), selected, next, maxVertices)) {
+                        return induced(g, selected);
+                    }
+                }
+                if (direction != Direction.CALLEES) {
+                    if (!visit(g.predecessors(v), selected, next, maxVertices)) {
+                        return induced(g, selected);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return induced(g, selected);
+    }
+
+    /** Returns the cone of procedures {@code root} (transitively) calls, up to {@code maxVertices}. */
+    public static <V> Digraph<V> callees(Digraph<V> g, V root, int maxVertices) {
+        return neighborhood(g, root, Integer.MAX_VALUE, Direction.CALLEES, maxVertices);
+    }
+
+    /** Returns the cone of procedures that (transitively) call {@code root}, up to {@code maxVertices}. */
+    public static <V> Digraph<V> callers(Digraph<V> g, V root, int maxVertices) {
+        return neighborhood(g, root, Integer.MAX_VALUE, Direction.CALLERS, maxVertices);
+    }
+
+    /**
+     * Returns the subgraph induced by the {@code n} vertices with the highest
+     * total (in + out) degree. Runs in {@code O(V + E + V log n)}.
+     */
+    public static <V> Digraph<V> topByDegree(Digraph<V> g, int n) {
+        VertexIndex<V> index = VertexIndex.of(g);
+        int[] degree = new int[index.size()];
+        for (V v : g.getVertices()) {
+            int from = index.idOf(v);
+            for (V w : g.neighbors(v)) {
+                degree[from]++;
+                degree[index.idOf(w)]++;
+            }
+        }
+        // min-heap of the best n seen so far (ties broken by id for determinism)
+        PriorityQueue<Integer> best = new PriorityQueue<>((a, b) ->
+                degree[a] != degree[b] ? Integer.compare(degree[a], degree[b]) : Integer.compare(b, a));
+        for (int id = 0; id < degree.length; id++) {
+            best.add(id);
+            if (best.size() > n) {
+                best.poll();
+            }
+        }
+        List<Integer> ids = new ArrayList<>(best);
+        ids.sort((a, b) -> degree[a] != degree[b] ? Integer.compare(degree[b], degree[a]) : Integer.compare(a, b));
+        Set<V> selected = new LinkedHashSet<>();
+        for (int id : ids) {
+            selected.add(index.vertex(id));
+        }
+        return induced(g, selected);
+    }
+
+    /**
+     * Adds the unseen vertices of {@code candidates} to {@code selected} and
+     * {@code next}; returns {@code false} once {@code selected} is full.
+     */
+    private static <V> boolean visit(Collection<V> candidates, Set<V> selected, Deque<V> next,
+                                     int maxVertices) {
+        for (V w : candidates) {
+            if (selected.size() >= maxVertices) {
+                return false;
+            }
+            if (selected.add(w)) {
+                next.add(w);
+            }
+        }
+        return selected.size() < maxVertices;
+    }
+
+    /** Returns the subgraph of {@code g} induced by {@code selected}. */
+    static <V> Digraph<V> induced(Digraph<V> g, Set<V> selected) {
+        var sub = new Digraph<V>();
+        for (V v : selected) {
+            sub.add(v);
+        }
+        for (V v : selected) {
+            if (!g.contains(v)) {
+                continue;
+            }
+            for (V w : g.neighbors(v)) {
+                if (selected.contains(w)) {
+                    sub.add(v, w);
+                }
+            }
+        }
+        return sub;
+    }
+}
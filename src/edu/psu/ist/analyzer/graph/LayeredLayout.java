@@ -0,0 +1,392 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.VertexIndex;
+
+import java.util.Arrays;
+
+/**
+ * A layered (Sugiyama-style) drawing of a {@link Digraph}, computed in pure
+ * Java so that graphs far beyond what graphviz can lay out in reasonable
+ * time can still be drawn (see {@link SvgWriter}).
+ * <p>
+ * The classic four phases are run on primitive arrays indexed by dense
+ * vertex ids:
+ * <ol>
+ *     <li>cycle removal: the back edges of a depth-first search are
+ *     reversed, which makes the graph acyclic;</li>
+ *     <li>layering: every vertex is put one layer past its furthest
+ *     predecessor (longest path from the sources);</li>
+ *     <li>crossing reduction: at most {@code sweeps} alternating down/up
+ *     sweeps reorder each layer by the barycenter of its neighbors, stopping
+ *     early once a sweep changes nothing;</li>
+ *     <li>coordinate assignment: each vertex is pulled towards its neighbors
+ *     while keeping the order and a minimum separation of one slot.</li>
+ * </ol>
+ * Unlike textbook Sugiyama, edges spanning several layers are not split
+ * into chains of dummy vertices (whose number can grow with the product of
+ * edges and layers); they take part in crossing reduction with their far
+ * endpoint instead. The whole layout therefore takes
+ * {@code O((V + E) + sweeps * V log V)} time and {@code O(V + E)} memory.
+ * Self-loops are kept as edges but ignored by the layout.
+ *
+ * @param <V> the type for vertices.
+ */
+public final class LayeredLayout<V> {
+
+    /** Crossing-reduction sweeps used by {@link #of(Digraph)}. */
+    public static final int DEFAULT_SWEEPS = 8;
+
+    private final VertexIndex<V> index;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] layer;
+    private final double[] coordinate;
+    private final int[][] layers;
+    private final int reversedEdges;
+
+    private LayeredLayout(VertexIndex<V> index, int[] edgeFrom, int[] edgeTo, int[] layer,
+                          double[] coordinate, int[][] layers, int reversedEdges) {
+        this.index = index;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.layer = layer;
+        this.coordinate = coordinate;
+        this.layers = layers;
+        this.reversedEdges = reversedEdges;
+    }
+
+    /** Lays out {@code g} with {@link #DEFAULT_SWEEPS} crossing-reduction sweeps. */
+    public static <V> LayeredLayout<V> of(Digraph<V> g) {
+        return of(g, DEFAULT_SWEEPS);
+    }
+
+    /** Lays out {@code g} with at most {@code sweeps} crossing-reduction sweeps. */
+    public static <V> LayeredLayout<V> of(Digraph<V> g, int sweeps) {
+        if (sweeps < 0) {
+            throw new IllegalArgumentException("sweeps must be >= 0");
+        }
+        VertexIndex<V> index = VertexIndex.of(g);
+        int n = index.size();
+
+        Csr.Edges edges = Csr.Edges.distinct(g, index);
+        int[] from = edges.from();
+        int[] to = edges.to();
+        int m = edges.count();
+
+        boolean[] reversed = removeCycles(n, from, to);
+        // the acyclic graph: every edge points from a lower to a higher layer
+        int[] src = new int[m];
+        int[] dst = new int[m];
+        int reversedCount = 0;
+        for (int e = 0; e < m; e++) {
+            src[e] = reversed[e] ? to[e] : from[e];
+            dst[e] = reversed[e] ? from[e] : to[e];
+            if (reversed[e]) {
+                reversedCount++;
+            }
+        }
+        // self-loops are ignored by the layout
+        Csr down = Csr.of(n, src, dst, false);
+        Csr up = Csr.of(n, dst, src, false);
+
+        int[] layer = new int[n];
+        int[] topological = assignLayers(n, down, up, layer);
+        int[][] layers = groupByLayer(layer, topological);
+        reduceCrossings(layers, layer, down, up, sweeps);
+        double[] coordinate = assignCoordinates(layers, down, up);
+        return new LayeredLayout<>(index, from, to, layer, coordinate, layers, reversedCount);
+    }
+
+    /** Returns the number of vertices (ids are {@code 0 .. vertexCount() - 1}). */
+    public int vertexCount() {
+        return index.size();
+    }
+
+    public V vertex(int id) {
+        return index.vertex(id);
+    }
+
+    /** Returns the number of distinct edges, including self-loops. */
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    /** Returns the id of the caller of edge {@code e}. */
+    public int edgeFrom(int e) {
+        return edgeFrom[e];
+    }
+
+    /** Returns the id of the callee of edge {@code e}. */
+    public int edgeTo(int e) {
+        return edgeTo[e];
+    }
+
+    /** Returns the number of edges that point backwards (to the same or an earlier layer) to break cycles. */
+    public int reversedEdgeCount() {
+        return reversedEdges;
+    }
+
+    public int layerCount() {
+        return layers.length;
+    }
+
+    /** Returns the ids of the vertices in layer {@code l}, in drawing order. */
+    public int[] layer(int l) {
+        return layers[l].clone();
+    }
+
+    /** Returns the layer of vertex {@code id}; callers come before their callees. */
+    public int layerOf(int id) {
+        return layer[id];
+    }
+
+    /**
+     * Returns the position of vertex {@code id} along its layer, in slots;
+     * positions are {@code >= 0} and vertices of a layer are at least one
+     * slot apart, in drawing order.
+     */
+    public double coordinate(int id) {
+        return coordinate[id];
+    }
+
+    /** Returns the id of {@code v}, or {@code -1} if it is not in the layout. */
+    public int idOf(V v) {
+        return index.idOf(v);
+    }
+
+    /** Returns which edges must be reversed to make the graph acyclic (the DFS back edges). */
+    private static boolean[] removeCycles(int n, int[] from, int[] to) {
+        int m = from.length;
+        // out-edges by id, so that back edges can be flagged per edge
+        int[] start = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            start[from[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] fill = Arrays.copyOf(start, n);
+        int[] edges = new int[m];
+        for (int e = 0; e < m; e++) {
+            edges[fill[from[e]]++] = e;
+        }
+
+        boolean[] reversed = new boolean[m];
+        byte[] state = new byte[n]; // 0 = unvisited, 1 = on the stack, 2 = done
+        int[] cursor = new int[n];
+        int[] stack = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            state[root] = 1;
+            cursor[root] = start[root];
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (cursor[v] == start[v + 1]) {
+                    state[v] = 2;
+                    top--;
+                    continue;
+                }
+                int e = edges[cursor[v]++];
+                int w = to[e];
+                if (state[w] == 1) {
+                    reversed[e] = w != v; // self-loops are ignored by the layout
+                } else if (state[w] == 0) {
+                    state[w] = 1;
+                    cursor[w] = start[w];
+                    stack[top++] = w;
+                }
+            }
+        }
+        return reversed;
+    }
+
+    /**
+     * Puts each vertex one layer past its furthest predecessor in the
+     * acyclic graph {@code down}, returning the vertices in topological order.
+     */
+    private static int[] assignLayers(int n, Csr down, Csr up, int[] layer) {
+        int[] remaining = new int[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            remaining[v] = up.start()[v + 1] - up.start()[v];
+            if (remaining[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int i = down.start()[v]; i < down.start()[v + 1]; i++) {
+                int w = down.targets()[i];
+                layer[w] = Math.max(layer[w], layer[v] + 1);
+                if (--remaining[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return queue;
+    }
+
+    private static int[][] groupByLayer(int[] layer, int[] order) {
+        int count = 0;
+        for (int l : layer) {
+            count = Math.max(count, l + 1);
+        }
+        int[] sizes = new int[count];
+        for (int l : layer) {
+            sizes[l]++;
+        }
+        int[][] layers = new int[count][];
+        for (int l = 0; l < count; l++) {
+            layers[l] = new int[sizes[l]];
+        }
+        int[] fill = new int[count];
+        for (int v : order) {
+            layers[layer[v]][fill[layer[v]]++] = v;
+        }
+        return layers;
+    }
+
+    /**
+     * Alternately sweeps down (ordering each layer by the barycenter of its
+     * predecessors) and up (by the barycenter of its successors).
+     */
+    private static void reduceCrossings(int[][] layers, int[] layer, Csr down, Csr up, int sweeps) {
+        int n = layer.length;
+        double[] position = new double[n];
+        for (int[] vertices : layers) {
+            center(vertices, position);
+        }
+        for (int sweep = 0; sweep < sweeps; sweep++) {
+            boolean changed = false;
+            if (sweep % 2 == 0) {
+                for (int l = 1; l < layers.length; l++) {
+                    changed |= reorder(layers[l], up, position);
+                }
+            } else {
+                for (int l = layers.length - 2; l >= 0; l--) {
+                    changed |= reorder(layers[l], down, position);
+                }
+            }
+            if (!changed && sweep > 0) {
+                break;
+            }
+        }
+    }
+
+    /** Positions {@code vertices} at consecutive slots centered on zero. */
+    private static void center(int[] vertices, double[] position) {
+        double offset = (vertices.length - 1) / 2.0;
+        for (int i = 0; i < vertices.length; i++) {
+            position[vertices[i]] = i - offset;
+        }
+    }
+
+    /**
+     * Stably sorts {@code vertices} by the barycenter of their neighbors in
+     * {@code adjacent} (vertices without neighbors keep their position).
+     * Returns {@code true} if the order changed.
+     */
+    private static boolean reorder(int[] vertices, Csr adjacent, double[] position) {
+        long[] keys = new long[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            int v = vertices[i];
+            int begin = adjacent.start()[v];
+            int end = adjacent.start()[v + 1];
+            double barycenter = position[v];
+            if (end > begin) {
+                double sum = 0;
+                for (int j = begin; j < end; j++) {
+                    sum += position[adjacent.targets()[j]];
+                }
+                barycenter = sum / (end - begin);
+            }
+            keys[i] = (long) sortable((float) barycenter) << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] before = vertices.clone();
+        boolean changed = false;
+        for (int i = 0; i < vertices.length; i++) {
+            int from = (int) keys[i];
+            vertices[i] = before[from];
+            changed |= from != i;
+        }
+        center(vertices, position);
+        return changed;
+    }
+
+    /** Maps {@code f} to an int with the same ordering (as signed ints). */
+    private static int sortable(float f) {
+        int bits = Float.floatToIntBits(f);
+        return bits ^ (bits >> 31 & 0x7fffffff);
+    }
+
+    /**
+     * Pulls each vertex towards the mean coordinate of its predecessors
+     * (going down) and then of its successors (going up), keeping the order
+     * of each layer and at least one slot between neighbors.
+     */
+    private static double[] assignCoordinates(int[][] layers, Csr down, Csr up) {
+        int n = down.start().length - 1;
+        double[] coordinate = new double[n];
+        for (int[] vertices : layers) {
+            center(vertices, coordinate);
+        }
+        double[] desired = new double[0];
+        for (int l = 1; l < layers.length; l++) {
+            desired = place(layers[l], up, coordinate, desired);
+        }
+        for (int l = layers.length - 2; l >= 0; l--) {
+            desired = place(layers[l], down, coordinate, desired);
+        }
+        double min = Double.POSITIVE_INFINITY;
+        for (double c : coordinate) {
+            min = Math.min(min, c);
+        }
+        for (int v = 0; v < n; v++) {
+            coordinate[v] -= min;
+        }
+        return coordinate;
+    }
+
+    /**
+     * Moves the vertices of one layer as close as possible to the mean of
+     * their neighbors in {@code adjacent}: the average of the packed-left and
+     * packed-right placements, both of which respect the order and the
+     * minimum separation (so their average does too).
+     */
+    private static double[] place(int[] vertices, Csr adjacent, double[] coordinate, double[] scratch) {
+        int k = vertices.length;
+        double[] desired = scratch.length >= k ? scratch : new double[k];
+        for (int i = 0; i < k; i++) {
+            int v = vertices[i];
+            int begin = adjacent.start()[v];
+            int end = adjacent.start()[v + 1];
+            if (end > begin) {
+                double sum = 0;
+                for (int j = begin; j < end; j++) {
+                    sum += coordinate[adjacent.targets()[j]];
+                }
+                desired[i] = sum / (end - begin);
+            } else {
+                desired[i] = coordinate[v];
+            }
+        }
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < k; i++) {
+            previous = Math.max(desired[i], previous + 1);
+            coordinate[vertices[i]] = previous;
+        }
+        double next = Double.POSITIVE_INFINITY;
+        for (int i = k - 1; i >= 0; i--) {
+            next = Math.min(desired[i], next - 1);
+            coordinate[vertices[i]] = (coordinate[vertices[i]] + next) / 2;
+        }
+        return desired;
+    }
+}
@@ -0,0 +1,211 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A read-only view of a call graph file written by {@link CallGraphFile}.
+ * <p>
+ * Opening a file only reads its header and memory-maps its sections, so it
+ * takes constant time regardless of the size of the graph; the OS pages data
+ * in as queries touch it. Vertices are addressed either by {@link ProcNode}
+ * (resolved by binary search over the sorted name table) or directly by their
+ * integer id in {@code [0, vertexCount())}.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class MappedCallGraph {
+
+    private final int vertexCount;
+    private final int edgeCount;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer nameBytes;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+
+    private MappedCallGraph(int vertexCount, int edgeCount,
+                            IntBuffer nameOffsets, ByteBuffer nameBytes,
+                            IntBuffer outOffsets, IntBuffer outTargets,
+                            IntBuffer inOffsets, IntBuffer inSources) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.nameOffsets = nameOffsets;
+        this.nameBytes = nameBytes;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Memory-maps the call graph file at {@code file}.
+     *
+     * @throws IOException if the file can't be read, isn't a call graph file,
+     *                     or was written by an unsupported version.
+     */
+    public static MappedCallGraph open(Path file) throws IOException {
+        // mappings stay valid after the channel that created them is closed
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < CallGraphFile.HEADER_BYTES) {
+                throw new IOException("not a call graph file: " + file);
+            }
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0,
+                    CallGraphFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != CallGraphFile.MAGIC) {
+                throw new IOException("not a call graph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != CallGraphFile.VERSION) {
+                throw new IOException("unsupported call graph file version: " + version);
+            }
+            int vertexCount = header.getInt();
+            int edgeCount = header.getInt();
+            long nameOffsetsPos = header.getLong();
+            long nameBytesPos = header.getLong();
+            long outOffsetsPos = header.getLong();
+            long outTargetsPos = header.getLong();
+            long inOffsetsPos = header.getLong();
+            long inSourcesPos = header.getLong();
+            long end = inSourcesPos + (long) edgeCount * Integer.BYTES;
+            if (vertexCount < 0 || edgeCount < 0 || end != size) {
+                throw new IOException("corrupt call graph file: " + file);
+            }
+            return new MappedCallGraph(vertexCount, edgeCount,
+                    ints(ch, nameOffsetsPos, vertexCount + 1),
+                    ch.map(FileChannel.MapMode.READ_ONLY, nameBytesPos, outOffsetsPos - nameBytesPos),
+                    ints(ch, outOffsetsPos, vertexCount + 1),
+                    ints(ch, outTargetsPos, edgeCount),
+                    ints(ch, inOffsetsPos, vertexCount + 1),
+                    ints(ch, inSourcesPos, edgeCount));
+        }
+    }
+
+    private static IntBuffer ints(FileChannel ch, long pos, int count) throws IOException {
+        return ch.map(FileChannel.MapMode.READ_ONLY, pos, (long) count * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /** Returns the name of the procedure with the given vertex {@code id}. */
+    public String name(int id) {
+        int start = nameOffsets.get(id);
+        byte[] bytes = new byte[nameOffsets.get(id + 1) - start];
+        nameBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the vertex id of the procedure named {@code name}, or {@code -1}
+     * if this graph has no such procedure.
+     */
+    public int idOf(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = vertexCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compareName(mid, key);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns {@code true} only if this graph contains {@code vertex}. */
+    public boolean contains(ProcNode vertex) {
+        return idOf(vertex.name()) >= 0;
+    }
+
+    public int outDegree(int id) {
+        return outOffsets.get(id + 1) - outOffsets.get(id);
+    }
+
+    public int inDegree(int id) {
+        return inOffsets.get(id + 1) - inOffsets.get(id);
+    }
+
+    /** Returns the <em>out-degree</em> of {@code vertex} (0 if absent). */
+    public int outDegree(ProcNode vertex) {
+        int id = idOf(vertex.name());
+        return id < 0 ? 0 : outDegree(id);
+    }
+
+    /** Returns the <em>in-degree</em> of {@code vertex} (0 if absent). */
+    public int inDegree(ProcNode vertex) {
+        int id = idOf(vertex.name());
+        return id < 0 ? 0 : inDegree(id);
+    }
+
+    /** Returns the {@code i}th (0-based) callee of the vertex with id {@code id}. */
+    public int neighbor(int id, int i) {
+        return outTargets.get(outOffsets.get(id) + i);
+    }
+
+    /** Returns the {@code i}th (0-based) caller of the vertex with id {@code id}. */
+    public int predecessor(int id, int i) {
+        return inSources.get(inOffsets.get(id) + i);
+    }
+
+    /**
+     * Returns a (lazy) list of the procedures {@code vertex} calls.
+     *
+     * @throws IllegalArgumentException if {@code vertex} is not present.
+     */
+    public List<ProcNode> neighbors(ProcNode vertex) {
+        int id = idOf(vertex.name());
+        if (id < 0) {
+            throw new IllegalArgumentException("vertex: " + vertex + " not present");
+        }
+        int degree = outDegree(id);
+        return new AbstractList<>() {
+            @Override public ProcNode get(int i) {
+                if (i < 0 || i >= degree) {
+                    throw new IndexOutOfBoundsException(i);
+                }
+                return new ProcNode(name(neighbor(id, i)));
+            }
+
+            @Override public int size() {
+                return degree;
+            }
+        };
+    }
+
+    /** Compares the name of vertex {@code id} with {@code key} (unsigned byte order). */
+    private int compareName(int id, byte[] key) {
+        int start = nameOffsets.get(id);
+        int len = nameOffsets.get(id + 1) - start;
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int c = Byte.compareUnsigned(nameBytes.get(start + i), key[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(len, key.length);
+    }
+}
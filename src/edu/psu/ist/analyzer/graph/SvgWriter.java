@@ -0,0 +1,131 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams a {@link LayeredLayout} to SVG, one element per vertex and edge,
+ * without building a document in memory. Layers run left to right (like the
+ * {@code rankdir=LR} graphs of {@code PieAnalyzer.exportGraph}); each layer
+ * is as wide as its longest label.
+ */
+public final class SvgWriter {
+
+    private static final int MARGIN = 20;
+    private static final int NODE_HEIGHT = 28;
+    private static final int SLOT = NODE_HEIGHT + 14;
+    private static final int LAYER_GAP = 90;
+    private static final int CHAR_WIDTH = 7;
+    private static final int MIN_NODE_WIDTH = 40;
+
+    private SvgWriter() {
+    }
+
+    /** Lays out {@code g} and writes it as an SVG file to {@code output}. */
+    public static void export(Digraph<ProcNode> g, String title, Path output) throws IOException {
+        var layout = LayeredLayout.of(g);
+        try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            write(layout, title, out);
+        }
+    }
+
+    /** Writes {@code layout} to {@code out} (which is not closed). */
+    public static <V> void write(LayeredLayout<V> layout, String title, Writer out) throws IOException {
+        var w = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+        int n = layout.vertexCount();
+        String[] labels = new String[n];
+        int[] nodeWidth = new int[layout.layerCount()];
+        double maxCoordinate = 0;
+        for (int v = 0; v < n; v++) {
+            labels[v] = escape(String.valueOf(layout.vertex(v)));
+            int l = layout.layerOf(v);
+            nodeWidth[l] = Math.max(nodeWidth[l],
+                    Math.max(MIN_NODE_WIDTH, String.valueOf(layout.vertex(v)).length() * CHAR_WIDTH + 24));
+            maxCoordinate = Math.max(maxCoordinate, layout.coordinate(v));
+        }
+        int[] layerX = new int[layout.layerCount()];
+        int x = MARGIN;
+        for (int l = 0; l < layerX.length; l++) {
+            layerX[l] = x;
+            x += nodeWidth[l] + LAYER_GAP;
+        }
+        int width = Math.max(x - LAYER_GAP + MARGIN, 2 * MARGIN);
+        int height = (int) Math.ceil(maxCoordinate) * SLOT + NODE_HEIGHT + 2 * MARGIN + 20;
+
+        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        w.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"0 0 " + width + " " + height + "\" font-family=\"sans-serif\" font-size=\"12\">\n");
+        w.write("<title>" + escape(title) + "</title>\n");
+        w.write("<defs><marker id=\"arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\" markerWidth=\"8\""
+                + " markerHeight=\"8\" orient=\"auto\"><path d=\"M0,0 L10,5 L0,10 z\"/></marker></defs>\n");
+        w.write("<text x=\"" + MARGIN + "\" y=\"" + (MARGIN + 4) + "\" font-size=\"16\">" + escape(title) + "</text>\n");
+
+        w.write("<g fill=\"none\" stroke=\"black\" marker-end=\"url(#arrow)\">\n");
+        for (int e = 0; e < layout.edgeCount(); e++) {
+            int from = layout.edgeFrom(e);
+            int to = layout.edgeTo(e);
+            int fromLayer = layout.layerOf(from);
+            int y1 = centerY(layout, from);
+            int x1 = layerX[fromLayer] + nodeWidth[fromLayer];
+            if (from == to) {
+                w.write("<path d=\"M" + x1 + "," + (y1 - 6) + " c30,-24 30,36 0,12\"/>\n");
+                continue;
+            }
+            int toLayer = layout.layerOf(to);
+            int y2 = centerY(layout, to);
+            if (toLayer > fromLayer) {
+                int x2 = layerX[toLayer];
+                int bend = (x2 - x1) / 2;
+                w.write("<path d=\"M" + x1 + "," + y1 + " C" + (x1 + bend) + "," + y1 + " "
+                        + (x2 - bend) + "," + y2 + " " + x2 + "," + y2 + "\"/>\n");
+            } else {
+                // a call back to an earlier layer (part of a cycle): loop around the right
+                int x2 = layerX[toLayer] + nodeWidth[toLayer];
+                w.write("<path stroke-dasharray=\"4,3\" d=\"M" + x1 + "," + y1 + " C" + (x1 + LAYER_GAP / 2) + ","
+                        + y1 + " " + (x2 + LAYER_GAP / 2) + "," + y2 + " " + x2 + "," + y2 + "\"/>\n");
+            }
+        }
+        w.write("</g>\n");
+
+        w.write("<g fill=\"blue\" stroke=\"black\">\n");
+        for (int v = 0; v < n; v++) {
+            int l = layout.layerOf(v);
+            int left = layerX[l];
+            int right = left + nodeWidth[l];
+            int y = centerY(layout, v);
+            int top = y - NODE_HEIGHT / 2;
+            int bottom = y + NODE_HEIGHT / 2;
+            w.write("<g><polygon points=\"" + left + "," + bottom + " " + (left + right) / 2 + "," + top + " "
+                    + right + "," + bottom + "\"/><text x=\"" + (left + right) / 2 + "\" y=\"" + (bottom - 4)
+                    + "\" text-anchor=\"middle\" fill=\"white\" stroke=\"none\">" + labels[v] + "</text></g>\n");
+        }
+        w.write("</g>\n</svg>\n");
+        w.flush();
+    }
+
+    private static int centerY(LayeredLayout<?> layout, int v) {
+        return MARGIN + 20 + NODE_HEIGHT / 2 + (int) Math.round(layout.coordinate(v) * SLOT);
+    }
+
+    private static String escape(String s) {
+        var b = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<' -> b.append("&lt;");
+                case '>' -> b.append("&gt;");
+                case '&' -> b.append("&amp;");
+                case '"' -> b.append("&quot;");
+                default -> b.append(c);
+            }
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package edu.psu.ist.analyzer.module;
+
+import edu.psu.ist.analyzer.PieType;
+import edu.psu.ist.analyzer.utils.SourceLocation;
+
+import java.util.List;
+
+/**
+ * A call to a procedure not defined (before the call) in the calling file,
+ * left to be linked against the other files of a program.
+ *
+ * @param name          the called procedure.
+ * @param argumentTypes the types of the arguments, {@link PieType#Error} for
+ *                      those that did not type check.
+ * @param loc           the call statement.
+ */
+public record ExternalCall(String name, List<PieType> argumentTypes, SourceLocation loc) {
+
+    public ExternalCall {
+        argumentTypes = List.copyOf(argumentTypes);
+    }
+}
@@ -0,0 +1,29 @@
+package edu.psu.ist.analyzer.module;
+
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+import edu.psu.ist.analyzer.summary.ProcedureFacts;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+import java.util.List;
+
+/**
+ * One file of a multi-file program, analyzed on its own: its errors,
+ * procedures and call graph (the errors exclude those found by linking),
+ * the calls it makes to procedures it does not define, and the facts of
+ * its procedures, for summarizing them (see
+ * {@link edu.psu.ist.analyzer.summary.ProcedureSummarizer}).
+ */
+public record ModuleUnit(TextInput source, PieAnalysis analysis, List<ExternalCall> externalCalls,
+                         List<ProcedureFacts> facts) {
+
+    /** Returns the name of the file. */
+    public String name() {
+        return source.name();
+    }
+
+    /** Returns the procedures defined by the file, in definition order. */
+    public List<SymbolTableEntry.ProcDefEntry> procedures() {
+        return analysis.procedures();
+    }
+}
@@ -0,0 +1,137 @@
+package edu.psu.ist.analyzer.module;
+
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The procedures defined by all files of a program, by name.
+ * <p>
+ * Files are analyzed in parallel and each publishes its procedures as soon
+ * as it is parsed, so the index is split into shards by name, each with its
+ * own lock: a file's procedures are grouped by shard and every shard touched
+ * is locked once, and files whose names land in different shards never
+ * wait for each other.
+ * <p>
+ * A name may be defined by several files; it then resolves to the
+ * definition of the file whose name sorts first, and the others are
+ * duplicates.
+ */
+public final class ProcedureIndex {
+
+    public static final int DEFAULT_SHARDS = 64;
+
+    /** A procedure {@code entry} defined in {@code file}. */
+    public record Definition(String file, SymbolTableEntry.ProcDefEntry entry) {
+    }
+
+    private static final Comparator<Definition> BY_FILE = Comparator.comparing(Definition::file);
+
+    /** The definitions of the names in one shard, each list sorted by file. */
+    private static final class Shard {
+        final Map<String, List<Definition>> byName = new HashMap<>();
+    }
+
+    private final Shard[] shards;
+
+    public ProcedureIndex() {
+        this(DEFAULT_SHARDS);
+    }
+
+    /** @param shards the number of shards, a power of two. */
+    public ProcedureIndex(int shards) {
+        if (shards < 1 || Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("shards must be a power of two");
+        }
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Adds the procedures defined by {@code file}, replacing its earlier
+     * definitions of the same names.
+     */
+    public void publish(String file, Collection<SymbolTableEntry.ProcDefEntry> procedures) {
+        List<List<SymbolTableEntry.ProcDefEntry>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(null);
+        }
+        for (var proc : procedures) {
+            int s = shardOf(proc.name());
+            if (byShard.get(s) == null) {
+                byShard.set(s, new ArrayList<>());
+            }
+            byShard.get(s).add(proc);
+        }
+        for (int s = 0; s < shards.length; s++) {
+            if (byShard.get(s) == null) {
+                continue;
+            }
+            Shard shard = shards[s];
+            synchronized (shard) {
+                for (var proc : byShard.get(s)) {
+                    List<Definition> definitions = shard.byName.computeIfAbsent(proc.name(), n -> new ArrayList<>(1));
+                    definitions.removeIf(d -> d.file().equals(file));
+                    definitions.add(new Definition(file, proc));
+                    definitions.sort(BY_FILE);
+                }
+            }
+        }
+    }
+
+    /** Removes the definitions of {@code names} by {@code file}. */
+    public void retract(String file, Collection<String> names) {
+        for (String name : names) {
+            Shard shard = shards[shardOf(name)];
+            synchronized (shard) {
+                List<Definition> definitions = shard.byName.get(name);
+                if (definitions != null) {
+                    definitions.removeIf(d -> d.file().equals(file));
+                    if (definitions.isEmpty()) {
+                        shard.byName.remove(name);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns the definition {@code name} resolves to, or {@code null} if there is none. */
+    public Definition resolve(String name) {
+        Shard shard = shards[shardOf(name)];
+        synchronized (shard) {
+            List<Definition> definitions = shard.byName.get(name);
+            return definitions == null ? null : definitions.get(0);
+        }
+    }
+
+    /** Returns every definition of {@code name}, sorted by file. */
+    public List<Definition> definitions(String name) {
+        Shard shard = shards[shardOf(name)];
+        synchronized (shard) {
+            return List.copyOf(shard.byName.getOrDefault(name, List.of()));
+        }
+    }
+
+    /** Returns the number of distinct procedure names defined. */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.byName.size();
+            }
+        }
+        return size;
+    }
+
+    private int shardOf(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & (shards.length - 1);
+    }
+}
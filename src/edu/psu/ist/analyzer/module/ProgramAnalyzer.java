@@ -0,0 +1,431 @@
+package edu.psu.ist.analyzer.module;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.PieScriptCheckingListener;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.SymbolKind;
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.summary.ProcedureFacts;
+import edu.psu.ist.analyzer.summary.ProcedureSummarizer;
+import edu.psu.ist.analyzer.summary.ProcedureSummary;
+import edu.psu.ist.analyzer.utils.ConcurrentDigraph;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyzes a program made of many files, in which a procedure may call the
+ * procedures of any file, and keeps the analysis current as files are added,
+ * changed or removed.
+ * <p>
+ * Analysis is in two steps. Each file is first analyzed on its own (in
+ * parallel, see {@link PieChecker#analyzeModule}), publishing its procedures
+ * into a shared {@link ProcedureIndex} as soon as it is parsed; calls to
+ * procedures it does not define are set aside. Once every file is in the
+ * index, the set-aside calls of each file are <em>linked</em>: checked
+ * against the signature they resolve to (or reported as calls to an
+ * unknown procedure), and procedures defined by more than one file are
+ * reported as duplicates. As within a single script, a call to a procedure
+ * that its own file defines further down is an error.
+ * <p>
+ * Linking needs no parse tree, so it is cheap. When a file changes, only
+ * that file is re-parsed, and only the files depending on it are re-linked:
+ * those calling (or also defining) a procedure whose signature it added,
+ * removed or changed.
+ * <p>
+ * All methods are thread-safe; updates are applied one at a time.
+ */
+public final class ProgramAnalyzer {
+
+    private final PieChecker checker;
+    private final int threads;
+    private final ProcedureIndex index = new ProcedureIndex();
+    private final ProcedureSummarizer summarizer;
+
+    private final Map<String, ModuleUnit> units = new HashMap<>();
+    /** The procedure names each file defines. */
+    private final Map<String, Set<String>> defined = new HashMap<>();
+    /** For each procedure name, the files with external calls to it. */
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final Map<String, List<PieErrorMessage>> linkErrors = new HashMap<>();
+
+    /**
+     * @param threads how many files are analyzed (and linked, and procedure
+     *                summaries computed) at a time.
+     */
+    public ProgramAnalyzer(PieChecker checker, int threads) {
+        if (checker == null) {
+            throw new IllegalArgumentException("checker should not be null");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1");
+        }
+        this.checker = checker;
+        this.threads = threads;
+        this.summarizer = new ProcedureSummarizer(threads);
+    }
+
+    /** Returns the index of the procedures of all files. */
+    public ProcedureIndex index() {
+        return index;
+    }
+
+    /**
+     * Adds {@code files} to the program, replacing files of the same names,
+     * and returns the names of the files (re)checked as a result.
+     *
+     * @throws edu.psu.ist.analyzer.utils.CancelledException if the checker's
+     *         cancellation token was cancelled; the program is then left as
+     *         it was.
+     */
+    public synchronized Set<String> addAll(Collection<TextInput> files) {
+        Map<String, TextInput> batch = new LinkedHashMap<>();
+        for (TextInput file : files) {
+            batch.put(file.name(), file);
+        }
+        Map<String, ModuleUnit> analyzed = analyzeAll(batch.values());
+
+        Set<String> changed = new HashSet<>();
+        for (ModuleUnit unit : analyzed.values()) {
+            ModuleUnit old = units.put(unit.name(), unit);
+            Set<String> oldNames = old == null ? Set.of() : defined.get(unit.name());
+            Set<String> newNames = names(unit);
+            Set<String> gone = new HashSet<>(oldNames);
+            gone.removeAll(newNames);
+            index.retract(unit.name(), gone);
+            defined.put(unit.name(), newNames);
+            changed.addAll(changedSignatures(old, unit));
+            if (old != null) {
+                forgetCalls(old);
+            }
+            rememberCalls(unit);
+        }
+        Set<String> affected = new TreeSet<>(analyzed.keySet());
+        affected.addAll(affectedBy(changed));
+        linkAll(affected);
+        return affected;
+    }
+
+    /** Adds or replaces {@code file}; see {@link #addAll}. */
+    public Set<String> update(TextInput file) {
+        return addAll(List.of(file));
+    }
+
+    /**
+     * Removes the file called {@code name} from the program and returns the
+     * names of the files re-checked as a result.
+     */
+    public synchronized Set<String> remove(String name) {
+        ModuleUnit old = units.remove(name);
+        if (old == null) {
+            return Set.of();
+        }
+        Set<String> names = defined.remove(name);
+        index.retract(name, names);
+        forgetCalls(old);
+        linkErrors.remove(name);
+
+        Set<String> affected = new TreeSet<>(affectedBy(names));
+        linkAll(affected);
+        return affected;
+    }
+
+    /** Returns the names of the files in the program, sorted. */
+    public synchronized Set<String> files() {
+        return new TreeSet<>(units.keySet());
+    }
+
+    /**
+     * Returns the errors found in the file called {@code name}: those found
+     * by analyzing it on its own, followed by those found by linking it.
+     *
+     * @throws IllegalArgumentException if there is no such file.
+     */
+    public synchronized List<PieErrorMessage> errors(String name) {
+        ModuleUnit unit = units.get(name);
+        if (unit == null) {
+            throw new IllegalArgumentException("no file named " + name);
+        }
+        List<PieErrorMessage> errors = new ArrayList<>(unit.analysis().errors());
+        errors.addAll(linkErrors.getOrDefault(name, List.of()));
+        return errors;
+    }
+
+    /** Returns the errors of every file that has some, by file name. */
+    public synchronized Map<String, List<PieErrorMessage>> errors() {
+        Map<String, List<PieErrorMessage>> errors = new TreeMap<>();
+        for (String name : units.keySet()) {
+            List<PieErrorMessage> fileErrors = errors(name);
+            if (!fileErrors.isEmpty()) {
+                errors.put(name, fileErrors);
+            }
+        }
+        return errors;
+    }
+
+    /** Returns {@code true} only if no file of the program has errors. */
+    public synchronized boolean isOk() {
+        return errors().isEmpty();
+    }
+
+    /**
+     * Returns the call graph of the whole program: the union of the call
+     * graphs of its files, in which a call to a procedure of another file
+     * is an edge to that procedure. The files' graphs are merged in
+     * parallel into a {@link ConcurrentDigraph}.
+     */
+    public synchronized Digraph<ProcNode> callGraph() {
+        var graph = new ConcurrentDigraph<ProcNode>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ModuleUnit unit : units.values()) {
+            tasks.add(() -> {
+                Digraph<ProcNode> fileGraph = unit.analysis().graph();
+                for (ProcNode v : fileGraph.getVertices()) {
+                    graph.add(v);
+                    for (ProcNode callee : fileGraph.neighbors(v)) {
+                        graph.add(v, callee);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> f : invokeAll(tasks)) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("merging interrupted", e);
+            }
+        }
+        return graph.compact();
+    }
+
+    /**
+     * Returns the summary of every procedure of the program (and of every
+     * procedure it calls without defining), by name. Summaries are cached:
+     * only those of procedures that can reach a procedure changed since the
+     * last call are computed again (see {@link ProcedureSummarizer}). Of
+     * procedures defined by several files, the one of the first file by
+     * name counts, as in {@link ProcedureIndex#resolve}.
+     */
+    public synchronized Map<String, ProcedureSummary> summaries() {
+        List<ProcedureFacts> facts = new ArrayList<>();
+        for (String name : new TreeSet<>(units.keySet())) {
+            facts.addAll(units.get(name).facts());
+        }
+        return summarizer.update(callGraph(), facts);
+    }
+
+    /** Returns how many procedure summaries the last {@link #summaries()} computed again. */
+    public synchronized int recomputedSummaries() {
+        return summarizer.recomputed();
+    }
+
+    /**
+     * Analyzes {@code files} in parallel, publishing each one's procedures
+     * as soon as it is done. If any analysis fails, the published
+     * procedures are withdrawn again (restoring those of replaced files)
+     * before the failure is rethrown.
+     */
+    private Map<String, ModuleUnit> analyzeAll(Collection<TextInput> files) {
+        List<Callable<ModuleUnit>> tasks = new ArrayList<>();
+        for (TextInput file : files) {
+            tasks.add(() -> {
+                ModuleUnit unit = checker.analyzeModule(file);
+                index.publish(unit.name(), unit.procedures());
+                return unit;
+            });
+        }
+        List<ModuleUnit> done = new ArrayList<>();
+        Throwable failure = null;
+        for (Future<ModuleUnit> f : invokeAll(tasks)) {
+            try {
+                done.add(f.get());
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            for (ModuleUnit unit : done) {
+                Set<String> published = new HashSet<>(names(unit));
+                ModuleUnit old = units.get(unit.name());
+                if (old != null) {
+                    index.publish(old.name(), old.procedures());
+                    published.removeAll(defined.get(old.name()));
+                }
+                index.retract(unit.name(), published);
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            if (failure instanceof Error e) {
+                throw e;
+            }
+            throw new IllegalStateException("analysis interrupted", failure);
+        }
+        Map<String, ModuleUnit> analyzed = new LinkedHashMap<>();
+        for (ModuleUnit unit : done) {
+            analyzed.put(unit.name(), unit);
+        }
+        return analyzed;
+    }
+
+    /** Links the files called {@code names}, in parallel. */
+    private void linkAll(Set<String> names) {
+        List<Callable<List<PieErrorMessage>>> tasks = new ArrayList<>();
+        List<String> linked = new ArrayList<>();
+        for (String name : names) {
+            ModuleUnit unit = units.get(name);
+            if (unit != null) {
+                linked.add(name);
+                tasks.add(() -> link(unit));
+            }
+        }
+        List<Future<List<PieErrorMessage>>> results = invokeAll(tasks);
+        for (int i = 0; i < linked.size(); i++) {
+            try {
+                linkErrors.put(linked.get(i), results.get(i).get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("linking interrupted", e);
+            }
+        }
+    }
+
+    /** Returns the errors found by linking {@code unit} against the index. */
+    private List<PieErrorMessage> link(ModuleUnit unit) {
+        List<PieErrorMessage> errors = new ArrayList<>();
+        for (var proc : unit.procedures()) {
+            ProcedureIndex.Definition first = index.resolve(proc.name());
+            if (first != null && !first.file().equals(unit.name())) {
+                errors.add(new SemanticError.DupSymbol(proc.name(), SymbolKind.Procedure, proc.loc()));
+            }
+        }
+        Set<String> own = defined.get(unit.name());
+        for (ExternalCall call : unit.externalCalls()) {
+            ProcedureIndex.Definition target = own.contains(call.name()) ? null : index.resolve(call.name());
+            if (target == null) {
+                errors.add(new SemanticError.NoSuchSymbol(call.name(), call.loc()));
+            } else {
+                PieScriptCheckingListener.checkArguments(target.entry(), call.argumentTypes(),
+                        call.loc(), errors);
+            }
+        }
+        return errors;
+    }
+
+    /** Returns the files to re-link when the signatures of {@code names} changed. */
+    private Set<String> affectedBy(Set<String> names) {
+        Set<String> affected = new HashSet<>();
+        for (String name : names) {
+            affected.addAll(dependents.getOrDefault(name, Set.of()));
+            for (ProcedureIndex.Definition d : index.definitions(name)) {
+                affected.add(d.file()); // duplicates may have appeared or gone
+            }
+        }
+        return affected;
+    }
+
+    private void rememberCalls(ModuleUnit unit) {
+        for (ExternalCall call : unit.externalCalls()) {
+            dependents.computeIfAbsent(call.name(), n -> new HashSet<>()).add(unit.name());
+        }
+    }
+
+    private void forgetCalls(ModuleUnit unit) {
+        for (ExternalCall call : unit.externalCalls()) {
+            Set<String> files = dependents.get(call.name());
+            if (files != null) {
+                files.remove(unit.name());
+                if (files.isEmpty()) {
+                    dependents.remove(call.name());
+                }
+            }
+        }
+    }
+
+    /** Returns the names whose signature differs between the two versions of a file. */
+    private static Set<String> changedSignatures(ModuleUnit old, ModuleUnit unit) {
+        Map<String, SymbolTableEntry.ProcDefEntry> before = new HashMap<>();
+        if (old != null) {
+            for (var proc : old.procedures()) {
+                before.put(proc.name(), proc);
+            }
+        }
+        Set<String> changed = new HashSet<>();
+        for (var proc : unit.procedures()) {
+            var previous = before.remove(proc.name());
+            if (previous == null || !sameSignature(previous, proc)) {
+                changed.add(proc.name());
+            }
+        }
+        changed.addAll(before.keySet()); // no longer defined
+        return changed;
+    }
+
+    private static boolean sameSignature(SymbolTableEntry.ProcDefEntry a, SymbolTableEntry.ProcDefEntry b) {
+        if (a.tpe() != b.tpe() || a.getParameters().size() != b.getParameters().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.getParameters().size(); i++) {
+            if (!Objects.equals(a.getParameters().get(i).tpe(), b.getParameters().get(i).tpe())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> names(ModuleUnit unit) {
+        Set<String> names = new HashSet<>();
+        for (var proc : unit.procedures()) {
+            names.add(proc.name());
+        }
+        return names;
+    }
+
+    private <T> List<Future<T>> invokeAll(List<Callable<T>> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            return pool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package edu.psu.ist.analyzer.render;
+
+/**
+ * Why an {@link ExportJob} submitted to a {@link GraphExporter} failed. Every
+ * future returned by the exporter that completes exceptionally does so with
+ * one of these subclasses (wrapped in a
+ * {@link java.util.concurrent.CompletionException} when joined).
+ */
+public sealed abstract class ExportException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Not serialized: a job holds its (unserializable) graph. */
+    private final transient ExportJob job;
+
+    private ExportException(ExportJob job, String message, Throwable cause) {
+        super(message, cause);
+        this.job = job;
+    }
+
+    /** Returns the job that failed, or {@code null} if this exception was deserialized. */
+    public ExportJob job() {
+        return job;
+    }
+
+    /** The render exceeded the service's timeout. */
+    public static final class TimedOut extends ExportException {
+        private static final long serialVersionUID = 1L;
+
+        TimedOut(ExportJob job, Throwable cause) {
+            super(job, "timed out rendering " + job.outputName(), cause);
+        }
+    }
+
+    /** The graph could not be converted or laid out by the engine. */
+    public static final class RenderFailed extends ExportException {
+        private static final long serialVersionUID = 1L;
+
+        RenderFailed(ExportJob job, Throwable cause) {
+            super(job, "failed to render " + job.outputName() + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /** The image was rendered but could not be written to its output file. */
+    public static final class OutputFailed extends ExportException {
+        private static final long serialVersionUID = 1L;
+
+        OutputFailed(ExportJob job, Throwable cause) {
+            super(job, "failed to write " + job.outputName() + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * A different graph was already being exported to the same output file;
+     * the pending export is left to finish.
+     */
+    public static final class Conflict extends ExportException {
+        private static final long serialVersionUID = 1L;
+
+        Conflict(ExportJob job) {
+            super(job, "another graph is already being exported to " + job.outputName(), null);
+        }
+    }
+
+    /** The exporter was closed before the job could be rendered. */
+    public static final class Rejected extends ExportException {
+        private static final long serialVersionUID = 1L;
+
+        Rejected(ExportJob job, Throwable cause) {
+            super(job, "exporter is closed; dropped " + job.outputName(), cause);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.psu.ist.analyzer.render;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.graph.GraphStyle;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+/**
+ * A request to render the call graph {@code graph}, titled {@code title}, to
+ * the png file {@code outputName} using {@code style}.
+ */
+public record ExportJob(Digraph<ProcNode> graph, String outputName,
+                        String title, GraphStyle style) {
+
+    public ExportJob {
+        if (graph == null || outputName == null || title == null || style == null) {
+            throw new IllegalArgumentException("graph, outputName, title, style should not be null");
+        }
+    }
+
+    /** Creates a job drawn with {@link GraphStyle#DEFAULT}. */
+    public ExportJob(Digraph<ProcNode> graph, String outputName, String title) {
+        this(graph, outputName, title, GraphStyle.DEFAULT);
+    }
+}
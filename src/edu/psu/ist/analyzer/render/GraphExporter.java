@@ -0,0 +1,262 @@
+package edu.psu.ist.analyzer.render;
+
+import edu.psu.ist.analyzer.PieAnalyzer;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.graph.GraphStyle;
+import edu.psu.ist.analyzer.utils.Digraph;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.model.Link;
+import guru.nidi.graphviz.model.MutableGraph;
+import guru.nidi.graphviz.model.MutableNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous, batched counterpart of {@link PieAnalyzer#exportGraph}.
+ * <p>
+ * {@link #export(ExportJob)} returns immediately with a future for the
+ * written file, so analysis of the next script can overlap with rendering of
+ * the previous one. A job's graph is converted to a graphviz graph by
+ * {@code export} itself, so the caller may change it as soon as
+ * {@code export} returns; a single dispatcher thread then hands the graphs
+ * to a {@link RenderService}. The dispatcher queue holds at most
+ * {@code maxPending} jobs; beyond that, {@code export} blocks until the
+ * renderers catch up.
+ * <p>
+ * Jobs are coalesced by output file: exporting an identical graph (same
+ * vertices, edges, title and style) to a file that is still being rendered
+ * returns the pending result instead of rendering it twice, whereas
+ * exporting a different graph to it fails with
+ * {@link ExportException.Conflict}. Graphs are compared by a fingerprint of
+ * their vertices and edges first, and in full only if the fingerprints
+ * match. Failures are always reported as an {@link ExportException}.
+ * <p>
+ * Futures complete on render threads; attach slow continuations with the
+ * {@code *Async} methods of {@link CompletableFuture}.
+ */
+public final class GraphExporter implements AutoCloseable {
+
+    /** Width (in pixels) of exported images, as in {@link PieAnalyzer#exportGraph}. */
+    private static final int EXPORT_WIDTH = 2340;
+
+    private final RenderService service;
+    private final ThreadPoolExecutor dispatcher;
+    private final ConcurrentMap<Path, Pending> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * A job being exported, what it is being compared to when coalescing,
+     * and its render once it has been dispatched.
+     */
+    private record Pending(ExportJob job, Content content, CompletableFuture<Path> result,
+                           AtomicReference<CompletableFuture<Path>> render) {
+    }
+
+    /**
+     * Everything that determines the rendered image of a job: its title and
+     * style, and a graphviz copy of its graph with the graph's fingerprint.
+     */
+    private record Content(String title, GraphStyle style, long fingerprint, MutableGraph graph) {
+
+        /** Keeps an edge from fingerprinting like a vertex. */
+        private static final long EDGE_SALT = 0x9e3779b97f4a7c15L;
+
+        static Content of(ExportJob job) {
+            Digraph<ProcNode> g = job.graph();
+            long fingerprint = 0;
+            for (ProcNode v : g.getVertices()) {
+                fingerprint += mix(v.hashCode());
+                for (ProcNode w : g.neighbors(v)) {
+                    fingerprint += mix((long) v.hashCode() << 32 ^ w.hashCode() ^ EDGE_SALT);
+                }
+            }
+            return new Content(job.title(), job.style(), fingerprint,
+                    PieAnalyzer.toGraphviz(g, job.title(), job.style()));
+        }
+
+        /** Returns {@code true} if this content renders the same image as {@code other}. */
+        boolean sameAs(Content other) {
+            return fingerprint == other.fingerprint
+                    && title.equals(other.title)
+                    && style.equals(other.style)
+                    && elements(graph).equals(elements(other.graph));
+        }
+
+        /** Returns the vertex names and {@code "a -> b"} edges of {@code graph}, sorted. */
+        private static List<String> elements(MutableGraph graph) {
+            List<String> elements = new ArrayList<>();
+            for (MutableNode node : graph.nodes()) {
+                String name = node.name().value();
+                elements.add(name);
+                for (Link link : node.links()) {
+                    elements.add(name + " -> " + link.to().name().value());
+                }
+            }
+            elements.sort(null);
+            return elements;
+        }
+
+        /** Spreads the bits of {@code h} (the finalizer of MurmurHash3). */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            return h ^ h >>> 33;
+        }
+    }
+
+    /**
+     * Creates an exporter that renders on {@code service} (which it does not
+     * close) with up to {@code maxPending} jobs waiting to be dispatched.
+     */
+    public GraphExporter(RenderService service, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be >= 1");
+        }
+        this.service = service;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPending), r -> {
+                    Thread t = new Thread(r, "pie-export-dispatcher");
+                    t.setDaemon(true);
+                    return t;
+                }, (r, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("exporter is closed");
+                    }
+                    try {
+                        executor.getQueue().put(r); // wait for room: backpressure
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Queues {@code job} for rendering.
+     *
+     * @return a future completing with the path of the written png, or
+     * exceptionally with an {@link ExportException}.
+     */
+    public CompletableFuture<Path> export(ExportJob job) {
+        Path output = Paths.get(job.outputName()).toAbsolutePath().normalize();
+        Content content;
+        try {
+            content = Content.of(job);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(new ExportException.RenderFailed(job, e));
+        }
+        var pending = new Pending(job, content, new CompletableFuture<>(), new AtomicReference<>());
+        Pending existing = inFlight.putIfAbsent(output, pending);
+        if (existing != null) {
+            if (!existing.content().sameAs(content)) {
+                return CompletableFuture.failedFuture(new ExportException.Conflict(job));
+            }
+            coalesced.increment();
+            return existing.result().copy();
+        }
+        pending.result().whenComplete((p, e) -> inFlight.remove(output, pending));
+        try {
+            dispatcher.execute(() -> dispatch(pending, output));
+        } catch (RejectedExecutionException e) {
+            pending.result().completeExceptionally(new ExportException.Rejected(job, e));
+        }
+        return pending.result().copy();
+    }
+
+    /**
+     * Queues every job in {@code jobs}; the returned futures are in the same
+     * order. Duplicate jobs within the batch are rendered once.
+     */
+    public List<CompletableFuture<Path>> exportAll(List<ExportJob> jobs) {
+        List<CompletableFuture<Path>> results = new ArrayList<>(jobs.size());
+        for (ExportJob job : jobs) {
+            results.add(export(job));
+        }
+        return results;
+    }
+
+    /** Returns the number of jobs that were served by an identical pending job. */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Stops dispatching; every job that has not finished rendering fails with
+     * {@link ExportException.Rejected}, and its render is cancelled, so no
+     * file is written after this returns. The render service stays open.
+     */
+    @Override public void close() {
+        dispatcher.shutdownNow();
+        var closed = new RejectedExecutionException("exporter is closed");
+        for (Pending p : inFlight.values()) {
+            p.result().completeExceptionally(new ExportException.Rejected(p.job(), closed));
+            cancelRender(p);
+        }
+    }
+
+    private void dispatch(Pending pending, Path output) {
+        ExportJob job = pending.job();
+        CompletableFuture<Path> result = pending.result();
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<Path> render;
+        try {
+            render = service.render(pending.content().graph(), Format.PNG, EXPORT_WIDTH, output);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(failure(job, e));
+            return;
+        }
+        pending.render().set(render);
+        if (result.isDone()) {
+            cancelRender(pending); // closed while this was being submitted
+        }
+        render.whenComplete((path, e) -> {
+            if (e == null) {
+                result.complete(path);
+            } else {
+                result.completeExceptionally(failure(job, e));
+            }
+        });
+    }
+
+    /** Cancels the render of {@code pending}, if it has been dispatched and has not finished. */
+    private static void cancelRender(Pending pending) {
+        CompletableFuture<Path> render = pending.render().get();
+        if (render != null) {
+            render.cancel(true);
+        }
+    }
+
+    /** Maps whatever went wrong while exporting {@code job} to an {@link ExportException}. */
+    private static ExportException failure(ExportJob job, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ExportException ee) {
+            return ee;
+        } else if (cause instanceof RenderTimeoutException) {
+            return new ExportException.TimedOut(job, cause);
+        } else if (cause instanceof IOException || cause instanceof UncheckedIOException) {
+            return new ExportException.OutputFailed(job, cause);
+        } else if (cause instanceof RejectedExecutionException) {
+            return new ExportException.Rejected(job, cause);
+        }
+        return new ExportException.RenderFailed(job, cause);
+    }
+}
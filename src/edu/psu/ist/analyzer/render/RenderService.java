@@ -0,0 +1,370 @@
+package edu.psu.ist.analyzer.render;
+
+import edu.psu.ist.analyzer.utils.LatencyHistogram;
+import edu.psu.ist.analyzer.utils.Options;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.engine.Graphviz;
+import guru.nidi.graphviz.model.MutableGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A managed pool of warm graphviz engines.
+ * <p>
+ * graphviz-java keeps its (expensive to create) javascript engine in a
+ * thread-local, so a fixed pool of {@link Options#renderThreads()} worker
+ * threads is a pool of engines: each worker initializes its engine once,
+ * during {@link #start(Options)}, and reuses it for every render it runs.
+ * <p>
+ * Every render is bounded by {@link Options#renderTimeout()}, measured from
+ * the moment a worker picks it up. When it expires (or the returned future is
+ * cancelled) the future completes immediately and the worker is interrupted;
+ * note that a layout engine that ignores interrupts keeps its worker busy
+ * until it finishes on its own. Submitting blocks once
+ * {@link #QUEUED_PER_THREAD} renders per worker are waiting, so producers of
+ * thousands of graphs are throttled to the rate the pool can sustain.
+ * <p>
+ * Files are rendered to a temporary file next to the output and moved into
+ * place only if the render completes in time, so a render that timed out,
+ * was cancelled or was dropped by {@link #close()} never leaves a file
+ * behind, even if its engine runs on to the end.
+ */
+public final class RenderService implements AutoCloseable {
+
+    /** How many renders may be waiting for each worker before submitters block. */
+    public static final int QUEUED_PER_THREAD = 16;
+
+    /** The graph rendered by each worker during warm-up. */
+    private static final String WARM_UP_GRAPH = "digraph { a -> b }";
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+    private final Semaphore permits;
+    private final Duration timeout;
+    /** Futures not completed yet, queued or running; completed by {@link #close()}. */
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /** Point-in-time counters of a {@link RenderService}. */
+    public record Metrics(int queueDepth, int activeRenders, long completed,
+                          long failed, long timedOut, LatencyHistogram.Snapshot latency) {
+    }
+
+    private RenderService(Options options) {
+        int threads = options.renderThreads();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("pie-render-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("pie-render-timer-"));
+        this.permits = new Semaphore(threads * (QUEUED_PER_THREAD + 1));
+        this.timeout = options.renderTimeout();
+    }
+
+    /**
+     * Starts a service with the thread count and timeout given by
+     * {@code options}, returning once every worker has a warm engine.
+     *
+     * @throws IllegalStateException if an engine fails to initialize.
+     */
+    public static RenderService start(Options options) {
+        var service = new RenderService(options);
+        try {
+            service.warmUp();
+        } catch (RuntimeException e) {
+            service.close();
+            throw e;
+        }
+        return service;
+    }
+
+    /**
+     * Renders {@code graph} to {@code output} in the given {@code format},
+     * scaled to {@code width} pixels. Blocks while the queue is full.
+     *
+     * @throws RejectedExecutionException if the service has been closed.
+     *
+     * @return a future completing with {@code output} once the file is
+     * written, or exceptionally with a {@link RenderTimeoutException} or the
+     * error raised by the engine.
+     */
+    public CompletableFuture<Path> render(MutableGraph graph, Format format, int width, Path output) {
+        return submit(output.toString(), new Job<>() {
+            @Override public Path render() throws IOException {
+                Path dir = output.toAbsolutePath().getParent();
+                Files.createDirectories(dir);
+                Path tmp = Files.createTempFile(dir, output.getFileName().toString(), ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    Graphviz.fromGraph(graph).width(width).render(format).toOutputStream(out);
+                } catch (IOException | RuntimeException e) {
+                    discard(tmp);
+                    throw e;
+                }
+                return tmp;
+            }
+
+            @Override public Path publish(Path tmp) throws IOException {
+                try {
+                    Files.move(tmp, output, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    discard(tmp);
+                    throw e;
+                }
+                return output;
+            }
+
+            @Override public void discard(Path tmp) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // a stray temporary file; the output itself was never touched
+                }
+            }
+        });
+    }
+
+    /**
+     * Like {@link #render(MutableGraph, Format, int, Path)}, but the image is
+     * returned in memory instead of being written to a file.
+     */
+    public CompletableFuture<byte[]> renderToBytes(MutableGraph graph, Format format, int width) {
+        return submit(graph.name().toString(), () -> {
+            var bytes = new ByteArrayOutputStream();
+            Graphviz.fromGraph(graph).width(width).render(format).toOutputStream(bytes);
+            return bytes.toByteArray();
+        });
+    }
+
+    /**
+     * One render. Its result is {@link #publish published} only if the
+     * render settles in time, and {@link #discard discarded} otherwise.
+     */
+    private interface Job<T> {
+        T render() throws Exception;
+
+        default T publish(T rendered) throws IOException {
+            return rendered;
+        }
+
+        default void discard(T rendered) {
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(String what, Job<T> job) {
+        if (workers.isShutdown()) {
+            throw new RejectedExecutionException("render service is closed");
+        }
+        permits.acquireUninterruptibly();
+        var result = new CompletableFuture<T>();
+        // whoever sets this first, the worker or a cancellation, returns the permit
+        var claimed = new AtomicBoolean();
+        // registered before submitting, so close() either sees it or the submit fails
+        pending.add(result);
+        Future<?> task;
+        try {
+            task = workers.submit(() -> run(what, job, result, claimed));
+        } catch (RuntimeException e) {
+            pending.remove(result);
+            permits.release();
+            throw e;
+        }
+        result.whenComplete((p, e) -> {
+            pending.remove(result);
+            if (e != null) {
+                // cancelled, or dropped by close(): dequeue it, and return the
+                // permit if no worker picked it up (a running render is
+                // interrupted by run(..), which returns the permit itself)
+                task.cancel(false);
+                if (claimed.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        });
+        return result;
+    }
+
+    private <T> void run(String what, Job<T> job, CompletableFuture<T> result, AtomicBoolean claimed) {
+        if (!claimed.compareAndSet(false, true)) {
+            return; // cancelled while queued; its permit was returned then
+        }
+        try {
+            if (result.isDone()) {
+                return;
+            }
+            var worker = new Worker(Thread.currentThread());
+            ScheduledFuture<?> deadline = timer.schedule(() -> {
+                if (worker.settle()) {
+                    timedOut.increment();
+                    result.completeExceptionally(new RenderTimeoutException(what, timeout));
+                }
+                worker.interrupt();
+            }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            result.whenComplete((p, e) -> {
+                if (e != null) {
+                    // cancelled, or dropped by close(): stop the engine
+                    worker.settle();
+                    worker.interrupt();
+                }
+            });
+
+            long start = System.nanoTime();
+            try {
+                T rendered;
+                try {
+                    rendered = job.render();
+                } catch (Throwable t) {
+                    if (worker.settle()) {
+                        latency.recordNanos(System.nanoTime() - start);
+                        failed.increment();
+                        result.completeExceptionally(t);
+                    }
+                    return;
+                }
+                if (!worker.settle()) {
+                    job.discard(rendered); // timed out, cancelled or closed meanwhile
+                    return;
+                }
+                try {
+                    T published = job.publish(rendered);
+                    latency.recordNanos(System.nanoTime() - start);
+                    completed.increment();
+                    result.complete(published);
+                } catch (Throwable t) {
+                    latency.recordNanos(System.nanoTime() - start);
+                    failed.increment();
+                    result.completeExceptionally(t);
+                }
+            } finally {
+                deadline.cancel(false);
+                worker.finish();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Returns the current queue depth, in-flight count, outcomes and latencies. */
+    public Metrics metrics() {
+        return new Metrics(workers.getQueue().size(), workers.getActiveCount(),
+                completed.sum(), failed.sum(), timedOut.sum(), latency.snapshot());
+    }
+
+    /**
+     * Stops the workers; queued renders are dropped and running ones are
+     * interrupted. The futures of both complete exceptionally with a
+     * {@link RejectedExecutionException}.
+     */
+    @Override public void close() {
+        workers.shutdownNow();
+        timer.shutdownNow();
+        for (CompletableFuture<?> f : pending) {
+            f.completeExceptionally(new RejectedExecutionException("render service was closed"));
+        }
+    }
+
+    /**
+     * Runs one small render on every worker. The workers wait for each other
+     * before rendering, which forces each warm-up onto a distinct thread.
+     */
+    private void warmUp() {
+        int threads = workers.getCorePoolSize();
+        var allStarted = new CountDownLatch(threads);
+        List<Future<?>> warmUps = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            warmUps.add(workers.submit(() -> {
+                allStarted.countDown();
+                allStarted.await();
+                Graphviz.fromString(WARM_UP_GRAPH).render(Format.SVG).toString();
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> f : warmUps) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("graphviz engine failed to start", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while starting graphviz engines", e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        var next = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + next.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * The worker thread running one render. Exactly one of the worker and the
+     * timeout {@link #settle() settles} the render (so metrics are updated
+     * before its future completes), and the thread may only be interrupted
+     * while it is still running this render, so that a late timeout can never
+     * interrupt the next render on the same thread.
+     */
+    private static final class Worker {
+        private final Thread thread;
+        private boolean settled;
+        private boolean finished;
+
+        Worker(Thread thread) {
+            this.thread = thread;
+        }
+
+        /** Returns {@code true} for the first caller only. */
+        synchronized boolean settle() {
+            if (settled) {
+                return false;
+            }
+            settled = true;
+            return true;
+        }
+
+        synchronized void interrupt() {
+            if (!finished) {
+                thread.interrupt();
+            }
+        }
+
+        synchronized void finish() {
+            finished = true;
+            Thread.interrupted(); // clear any interrupt meant for this render
+        }
+    }
+}
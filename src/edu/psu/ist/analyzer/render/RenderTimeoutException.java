@@ -0,0 +1,13 @@
+package edu.psu.ist.analyzer.render;
+
+import java.time.Duration;
+
+/** Signals that a graph render exceeded its time budget and was abandoned. */
+public class RenderTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RenderTimeoutException(String what, Duration timeout) {
+        super(String.format("rendering %s took longer than %d ms", what, timeout.toMillis()));
+    }
+}
@@ -0,0 +1,439 @@
+package edu.psu.ist.analyzer.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.PieAnalyzer;
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.errors.DiagnosticsJson;
+import edu.psu.ist.analyzer.graph.GraphStyle;
+import edu.psu.ist.analyzer.graph.LayeredLayout;
+import edu.psu.ist.analyzer.graph.SvgWriter;
+import edu.psu.ist.analyzer.render.RenderService;
+import edu.psu.ist.analyzer.render.RenderTimeoutException;
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.CancelledException;
+import edu.psu.ist.analyzer.utils.JsonWriter;
+import edu.psu.ist.analyzer.utils.LatencyHistogram;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.model.MutableGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An embedded HTTP front end for the checker, so clients on the build host
+ * do not pay JVM startup (or parser warm-up) per script.
+ * <p>
+ * Endpoints (the request body is the piethon source; the optional
+ * {@code name} query parameter names it in diagnostics):
+ * <ul>
+ *     <li>{@code POST /check}: the diagnostics, as JSON.</li>
+ *     <li>{@code POST /graph?format=dot|svg|png}: the call graph. {@code dot}
+ *     (the default) and {@code svg} need no layout engine; {@code png} is
+ *     rendered by the {@link RenderService}, if one was given. A script with
+ *     errors gets a {@code 422} with its diagnostics instead.</li>
+ *     <li>{@code GET /metrics}: request counts and per-endpoint latency
+ *     histograms, as JSON.</li>
+ *     <li>{@code GET /health}: {@code ok}.</li>
+ * </ul>
+ * Every request is handled on its own virtual thread. Analysis requests
+ * with a malformed query string get a {@code 400}, and those
+ * larger than {@link Limits#maxRequestBytes()} a {@code 413}; once
+ * {@link Limits#maxInFlight()} of them are being served, further ones get
+ * an immediate {@code 429} rather than queueing without bound. An analysis
+ * running longer than {@link Limits#analysisTimeout()} is cancelled (see
+ * {@link CancellationToken}) and answered with a {@code 503}, so one
+ * pathological script cannot hold its slot indefinitely.
+ * <p>
+ * On JDK 21 the request streams of {@code com.sun.net.httpserver} are
+ * {@code synchronized}, so a virtual thread waiting for a slowly arriving
+ * body pins its carrier thread; the in-flight bound also caps how many
+ * carriers slow clients can hold that way.
+ */
+public final class AnalysisServer implements AutoCloseable {
+
+    /** Width (in pixels) of rendered png graphs. */
+    private static final int PNG_WIDTH = 2340;
+
+    /**
+     * @param maxRequestBytes largest accepted request body.
+     * @param maxInFlight     analysis requests served at once before
+     *                        answering {@code 429}.
+     * @param analysisTimeout time budget of a single analysis, and of
+     *                        rendering its png; requests exceeding it get
+     *                        a {@code 503}.
+     */
+    public record Limits(int maxRequestBytes, int maxInFlight, Duration analysisTimeout) {
+
+        /** Default time budget of a single analysis. */
+        public static final Duration DEFAULT_ANALYSIS_TIMEOUT = Duration.ofSeconds(10);
+
+        public static final Limits DEFAULT = new Limits(4 << 20, 256);
+
+        public Limits {
+            if (maxRequestBytes < 1 || maxInFlight < 1) {
+                throw new IllegalArgumentException("limits must be >= 1");
+            }
+            if (analysisTimeout == null || analysisTimeout.isNegative() || analysisTimeout.isZero()) {
+                throw new IllegalArgumentException("analysisTimeout must be positive");
+            }
+        }
+
+        /** Creates limits with the default analysis timeout. */
+        public Limits(int maxRequestBytes, int maxInFlight) {
+            this(maxRequestBytes, maxInFlight, DEFAULT_ANALYSIS_TIMEOUT);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService threads;
+    private final PieChecker checker;
+    private final RenderService renderer;
+    private final Limits limits;
+    private final Semaphore inFlight;
+
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+    private final LongAdder badRequests = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    private AnalysisServer(HttpServer server, Options options, RenderService renderer, Limits limits) {
+        this.server = server;
+        this.threads = Executors.newVirtualThreadPerTaskExecutor();
+        // diagnostics go into responses; echoing every request's to stderr would flood it
+        this.checker = new PieChecker(options.withRunSilent(true));
+        this.renderer = renderer;
+        this.limits = limits;
+        this.inFlight = new Semaphore(limits.maxInFlight());
+        server.setExecutor(threads);
+        server.createContext("/check", limited("/check", this::check));
+        server.createContext("/graph", limited("/graph", this::graph));
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (requireMethod(exchange, "GET")) {
+                    send(exchange, 200, "application/json", metricsJson().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        });
+        server.createContext("/health", exchange -> {
+            try (exchange) {
+                send(exchange, 200, "text/plain", "ok\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    /**
+     * Starts a server on {@code port} of the loopback interface ({@code 0}
+     * picks a free port; see {@link #port()}).
+     *
+     * @param renderer renders {@code png} graphs; may be {@code null}, in which
+     *                 case {@code png} requests get a {@code 501}.
+     */
+    public static AnalysisServer start(int port, Options options, RenderService renderer,
+                                       Limits limits) throws IOException {
+        var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        var server = new AnalysisServer(HttpServer.create(address, 0), options, renderer, limits);
+        server.server.start();
+        return server;
+    }
+
+    /** Returns the port the server listens on. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests and waits (at most a second) for in-flight ones. */
+    @Override public void close() {
+        server.stop(1);
+        threads.shutdownNow();
+    }
+
+    /** The response to an analysis request. */
+    private record Response(int status, String contentType, byte[] body) {
+
+        static Response json(int status, JsonWriter json) {
+            return new Response(status, "application/json", json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response text(int status, String message) {
+            return new Response(status, "text/plain", (message + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Handles the request {@code source} received with the given query parameters. */
+    private interface AnalysisHandler {
+        Response handle(TextInput source, Map<String, String> query) throws IOException;
+    }
+
+    /** Analyzes {@code source} within the time budget of a single request. */
+    private PieAnalysis analyze(TextInput source) {
+        var budget = CancellationToken.withTimeout(limits.analysisTimeout());
+        return checker.withOptions(checker.options().withCancellation(budget)).analyze(source);
+    }
+
+    private Response check(TextInput source, Map<String, String> query) {
+        PieAnalysis analysis = analyze(source);
+        return Response.json(200, diagnostics(source, analysis));
+    }
+
+    private Response graph(TextInput source, Map<String, String> query) throws IOException {
+        PieAnalysis analysis = analyze(source);
+        if (!analysis.isOk()) {
+            return Response.json(422, diagnostics(source, analysis));
+        }
+        String title = source.name();
+        switch (query.getOrDefault("format", "dot")) {
+            case "dot" -> {
+                String dot = PieAnalyzer.toGraphviz(analysis.graph(), title, GraphStyle.DEFAULT).toString();
+                return new Response(200, "text/vnd.graphviz", dot.getBytes(StandardCharsets.UTF_8));
+            }
+            case "svg" -> {
+                var svg = new ByteArrayOutputStream();
+                try (Writer w = new OutputStreamWriter(svg, StandardCharsets.UTF_8)) {
+                    SvgWriter.write(LayeredLayout.of(analysis.graph()), title, w);
+                }
+                return new Response(200, "image/svg+xml", svg.toByteArray());
+            }
+            case "png" -> {
+                if (renderer == null) {
+                    return Response.text(501, "png rendering is not enabled on this server");
+                }
+                var graph = PieAnalyzer.toGraphviz(analysis.graph(), title, GraphStyle.DEFAULT);
+                return renderPng(graph);
+            }
+            default -> {
+                return Response.text(400, "format must be one of dot, svg, png");
+            }
+        }
+    }
+
+    /**
+     * Renders {@code graph}, waiting at most {@link Limits#analysisTimeout()}
+     * (a render still queued then is cancelled); a timeout or a closed
+     * renderer is answered with a {@code 503}.
+     */
+    private Response renderPng(MutableGraph graph) {
+        CompletableFuture<byte[]> render;
+        try {
+            render = renderer.renderToBytes(graph, Format.PNG, PNG_WIDTH);
+        } catch (RejectedExecutionException e) {
+            return Response.text(503, e.getMessage());
+        }
+        try {
+            byte[] png = render.get(limits.analysisTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            return new Response(200, "image/png", png);
+        } catch (TimeoutException e) {
+            render.cancel(true);
+            timedOut.increment();
+            return Response.text(503, "rendering timed out after " + limits.analysisTimeout().toMillis() + " ms");
+        } catch (InterruptedException e) {
+            render.cancel(true);
+            Thread.currentThread().interrupt();
+            return Response.text(503, "interrupted while rendering");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RenderTimeoutException
+                    || e.getCause() instanceof RejectedExecutionException) {
+                return Response.text(503, e.getCause().getMessage());
+            }
+            return Response.text(500, "rendering failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private static JsonWriter diagnostics(TextInput source, PieAnalysis analysis) {
+        var json = new JsonWriter().beginObject()
+                .name("name").value(source.name())
+                .name("ok").value(analysis.isOk())
+                .name("errors");
+        DiagnosticsJson.write(json, analysis.errors());
+        return json.endObject();
+    }
+
+    /**
+     * Wraps {@code handler} with the method check, the in-flight bound, the
+     * size limit and latency recording.
+     */
+    private HttpHandler limited(String endpoint, AnalysisHandler handler) {
+        LatencyHistogram latency = new LatencyHistogram();
+        synchronized (latencies) {
+            latencies.put(endpoint, latency);
+        }
+        return exchange -> {
+            long start = System.nanoTime();
+            try (exchange) {
+                if (!requireMethod(exchange, "POST")) {
+                    return;
+                }
+                if (!inFlight.tryAcquire()) {
+                    rejected.increment();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, Response.text(429, "too many requests in flight"));
+                    return;
+                }
+                try {
+                    byte[] body = readBody(exchange);
+                    if (body == null) {
+                        tooLarge.increment();
+                        send(exchange, Response.text(413, "request larger than "
+                                + limits.maxRequestBytes() + " bytes"));
+                        return;
+                    }
+                    Map<String, String> query;
+                    try {
+                        query = query(exchange.getRequestURI().getRawQuery());
+                    } catch (IllegalArgumentException e) {
+                        badRequests.increment();
+                        send(exchange, Response.text(400, "malformed query: " + e.getMessage()));
+                        return;
+                    }
+                    var source = new TextInput(query.getOrDefault("name", "request"),
+                            new String(body, StandardCharsets.UTF_8));
+                    Response response;
+                    try {
+                        response = handler.handle(source, query);
+                    } catch (CancelledException e) {
+                        timedOut.increment();
+                        response = Response.text(503, "analysis " + e.getMessage());
+                    }
+                    send(exchange, response);
+                } finally {
+                    inFlight.release();
+                }
+            } finally {
+                latency.recordNanos(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /** Returns the request body, or {@code null} if it exceeds the size limit. */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if (declared != null && Long.parseLong(declared.trim()) > limits.maxRequestBytes()) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            // malformed; fall back to counting
+        }
+        // the declared length may be absent (chunked) or wrong: count as we go
+        InputStream in = exchange.getRequestBody();
+        var body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (body.size() + n > limits.maxRequestBytes()) {
+                return null;
+            }
+            body.write(buffer, 0, n);
+        }
+        return body.toByteArray();
+    }
+
+    private String metricsJson() {
+        var json = new JsonWriter().beginObject()
+                .name("inFlight").value(limits.maxInFlight() - inFlight.availablePermits())
+                .name("rejected").value(rejected.sum())
+                .name("tooLarge").value(tooLarge.sum())
+                .name("badRequests").value(badRequests.sum())
+                .name("timedOut").value(timedOut.sum())
+                .name("latencyMicros").beginObject();
+        synchronized (latencies) {
+            for (var e : latencies.entrySet()) {
+                LatencyHistogram.Snapshot s = e.getValue().snapshot();
+                json.name(e.getKey()).beginObject()
+                        .name("count").value(s.count())
+                        .name("mean").value(s.meanMicros())
+                        .name("p50").value(s.p50Micros())
+                        .name("p90").value(s.p90Micros())
+                        .name("p99").value(s.p99Micros())
+                        .name("max").value(s.maxMicros())
+                        .endObject();
+            }
+        }
+        json.endObject();
+        if (renderer != null) {
+            RenderService.Metrics r = renderer.metrics();
+            json.name("render").beginObject()
+                    .name("queueDepth").value(r.queueDepth())
+                    .name("active").value(r.activeRenders())
+                    .name("completed").value(r.completed())
+                    .name("failed").value(r.failed())
+                    .name("timedOut").value(r.timedOut())
+                    .endObject();
+        }
+        return json.endObject().toString();
+    }
+
+    /** Returns the semaphore bounding analysis requests (for tests). */
+    Semaphore inFlight() {
+        return inFlight;
+    }
+
+    /** Answers {@code 405} and returns {@code false} unless the request uses {@code method}. */
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equalsIgnoreCase(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, Response.text(405, "use " + method));
+        return false;
+    }
+
+    /**
+     * Decodes the query string {@code raw}.
+     *
+     * @throws IllegalArgumentException if it contains a malformed escape.
+     */
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, Response r) throws IOException {
+        send(exchange, r.status(), r.contentType(), r.body());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType,
+                             byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
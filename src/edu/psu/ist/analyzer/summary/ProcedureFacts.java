@@ -0,0 +1,82 @@
+package edu.psu.ist.analyzer.summary;
+
+import antlr4.edu.psu.ist.parser.PiethonParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What can be learned about a procedure from its own body, without looking
+ * at the procedures it calls: the input to {@link ProcedureSummarizer}.
+ * <p>
+ * Piethon procedures are straight-line code, and calls are statements whose
+ * results are discarded, so the value a procedure returns depends only on
+ * its parameters and its own variables. It is found by evaluating the body
+ * up to the first {@code return}, with every parameter unknown.
+ *
+ * @param name           the name of the procedure.
+ * @param constantReturn the value ({@code "42"}, {@code "true"}) the
+ *                       procedure returns whatever its arguments, or
+ *                       {@code null} if that depends on them (or the
+ *                       procedure returns nothing).
+ */
+public record ProcedureFacts(String name, String constantReturn) {
+
+    /** Returns the facts of {@code def}, which must have parsed without errors. */
+    public static ProcedureFacts of(PiethonParser.DefContext def) {
+        Map<String, Object> values = new HashMap<>(); // a null value is unknown
+        for (var varDef : def.varDef()) {
+            values.put(varDef.name.getText(), eval(varDef.exp(), values));
+        }
+        for (var stmt : def.statement()) {
+            if (stmt instanceof PiethonParser.AssignStmtContext assign) {
+                values.put(assign.name.getText(), eval(assign.exp(), values));
+            } else if (stmt instanceof PiethonParser.ReturnStmtContext ret) {
+                Object value = eval(ret.exp(), values);
+                return new ProcedureFacts(def.name.getText(), value == null ? null : value.toString());
+            }
+        }
+        return new ProcedureFacts(def.name.getText(), null);
+    }
+
+    /**
+     * Returns the value ({@link Integer} or {@link Boolean}) of {@code exp},
+     * or {@code null} if it is not constant (or ill-typed).
+     */
+    private static Object eval(PiethonParser.ExpContext exp, Map<String, Object> values) {
+        // '+' is left-associative and there are no parentheses, so a sum is
+        // a left-deep chain whose right operands are never sums themselves
+        int sum = 0;
+        boolean added = false;
+        while (exp instanceof PiethonParser.AddExpContext add) {
+            if (!(operand(add.right, values) instanceof Integer n)) {
+                return null;
+            }
+            sum += n;
+            added = true;
+            exp = add.left;
+        }
+        Object first = operand(exp, values);
+        if (!added) {
+            return first;
+        }
+        return first instanceof Integer n ? n + sum : null;
+    }
+
+    private static Object operand(PiethonParser.ExpContext exp, Map<String, Object> values) {
+        if (exp instanceof PiethonParser.IntExpContext n) {
+            try {
+                return Integer.parseInt(n.n.getText());
+            } catch (NumberFormatException e) {
+                return null; // out of range, reported by the checker
+            }
+        } else if (exp instanceof PiethonParser.TrueExpContext) {
+            return Boolean.TRUE;
+        } else if (exp instanceof PiethonParser.FalseExpContext) {
+            return Boolean.FALSE;
+        } else if (exp instanceof PiethonParser.VarRefExpContext ref) {
+            return values.get(ref.name.getText());
+        }
+        return null;
+    }
+}
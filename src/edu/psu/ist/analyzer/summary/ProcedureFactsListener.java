@@ -0,0 +1,45 @@
+package edu.psu.ist.analyzer.summary;
+
+import antlr4.edu.psu.ist.parser.PiethonBaseListener;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.utils.CancellationToken;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the {@link ProcedureFacts} of every procedure of a script, in
+ * definition order. Of several procedures with the same name, the first
+ * one counts, as for the checker.
+ */
+public final class ProcedureFactsListener extends PiethonBaseListener {
+    private final List<ProcedureFacts> facts = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+    private final CancellationToken cancellation;
+
+    public ProcedureFactsListener() {
+        this(CancellationToken.NONE);
+    }
+
+    /**
+     * Creates a listener that polls {@code cancellation} at every procedure,
+     * throwing a {@link edu.psu.ist.analyzer.utils.CancelledException} from
+     * the walk once it is cancelled.
+     */
+    public ProcedureFactsListener(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    @Override public void enterDef(PiethonParser.DefContext ctx) {
+        cancellation.throwIfCancelled();
+        if (ctx.name != null && seen.add(ctx.name.getText())) {
+            facts.add(ProcedureFacts.of(ctx));
+        }
+    }
+
+    public List<ProcedureFacts> getFacts() {
+        return facts;
+    }
+}
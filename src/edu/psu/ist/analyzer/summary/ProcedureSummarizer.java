@@ -0,0 +1,205 @@
+package edu.psu.ist.analyzer.summary;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.graph.Condensation;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes a {@link ProcedureSummary} for every procedure of a call graph,
+ * and keeps them current as the program changes.
+ * <p>
+ * Summaries are computed bottom-up over the {@link Condensation} of the
+ * graph: the procedures of a strongly connected component (mutually
+ * recursive procedures) share one summary, built from the summaries of the
+ * components they call. All components of one level are summarized in
+ * parallel on a fork-join pool, a level at a time.
+ * <p>
+ * Summaries are cached between calls to {@link #update}. A procedure is
+ * <em>edited</em> if its {@link ProcedureFacts} or its callees changed (or
+ * it is new); only the components that can reach an edited procedure are
+ * summarized again. The others keep their summaries, which cannot have
+ * changed: everything they call is unchanged.
+ * <p>
+ * The {@link ProcedureSummary#reaches} sets of a long call chain take space
+ * quadratic in its length. All methods are thread-safe; updates are
+ * applied one at a time.
+ */
+public final class ProcedureSummarizer {
+
+    /** Components per fork-join task. */
+    private static final int TASK_SIZE = 16;
+
+    private final int parallelism;
+
+    private Map<String, ProcedureFacts> facts = new HashMap<>();
+    private Map<String, Set<String>> callees = new HashMap<>();
+    private final Map<String, ProcedureSummary> summaries = new ConcurrentHashMap<>();
+    private int recomputed;
+
+    /** @param parallelism how many components are summarized at a time. */
+    public ProcedureSummarizer(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Brings the summaries up to date with {@code graph}, whose procedures
+     * are described by {@code procedureFacts} (the first facts of each name
+     * count), and returns the summary of every vertex of the graph by name.
+     * A vertex without facts (a procedure the program calls but does not
+     * define) is summarized as calling nothing, but not pure.
+     */
+    public synchronized Map<String, ProcedureSummary> update(Digraph<ProcNode> graph,
+                                                           Collection<ProcedureFacts> procedureFacts) {
+        Map<String, ProcedureFacts> newFacts = new HashMap<>();
+        for (ProcedureFacts f : procedureFacts) {
+            newFacts.putIfAbsent(f.name(), f);
+        }
+
+        // callees first, so a component is dirty if any component it calls is
+        Condensation<ProcNode> dag = Condensation.of(graph);
+        Map<String, Set<String>> newCallees = new HashMap<>();
+        boolean[] dirty = new boolean[dag.componentCount()];
+        for (int c = 0; c < dag.componentCount(); c++) {
+            boolean d = false;
+            for (ProcNode v : dag.members(c)) {
+                Set<String> out = new HashSet<>();
+                if (graph.contains(v)) {
+                    for (ProcNode w : graph.neighbors(v)) {
+                        out.add(w.name());
+                    }
+                }
+                newCallees.put(v.name(), out);
+                d |= !summaries.containsKey(v.name())
+                        || !Objects.equals(facts.get(v.name()), newFacts.get(v.name()))
+                        || !out.equals(callees.get(v.name()));
+            }
+            for (int s : dag.successors(c)) {
+                d |= dirty[s];
+            }
+            dirty[c] = d;
+        }
+        summaries.keySet().retainAll(newCallees.keySet());
+        facts = newFacts;
+        callees = newCallees;
+
+        recomputed = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int l = 0; l < dag.levelCount(); l++) {
+                List<Integer> level = new ArrayList<>();
+                for (int c : dag.componentsAtLevel(l)) {
+                    if (dirty[c]) {
+                        level.add(c);
+                        recomputed += dag.members(c).size();
+                    }
+                }
+                if (!level.isEmpty()) {
+                    pool.invoke(new SummarizeAll(this, dag, level, 0, level.size()));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return Map.copyOf(summaries);
+    }
+
+    /** Returns the summary of procedure {@code name}, or {@code null} if it is not in the graph. */
+    public synchronized ProcedureSummary summary(String name) {
+        return summaries.get(name);
+    }
+
+    /** Returns how many procedures the last {@link #update} summarized again. */
+    public synchronized int recomputed() {
+        return recomputed;
+    }
+
+    /**
+     * Summarizes the components {@code level[from..to)}, splitting them among
+     * tasks. Tasks are never serialized; the fields are transient only
+     * because {@link RecursiveAction} is {@link java.io.Serializable}.
+     */
+    private static final class SummarizeAll extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ProcedureSummarizer summarizer;
+        private final transient Condensation<ProcNode> dag;
+        private final transient List<Integer> level;
+        private final int from;
+        private final int to;
+
+        SummarizeAll(ProcedureSummarizer summarizer, Condensation<ProcNode> dag, List<Integer> level,
+                     int from, int to) {
+            this.summarizer = summarizer;
+            this.dag = dag;
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    summarizer.summarize(dag, level.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SummarizeAll(summarizer, dag, level, from, mid),
+                    new SummarizeAll(summarizer, dag, level, mid, to));
+        }
+    }
+
+    /**
+     * Summarizes component {@code c}, whose successors are all summarized
+     * already (they are at lower levels).
+     */
+    private void summarize(Condensation<ProcNode> dag, int c) {
+        List<ProcNode> members = dag.members(c);
+        boolean cyclic = dag.isCyclic(c);
+        Set<String> reaches = new HashSet<>();
+        boolean pure = true;
+        int depth = cyclic ? ProcedureSummary.UNBOUNDED : 0;
+        for (int s : dag.successors(c)) {
+            List<ProcNode> callees = dag.members(s);
+            for (ProcNode callee : callees) {
+                reaches.add(callee.name());
+            }
+            ProcedureSummary callee = summaries.get(callees.get(0).name());
+            reaches.addAll(callee.reaches());
+            pure &= callee.pure();
+            if (depth != ProcedureSummary.UNBOUNDED) {
+                depth = callee.maxDepth() == ProcedureSummary.UNBOUNDED
+                        ? ProcedureSummary.UNBOUNDED : Math.max(depth, callee.maxDepth() + 1);
+            }
+        }
+        for (ProcNode v : members) {
+            pure &= facts.containsKey(v.name());
+            if (cyclic) {
+                reaches.add(v.name());
+            }
+        }
+        Set<String> shared = Set.copyOf(reaches);
+        for (ProcNode v : members) {
+            String constant = null;
+            if (pure && depth != ProcedureSummary.UNBOUNDED) {
+                constant = facts.get(v.name()).constantReturn();
+            }
+            summaries.put(v.name(), new ProcedureSummary(v.name(), pure, constant, depth, shared));
+        }
+    }
+}
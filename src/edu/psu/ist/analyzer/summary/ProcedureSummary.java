@@ -0,0 +1,32 @@
+package edu.psu.ist.analyzer.summary;
+
+import java.util.Set;
+
+/**
+ * What a procedure does, including everything it calls (see
+ * {@link ProcedureSummarizer}).
+ *
+ * @param name     the name of the procedure.
+ * @param pure     {@code true} if the procedure and everything it can call
+ *                 are known: Piethon has no global state or I/O, so only a
+ *                 procedure the program does not define (or that has
+ *                 syntax errors) can do anything the caller cannot see.
+ * @param constant the value the procedure returns on every call, or
+ *                 {@code null} if that depends on its arguments, it returns
+ *                 nothing, or it may never return (it is not pure, or it can
+ *                 recurse).
+ * @param maxDepth the most nested calls the procedure can make (0 if it
+ *                 calls nothing), or {@link #UNBOUNDED} if it can recurse.
+ * @param reaches  the procedures the procedure can transitively call,
+ *                 itself included only if it can recurse.
+ */
+public record ProcedureSummary(String name, boolean pure, String constant, int maxDepth, Set<String> reaches) {
+
+    /** The {@link #maxDepth} of a procedure that can recurse. */
+    public static final int UNBOUNDED = -1;
+
+    /** Returns {@code true} if the procedure returns the same {@link #constant} on every call. */
+    public boolean returnsConstant() {
+        return constant != null;
+    }
+}
@@ -0,0 +1,95 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.time.Duration;
+
+/**
+ * Lets the caller of a long-running analysis stop it early: either
+ * explicitly, via {@link #cancel()} (e.g., when an editor request is
+ * superseded), or by a deadline fixed when the token is created.
+ * <p>
+ * Cancellation is cooperative. The lexer, the parser, the listeners and the
+ * graph export poll the token (see {@link Options#cancellation()}) and stop
+ * with a {@link CancelledException} once it is cancelled; work between two
+ * polls runs to completion. Tokens are thread-safe: one thread may cancel
+ * while another polls.
+ */
+public final class CancellationToken {
+
+    /** A token that is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken(false, false, 0);
+
+    private final boolean cancellable;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    private CancellationToken(boolean cancellable, boolean hasDeadline, long deadlineNanos) {
+        this.cancellable = cancellable;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /** Returns a token that is cancelled only by {@link #cancel()}. */
+    public static CancellationToken create() {
+        return new CancellationToken(true, false, 0);
+    }
+
+    /**
+     * Returns a token that is cancelled by {@link #cancel()} or once
+     * {@code budget} has elapsed from now, whichever comes first.
+     */
+    public static CancellationToken withTimeout(Duration budget) {
+        if (budget == null || budget.isNegative()) {
+            throw new IllegalArgumentException("budget must not be negative");
+        }
+        long nanos;
+        try {
+            nanos = budget.toNanos();
+        } catch (ArithmeticException e) {
+            return create(); // hundreds of years; as good as no deadline
+        }
+        return new CancellationToken(true, true, System.nanoTime() + nanos);
+    }
+
+    /**
+     * Cancels this token.
+     *
+     * @throws UnsupportedOperationException if this is {@link #NONE}.
+     */
+    public void cancel() {
+        if (!cancellable) {
+            throw new UnsupportedOperationException("NONE cannot be cancelled");
+        }
+        cancelled = true;
+    }
+
+    /** Returns true if this token was cancelled or its deadline has passed. */
+    public boolean isCancelled() {
+        return cancelled || (hasDeadline && remainingNanos() <= 0);
+    }
+
+    /**
+     * Returns the time left before the deadline, in nanoseconds:
+     * {@link Long#MAX_VALUE} if there is none, {@code 0} once it has passed
+     * (or the token was cancelled).
+     */
+    public long remainingNanos() {
+        if (cancelled) {
+            return 0;
+        }
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /** @throws CancelledException if this token is cancelled. */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancelledException("cancelled");
+        }
+        if (hasDeadline && deadlineNanos - System.nanoTime() <= 0) {
+            throw new CancelledException("deadline exceeded");
+        }
+    }
+}
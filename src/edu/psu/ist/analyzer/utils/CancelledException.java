@@ -0,0 +1,14 @@
+package edu.psu.ist.analyzer.utils;
+
+/**
+ * Thrown when an analysis stops because its {@link CancellationToken} was
+ * cancelled or its deadline passed.
+ */
+public final class CancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CancelledException(String reason) {
+        super(reason);
+    }
+}
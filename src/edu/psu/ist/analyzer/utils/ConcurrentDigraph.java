@@ -0,0 +1,222 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A directed graph that many threads can build at once, with the same
+ * queries as {@link Digraph}.
+ * <p>
+ * Vertices live in a {@link ConcurrentHashMap}, so adding one (or finding
+ * it already there) takes no lock. Each vertex's list of successors and
+ * map of callers is guarded by its own monitor: adding an edge locks only
+ * its two endpoints' entries, so threads contend only when they add edges
+ * at the same vertex. Queries may run alongside insertion; they see every
+ * completed {@code add} and return copies rather than live views.
+ * <p>
+ * Once building is done, {@link #compact()} moves the contents into a plain
+ * {@link Digraph}, whose unsynchronized maps are faster to query.
+ *
+ * @param <V> the type for vertices.
+ */
+public final class ConcurrentDigraph<V> implements DigraphBuilder<V> {
+
+    /** Successors of each vertex; each list is guarded by itself. */
+    private final ConcurrentHashMap<V, List<V>> neighbors = new ConcurrentHashMap<>();
+
+    /** As in {@link Digraph}; each inner map is guarded by itself. */
+    private final ConcurrentHashMap<V, Map<V, Integer>> predecessors = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, V> byName = new ConcurrentHashMap<>();
+
+    private volatile boolean compacted;
+
+    /** Adds a vertex to the graph. No-op if the vertex is already present. */
+    @Override public void add(V vertex) {
+        checkWritable();
+        if (!neighbors.containsKey(vertex) && neighbors.putIfAbsent(vertex, new ArrayList<>()) == null) {
+            byName.putIfAbsent(vertex.toString(), vertex);
+        }
+    }
+
+    /** Returns the vertex with the specified name, or null if not found. */
+    @Override public V getVertex(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Adds an edge ({@code from}, {@code to}) to this graph; if {@code from}
+     * is absent it gets added.
+     */
+    @Override public void add(V from, V to) {
+        add(from);
+        List<V> successors = neighbors.get(from);
+        synchronized (successors) {
+            successors.add(to);
+        }
+        Map<V, Integer> callers = predecessors.get(to);
+        if (callers == null) {
+            Map<V, Integer> fresh = new HashMap<>();
+            callers = predecessors.putIfAbsent(to, fresh);
+            if (callers == null) {
+                callers = fresh;
+            }
+        }
+        synchronized (callers) {
+            callers.merge(from, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Removes an edge from this graph. Nothing happens if the edge specified
+     * isn't present.
+     *
+     * @throws IllegalArgumentException if {@code from} is not present.
+     */
+    public void remove(V from, V to) {
+        checkWritable();
+        List<V> successors = neighbors.get(from);
+        if (successors == null) {
+            throw new IllegalArgumentException("missing vertices in remove");
+        }
+        boolean removed;
+        synchronized (successors) {
+            removed = successors.remove(to);
+        }
+        if (removed) {
+            Map<V, Integer> callers = predecessors.get(to);
+            synchronized (callers) {
+                if (callers.merge(from, -1, Integer::sum) == 0) {
+                    callers.remove(from);
+                }
+            }
+        }
+    }
+
+    /** Returns a copy of the successors of {@code v}. */
+    public List<V> neighbors(V v) {
+        List<V> successors = neighbors.get(v);
+        if (successors == null) {
+            throw new IllegalArgumentException("vertex: " + v + " not present");
+        }
+        synchronized (successors) {
+            return new ArrayList<>(successors);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the vertices, which reflects vertices
+     * added while it is iterated (or not) without failing.
+     */
+    public Set<V> getVertices() {
+        return Collections.unmodifiableSet(neighbors.keySet());
+    }
+
+    /**
+     * Returns {@code true} only if this graph contains {@code v};
+     * {@code false} otherwise.
+     */
+    public boolean contains(V vertex) {
+        return neighbors.containsKey(vertex);
+    }
+
+    public Set<Pair<V, V>> edges() {
+        Set<Pair<V, V>> result = new HashSet<>();
+        neighbors.forEach((v, successors) -> {
+            synchronized (successors) {
+                for (V w : successors) {
+                    result.add(new Pair<>(v, w));
+                }
+            }
+        });
+        return result;
+    }
+
+    /** Returns the <em>out-degreee</em> of the specified {@code vertex}. */
+    public int outDegree(V vertex) {
+        List<V> successors = neighbors.get(vertex);
+        if (successors == null) {
+            return 0;
+        }
+        synchronized (successors) {
+            return successors.size();
+        }
+    }
+
+    /**
+     * Returns the <em>in-degree</em> of the specified {@code vertex}: the
+     * number of distinct vertices with an edge to it.
+     */
+    public int inDegree(V vertex) {
+        Map<V, Integer> callers = predecessors.get(vertex);
+        if (callers == null) {
+            return 0;
+        }
+        synchronized (callers) {
+            return callers.size();
+        }
+    }
+
+    /**
+     * Returns a copy of the distinct vertices with an edge to {@code vertex}
+     * (empty if there are none, or if it is not present).
+     */
+    public Set<V> predecessors(V vertex) {
+        Map<V, Integer> callers = predecessors.get(vertex);
+        if (callers == null) {
+            return Collections.emptySet();
+        }
+        synchronized (callers) {
+            return Set.copyOf(callers.keySet());
+        }
+    }
+
+    /**
+     * Moves the contents of this graph into a new {@link Digraph} and
+     * returns it, trimming every adjacency list to size. This graph is left
+     * empty, and any further change to it throws an
+     * {@link IllegalStateException}.
+     * <p>
+     * Every {@code add} must have completed, and be visible to the calling
+     * thread (e.g. through {@link java.util.concurrent.Future#get} or
+     * {@link Thread#join}), before this is called; an edge added during
+     * compaction may be lost.
+     *
+     * @throws IllegalStateException if this graph was compacted already.
+     */
+    public Digraph<V> compact() {
+        checkWritable();
+        compacted = true;
+        Map<V, List<V>> adjacency = HashMap.newHashMap(neighbors.size());
+        neighbors.forEach((v, successors) -> adjacency.put(v, new ArrayList<>(successors)));
+        Map<V, Map<V, Integer>> callers = HashMap.newHashMap(predecessors.size());
+        callers.putAll(predecessors);
+        Map<String, V> names = new HashMap<>(byName);
+        neighbors.clear();
+        predecessors.clear();
+        byName.clear();
+        return new Digraph<>(adjacency, callers, names);
+    }
+
+    @Override public String toString() {
+        var s = new StringBuilder();
+        for (V v : neighbors.keySet()) {
+            s.append("\n    ")
+                    .append(v)
+                    .append(" -> ").append(neighbors(v));
+        }
+        return s.toString();
+    }
+
+    private void checkWritable() {
+        if (compacted) {
+            throw new IllegalStateException("graph was compacted");
+        }
+    }
+}
@@ -8,15 +8,38 @@ import java.util.*;
  *
  * @param <V> the type for vertices.
  */
-public final class Digraph<V> {
+public final class Digraph<V> implements DigraphBuilder<V> {
 
     /** Stores the vertex and edge data for this graph as an adjacency list. */
     private Map<V, List<V>> neighbors = new HashMap<>();
 
+    /**
+     * For each vertex with incoming edges, the number of edges from each
+     * distinct caller (so {@link #inDegree} does not scan the whole graph).
+     */
+    private Map<V, Map<V, Integer>> predecessors = new HashMap<>();
+
+    /** Maps names ({@code toString()}) to vertices for {@link #getVertex}. */
+    private Map<String, V> byName = new HashMap<>();
+
+    public Digraph() {
+    }
+
+    /**
+     * Creates a graph that takes ownership of the given maps (see
+     * {@link ConcurrentDigraph#compact()}).
+     */
+    Digraph(Map<V, List<V>> neighbors, Map<V, Map<V, Integer>> predecessors, Map<String, V> byName) {
+        this.neighbors = neighbors;
+        this.predecessors = predecessors;
+        this.byName = byName;
+    }
+
     /** Adds a vertex to the graph. No-op if the vertex is already present. */
-    public void add(V vertex) {
+    @Override public void add(V vertex) {
         if (!neighbors.containsKey(vertex)) {
             neighbors.put(vertex, new ArrayList<>());
+            byName.putIfAbsent(vertex.toString(), vertex);
         }
     }
 
@@ -26,13 +49,8 @@ public final class Digraph<V> {
      * @param name the name of the vertex to retrieve
      * @return the vertex with the specified name, or null if not found
      */
-    public V getVertex(String name) {
-        for (V vertex : neighbors.keySet()) {
-            if (vertex.toString().equals(name)) {
-                return vertex;
-            }
-        }
-        return null;
+    @Override public V getVertex(String name) {
+        return byName.get(name);
     }
 
     public List<V> neighbors(V v) {
@@ -58,9 +76,10 @@ public final class Digraph<V> {
      * Adds an edge ({@code from}, {@code to}) to this graph; if either vertex
      * exists it gets added.
      */
-    public void add(V from, V to) {
+    @Override public void add(V from, V to) {
         this.add(from); // ensure vertex is present first
         neighbors.get(from).add(to);
+        predecessors.computeIfAbsent(to, v -> new HashMap<>()).merge(from, 1, Integer::sum);
     }
 
     public Set<Pair<V, V>> edges() {
@@ -88,7 +107,12 @@ public final class Digraph<V> {
         if (!contains(from) && contains(to)) {
             throw new IllegalArgumentException("missing vertices in remove");
         }
-        neighbors.get(from).remove(to);
+        if (neighbors.get(from).remove(to)) {
+            Map<V, Integer> callers = predecessors.get(to);
+            if (callers.merge(from, -1, Integer::sum) == 0) {
+                callers.remove(from);
+            }
+        }
     }
 
     /** Returns the <em>out-degreee</em> of the specified {@code vertex}. */
@@ -96,17 +120,22 @@ public final class Digraph<V> {
         return neighbors.getOrDefault(vertex, Collections.emptyList()).size();
     }
 
-    /** Returns the <em>in-degree</em> of the specified {@code vertex}. */
+    /**
+     * Returns the <em>in-degree</em> of the specified {@code vertex}: the
+     * number of distinct vertices with an edge to it.
+     */
     public int inDegree(V vertex) {
-        int result = 0;
-        // want to count the number of nodes in the graph that point to: vertex
-        for (V v : neighbors.keySet()) {
-            // iterate over all vertices
-            if (neighbors.get(v) != null && neighbors.get(v).contains(vertex)) {
-                result++;
-            }
-        }
-        return result;
+        Map<V, Integer> callers = predecessors.get(vertex);
+        return callers == null ? 0 : callers.size();
+    }
+
+    /**
+     * Returns a read-only view of the distinct vertices with an edge to
+     * {@code vertex} (empty if there are none, or if it is not present).
+     */
+    public Set<V> predecessors(V vertex) {
+        Map<V, Integer> callers = predecessors.get(vertex);
+        return callers == null ? Collections.emptySet() : Collections.unmodifiableSet(callers.keySet());
     }
 
     @Override public String toString() {
@@ -0,0 +1,20 @@
+package edu.psu.ist.analyzer.utils;
+
+/**
+ * The operations that build a graph, shared by {@link Digraph} and
+ * {@link ConcurrentDigraph} so that code constructing graphs (such as
+ * {@link edu.psu.ist.analyzer.PieGraphBuildingListener}) can fill either.
+ *
+ * @param <V> the type for vertices.
+ */
+public interface DigraphBuilder<V> {
+
+    /** Adds a vertex to the graph. No-op if the vertex is already present. */
+    void add(V vertex);
+
+    /** Adds an edge ({@code from}, {@code to}), adding {@code from} if it is absent. */
+    void add(V from, V to);
+
+    /** Returns the vertex whose {@code toString()} is {@code name}, or {@code null}. */
+    V getVertex(String name);
+}
@@ -0,0 +1,139 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.util.BitSet;
+
+/**
+ * A minimal streaming JSON builder, just enough for the analyzer's
+ * machine-readable output. Commas are inserted automatically:
+ * <pre>
+ *     new JsonWriter().beginObject().name("ok").value(true).endObject().toString()
+ * </pre>
+ * No validation is done; callers are expected to nest calls properly.
+ */
+public final class JsonWriter {
+
+    private final StringBuilder out;
+
+    /** Whether each open object/array (by nesting depth) already holds a value. */
+    private final BitSet hasValue = new BitSet();
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter() {
+        this(new StringBuilder());
+    }
+
+    public JsonWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    /** Writes the name of the next member of the current object. */
+    public JsonWriter name(String name) {
+        separate();
+        quote(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String s) {
+        separate();
+        if (s == null) {
+            out.append("null");
+        } else {
+            quote(s);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long n) {
+        separate();
+        out.append(n);
+        return this;
+    }
+
+    /** Writes {@code d}; non-finite values (not representable in JSON) become {@code null}. */
+    public JsonWriter value(double d) {
+        separate();
+        if (Double.isFinite(d)) {
+            out.append(d);
+        } else {
+            out.append("null");
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean b) {
+        separate();
+        out.append(b);
+        return this;
+    }
+
+    @Override public String toString() {
+        return out.toString();
+    }
+
+    private void push() {
+        depth++;
+        hasValue.clear(depth);
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0 && hasValue.get(depth)) {
+            out.append(',');
+        }
+        hasValue.set(depth);
+    }
+
+    private void quote(String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
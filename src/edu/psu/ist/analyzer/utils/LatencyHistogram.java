@@ -0,0 +1,88 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe latency histogram with power-of-two microsecond buckets
+ * (bucket {@code i} counts latencies in {@code [2^(i-1), 2^i)} us). Recording
+ * is wait-free; percentiles are accurate to within a factor of two, which is
+ * plenty for spotting tail latency.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40; // 2^39 us is about 6 days
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    public void record(Duration latency) {
+        recordNanos(latency.toNanos());
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalMicros.add(micros);
+        count.increment();
+    }
+
+    /** A point-in-time copy of a {@link LatencyHistogram}. */
+    public record Snapshot(long count, long meanMicros, long p50Micros,
+                           long p90Micros, long p99Micros, long maxMicros) {
+
+        @Override public String toString() {
+            return String.format("n=%d mean=%dus p50<=%dus p90<=%dus p99<=%dus max<=%dus",
+                    count, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Returns the current count, mean and percentiles; each percentile is the
+     * upper bound of the bucket it falls into.
+     */
+    public Snapshot snapshot() {
+        long[] c = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            c[i] = counts.get(i);
+            n += c[i];
+        }
+        long mean = n == 0 ? 0 : totalMicros.sum() / Math.max(1, count.sum());
+        long max = 0;
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (c[i] > 0) {
+                max = upperBound(i);
+                break;
+            }
+        }
+        return new Snapshot(n, mean, percentile(c, n, 0.50),
+                percentile(c, n, 0.90), percentile(c, n, 0.99), max);
+    }
+
+    private static long percentile(long[] c, long n, double q) {
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < c.length; i++) {
+            seen += c[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(c.length - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    @Override public String toString() {
+        return snapshot().toString();
+    }
+}
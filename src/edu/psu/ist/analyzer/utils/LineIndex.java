@@ -0,0 +1,92 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * The offsets at which the lines of a text start, for mapping character
+ * offsets to line and column numbers (by binary search) and back.
+ * <p>
+ * Built by a single pass over the text; lines are terminated by
+ * {@code '\n'}, as in ANTLR's line counting (a preceding {@code '\r'} is
+ * treated as part of the terminator when extracting line contents). Lines
+ * are numbered from 1 and columns from 0, again as in ANTLR tokens.
+ */
+public final class LineIndex {
+
+    private final CharSequence text;
+    private final int[] starts;
+    private final int lineCount;
+
+    public LineIndex(CharSequence text) {
+        this.text = text;
+        int[] s = new int[16];
+        int n = 1; // s[0] = 0: the first line starts at offset 0
+        for (int i = 0, len = text.length(); i < len; i++) {
+            if (text.charAt(i) == '\n') {
+                if (n == s.length) {
+                    s = Arrays.copyOf(s, n * 2);
+                }
+                s[n++] = i + 1;
+            }
+        }
+        this.starts = s;
+        this.lineCount = n;
+    }
+
+    /** Returns the number of lines (a text not ending in a newline still has a last line). */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /** Returns the (1-based) line containing {@code offset}. */
+    public int lineOf(int offset) {
+        checkOffset(offset);
+        int i = Arrays.binarySearch(starts, 0, lineCount, offset);
+        // an exact hit is the first char of a line; otherwise the insertion
+        // point is one past the line containing offset
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /** Returns the (0-based) column of {@code offset} within its line. */
+    public int columnOf(int offset) {
+        return offset - lineStart(lineOf(offset));
+    }
+
+    /** Returns the offset of the first character of {@code line}. */
+    public int lineStart(int line) {
+        checkLine(line);
+        return starts[line - 1];
+    }
+
+    /** Returns the offset just past the last character of {@code line}, excluding its terminator. */
+    public int lineEnd(int line) {
+        checkLine(line);
+        if (line == lineCount) {
+            return text.length();
+        }
+        int end = starts[line] - 1; // the '\n'
+        return end > starts[line - 1] && text.charAt(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    /** Returns the offset of {@code column} in {@code line}. */
+    public int offsetOf(int line, int column) {
+        return lineStart(line) + column;
+    }
+
+    /** Returns the contents of {@code line}, without its terminator. */
+    public CharSequence line(int line) {
+        return text.subSequence(lineStart(line), lineEnd(line));
+    }
+
+    private void checkOffset(int offset) {
+        if (offset < 0 || offset > text.length()) {
+            throw new IndexOutOfBoundsException("offset " + offset + " outside [0, " + text.length() + "]");
+        }
+    }
+
+    private void checkLine(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("line " + line + " outside [1, " + lineCount + "]");
+        }
+    }
+}
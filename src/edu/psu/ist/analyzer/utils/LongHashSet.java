@@ -0,0 +1,118 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive {@code long}s backed by an open-addressing hash table
+ * (linear probing), for hot loops where boxing every element as a
+ * {@link Long} (or wrapping it in a {@link Pair}) would dominate the cost.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.5;
+
+    /** Slots; {@link #EMPTY} marks a free slot, so 0 itself is tracked separately. */
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /** Creates a set that can hold {@code expectedSize} elements without resizing. */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.table = new long[capacity];
+    }
+
+    /** Adds {@code v}; returns {@code true} only if it wasn't already present. */
+    public boolean add(long v) {
+        if (v == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(v) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == v) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = v;
+        if (++size > table.length * MAX_LOAD) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long v) {
+        if (v == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int i = mix(v) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == v) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Calls {@code action} on every element (in no particular order). */
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY);
+        }
+        for (long v : table) {
+            if (v != EMPTY) {
+                action.accept(v);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long v : old) {
+            if (v != EMPTY) {
+                int i = mix(v) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = v;
+            }
+        }
+    }
+
+    /** Spreads the bits of {@code v} (the finalizer step of MurmurHash3). */
+    private static int mix(long v) {
+        v ^= v >>> 33;
+        v *= 0xff51afd7ed558ccdL;
+        v ^= v >>> 33;
+        v *= 0xc4ceb9fe1a85ec53L;
+        v ^= v >>> 33;
+        return (int) v;
+    }
+
+    @Override public String toString() {
+        long[] values = new long[size];
+        int[] n = {0};
+        forEach(v -> values[n[0]++] = v);
+        return Arrays.toString(values);
+    }
+}
@@ -1,11 +1,89 @@
 package edu.psu.ist.analyzer.utils;
 
+import java.time.Duration;
+
 // overkill, but if you ever want to add additional options to the pie analyzer, do so here.
-public record Options(boolean runSilent) {
+/**
+ * @param runSilent     don't print errors to stderr.
+ * @param renderThreads how many graphs may be rendered at once.
+ * @param renderTimeout upper bound on the time a single render may take.
+ * @param lint          also report unused variables and dead stores.
+ * @param cancellation  polled by analyses and graph exports, which stop once
+ *                      it is cancelled.
+ * @param parseThreads  how many threads may parse a single large script, a
+ *                      chunk of procedures each; {@code 1} parses every
+ *                      script on the calling thread.
+ */
+public record Options(boolean runSilent, int renderThreads, Duration renderTimeout, boolean lint,
+                      CancellationToken cancellation, int parseThreads) {
+
+    /** Default upper bound on the time a single graph render may take. */
+    public static final Duration DEFAULT_RENDER_TIMEOUT = Duration.ofSeconds(60);
 
     /**
      * This is primarily for testing purposes (don't want the output pane to
      * be filled with prints when running jUnit tests)
      */
     public static final Options TestOpts = new Options(true);
+
+    public Options {
+        if (renderThreads < 1) {
+            throw new IllegalArgumentException("renderThreads must be >= 1");
+        }
+        if (renderTimeout == null || renderTimeout.isNegative() || renderTimeout.isZero()) {
+            throw new IllegalArgumentException("renderTimeout must be positive");
+        }
+        if (cancellation == null) {
+            throw new IllegalArgumentException("cancellation must not be null (use CancellationToken.NONE)");
+        }
+        if (parseThreads < 1) {
+            throw new IllegalArgumentException("parseThreads must be >= 1");
+        }
+    }
+
+    /**
+     * Creates options with the given {@code runSilent} flag; graphs are
+     * rendered by one thread per core with the default timeout, lint
+     * checks are off, nothing is ever cancelled, and scripts are parsed on
+     * the calling thread.
+     */
+    public Options(boolean runSilent) {
+        this(runSilent, Runtime.getRuntime().availableProcessors(), DEFAULT_RENDER_TIMEOUT, false,
+                CancellationToken.NONE, 1);
+    }
+
+    /** Returns a copy of these options that do (or do not) print errors to stderr. */
+    public Options withRunSilent(boolean runSilent) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
+
+    /** Returns a copy of these options with the given number of render threads. */
+    public Options withRenderThreads(int renderThreads) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
+
+    /** Returns a copy of these options with the given per-render timeout. */
+    public Options withRenderTimeout(Duration renderTimeout) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
+
+    /** Returns a copy of these options with lint checks turned on or off. */
+    public Options withLint(boolean lint) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
+
+    /**
+     * Returns a copy of these options whose analyses stop, with a
+     * {@link CancelledException}, once {@code cancellation} is cancelled.
+     * Since a token is usually made per request, the copy is meant for a
+     * single analysis (or a batch that should be cancelled together).
+     */
+    public Options withCancellation(CancellationToken cancellation) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
+
+    /** Returns a copy of these options parsing large scripts on up to {@code parseThreads} threads. */
+    public Options withParseThreads(int parseThreads) {
+        return new Options(runSilent, renderThreads, renderTimeout, lint, cancellation, parseThreads);
+    }
 }
@@ -1,7 +1,9 @@
 package edu.psu.ist.analyzer.utils;
 
 /**
- * A result either holds value ({@link Ok}) or an error ({@link Err}).
+ * A result either holds value ({@link Ok}) or an error ({@link Err}), or
+ * records that the computation producing it was stopped before it could
+ * tell ({@link Cancelled}).
  *
  * @param <T> the type of the value.
  * @param <E> the type of the error.
@@ -17,6 +19,10 @@ public sealed interface Result<T, E> {
         return new Err<>(e);
     }
 
+    static <T, E> Result<T, E> cancelled(String reason) {
+        return new Cancelled<>(reason);
+    }
+
     // instance methods:
 
     /**
@@ -58,6 +64,10 @@ public sealed interface Result<T, E> {
         return this instanceof Result.Err<T, E>;
     }
 
+    default boolean isCancelled() {
+        return this instanceof Result.Cancelled<T, E>;
+    }
+
     // actual implementations:
 
     record Ok<T, E>(T t) implements Result<T, E> {
@@ -65,4 +75,8 @@ public sealed interface Result<T, E> {
 
     record Err<T, E>(E e) implements Result<T, E> {
     }
+
+    /** @param reason why the computation stopped (e.g., "deadline exceeded"). */
+    record Cancelled<T, E>(String reason) implements Result<T, E> {
+    }
 }
@@ -4,16 +4,31 @@ package edu.psu.ist.analyzer.utils;
  * A class that represents the physical source location of some parsed
  * syntactic entity.
  *
- * @param source       the parser input text
- * @param locationKind the source location kind (real or synthetic)
- * @param beginLine    the line number where the entity begins.
- * @param beginCol     the column number where the entity begins.
- * @param endLine      the line number where the entity ends.
- * @param endCol       the column number where the entity ends.
+ * @param source      the parser input text
+ * @param beginLine   the line number where the entity begins.
+ * @param beginCol    the column number where the entity begins.
+ * @param endLine     the line number where the entity ends.
+ * @param endCol      the column number just past the end of the entity.
+ * @param beginOffset the offset in {@code source} of the entity's first
+ *                    character, or {@code -1} if unknown.
+ * @param endOffset   the offset in {@code source} just past the entity's
+ *                    last character, or {@code -1} if unknown.
  */
 public record SourceLocation(TextInput source,
                              int beginLine, int beginCol,
-                             int endLine, int endCol) {
+                             int endLine, int endCol,
+                             int beginOffset, int endOffset) {
+
+    /** Creates a location whose offsets are unknown. */
+    public SourceLocation(TextInput source, int beginLine, int beginCol,
+                          int endLine, int endCol) {
+        this(source, beginLine, beginCol, endLine, endCol, -1, -1);
+    }
+
+    /** Returns true if this location knows the character span it covers. */
+    public boolean hasOffsets() {
+        return beginOffset >= 0 && endOffset >= beginOffset;
+    }
 
     @Override public String toString() {
         return String.format("%s:%s:%s", source.name(), beginLine, beginCol);
@@ -1,4 +1,53 @@
 package edu.psu.ist.analyzer.utils;
 
-public record TextInput(String name, String text){
+import java.util.Objects;
+
+/**
+ * A named piethon source text.
+ * <p>
+ * The {@link LineIndex} of the text is built on first use and then shared
+ * by every diagnostic reported against it, so rendering many messages for a
+ * large file does not rescan the text for each one.
+ */
+public final class TextInput {
+
+    private final String name;
+    private final String text;
+    // benign race: at worst two threads each build an (identical) index
+    private LineIndex lines;
+
+    public TextInput(String name, String text) {
+        this.name = name;
+        this.text = text;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /** Returns the line-start offsets of {@link #text()}. */
+    public LineIndex lineIndex() {
+        LineIndex l = lines;
+        if (l == null) {
+            lines = l = new LineIndex(text);
+        }
+        return l;
+    }
+
+    @Override public boolean equals(Object o) {
+        return o instanceof TextInput t && Objects.equals(name, t.name)
+                && Objects.equals(text, t.text);
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(name, text);
+    }
+
+    @Override public String toString() {
+        return "TextInput[name=" + name + ", text=" + text + "]";
+    }
 }
@@ -0,0 +1,137 @@
+package edu.psu.ist.analyzer.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns dense integer ids {@code 0, 1, 2, ...} to vertices in the order
+ * they are first seen, so graph algorithms can work on primitive arrays
+ * indexed by id instead of on maps keyed by vertex.
+ * <p>
+ * Backed by an open-addressing table of parallel key/id arrays, so unlike a
+ * {@code Map<V, Integer>} no entry or boxed id objects are allocated.
+ *
+ * @param <V> the type for vertices.
+ */
+public final class VertexIndex<V> {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private Object[] keys;
+    private int[] ids;
+    private Object[] vertices;
+    private int size;
+
+    public VertexIndex() {
+        this(16);
+    }
+
+    /** Creates an index that can hold {@code expectedSize} vertices without resizing. */
+    public VertexIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.keys = new Object[capacity];
+        this.ids = new int[capacity];
+        this.vertices = new Object[Math.max(4, expectedSize)];
+    }
+
+    /** Returns an index of every vertex (including edge targets) of {@code g}. */
+    public static <V> VertexIndex<V> of(Digraph<V> g) {
+        var index = new VertexIndex<V>(g.getVertices().size());
+        for (V v : g.getVertices()) {
+            index.intern(v);
+        }
+        for (V v : g.getVertices()) {
+            for (V w : g.neighbors(v)) {
+                index.intern(w);
+            }
+        }
+        return index;
+    }
+
+    /** Returns the id of {@code v}, assigning it the next free id if it has none. */
+    public int intern(V v) {
+        int mask = keys.length - 1;
+        int i = mix(v.hashCode()) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(v)) {
+                return ids[i];
+            }
+            i = (i + 1) & mask;
+        }
+        int id = size++;
+        keys[i] = v;
+        ids[i] = id;
+        if (id == vertices.length) {
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        }
+        vertices[id] = v;
+        if (size > keys.length * MAX_LOAD) {
+            rehash(keys.length << 1);
+        }
+        return id;
+    }
+
+    /** Returns the id of {@code v}, or {@code -1} if it has none. */
+    public int idOf(V v) {
+        int mask = keys.length - 1;
+        int i = mix(v.hashCode()) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(v)) {
+                return ids[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Returns the vertex with the given {@code id}. */
+    @SuppressWarnings("unchecked")
+    public V vertex(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return (V) vertices[id];
+    }
+
+    /** Returns the number of vertices (and hence one more than the largest id). */
+    public int size() {
+        return size;
+    }
+
+    /** Returns a read-only view of the vertices, ordered by id. */
+    public List<V> vertices() {
+        return new AbstractList<>() {
+            @Override public V get(int id) {
+                return vertex(id);
+            }
+
+            @Override public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new Object[capacity];
+        ids = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = mix(oldKeys[j].hashCode()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                ids[i] = oldIds[j];
+            }
+        }
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9; // golden-ratio multiplicative hashing
+        return h ^ (h >>> 16);
+    }
+}
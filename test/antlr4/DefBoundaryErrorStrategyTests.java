@@ -0,0 +1,80 @@
+package antlr4;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.entry.SymbolTableEntry;
+import edu.psu.ist.analyzer.errors.ParseError;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class DefBoundaryErrorStrategyTests {
+
+    private final PieChecker checker = new PieChecker(Options.TestOpts);
+
+    private static long count(List<PieErrorMessage> errors, Class<?> kind) {
+        return errors.stream().filter(kind::isInstance).count();
+    }
+
+    @Test public void testProceduresAroundBrokenOneAreStillChecked() {
+        var input = new TextInput("test", """
+                def f(x : Int32) : Int32 is
+                    return x;
+                end
+                def g(x : Int32 is // missing ')'
+                    var y : Int32 := x;
+                    return y;
+                end
+                def h() : Int32 is
+                    g(1, 2);          // not checked: g is broken
+                    return true;      // type mismatch
+                end
+                """);
+
+        var errors = checker.check(input).getError();
+        Assertions.assertEquals(1, count(errors, ParseError.class), errors.toString());
+        Assertions.assertEquals(1, count(errors, SemanticError.TypeMismatch.class), errors.toString());
+        Assertions.assertEquals(2, errors.size(), errors.toString());
+
+        var analysis = checker.analyze(input);
+        Assertions.assertEquals(List.of("f", "h"), analysis.procedures().stream()
+                .map(SymbolTableEntry.ProcDefEntry::name).toList());
+        Assertions.assertEquals(List.of(new ProcNode("g")), analysis.graph().neighbors(new ProcNode("h")));
+    }
+
+    @Test public void testErrorsPerProcedureAreCapped() {
+        // every statement is missing its ';', which single-token insertion
+        // repairs (and reports) one at a time
+        var input = new TextInput("test", "def f(x : Int32) : Void is\n"
+                + "    x := x + 1\n".repeat(1_000) + "end\n"
+                + "def g() : Void is\n    return 1;\nend\n");
+
+        var errors = checker.check(input).getError();
+        Assertions.assertEquals(DefBoundaryErrorStrategy.DEFAULT_MAX_ERRORS_PER_DEF + 1,
+                count(errors, ParseError.class), errors.toString());
+        Assertions.assertTrue(errors.get(DefBoundaryErrorStrategy.DEFAULT_MAX_ERRORS_PER_DEF)
+                .message().contains("too many syntax errors"));
+        Assertions.assertEquals(1, count(errors, SemanticError.TypeMismatch.class), errors.toString());
+    }
+
+    @Test public void testGarbageYieldsBoundedErrors() {
+        int defs = 2_000;
+        var s = new StringBuilder();
+        for (int i = 0; i < defs; i++) {
+            s.append("def p").append(i).append("() : Void is\n")
+             .append("    := ; ( ) , := + ; end := def\n".repeat(i % 7))
+             .append("end\n");
+        }
+
+        var errors = checker.check(new TextInput("garbage", s.toString())).getError();
+        Assertions.assertFalse(errors.isEmpty());
+        Assertions.assertTrue(errors.size()
+                <= (long) defs * (DefBoundaryErrorStrategy.DEFAULT_MAX_ERRORS_PER_DEF + 1),
+                "errors: " + errors.size());
+    }
+}
@@ -0,0 +1,117 @@
+package antlr4;
+
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class PackedTokenStreamTests {
+
+    private static final TextInput SOURCE = new TextInput("test", """
+            def f(x : Int32) : Int32 is
+                var y : Int32 := x + 1; // a comment
+                return y;
+            end
+            def g(x : Int32 is
+                f(x, x);
+                return ;;
+            end
+            def h() : Void is
+                f(2);
+            end
+            """);
+
+    private static PiethonLexer lexer() {
+        var lexer = new PiethonLexer(CharStreams.fromString(SOURCE.text(), SOURCE.name()));
+        lexer.removeErrorListeners();
+        return lexer;
+    }
+
+    @Test public void testTokensMatchCommonTokenStream() {
+        var common = new CommonTokenStream(lexer());
+        common.fill();
+        List<Token> expected = common.getTokens().stream()
+                .filter(t -> t.getChannel() == Token.DEFAULT_CHANNEL).toList();
+
+        var packed = new PackedTokenStream(lexer());
+        for (int i = 0; i < expected.size(); i++) {
+            Token want = expected.get(i);
+            Assertions.assertEquals(want.getType(), packed.LA(i + 1), "token " + i);
+            Token got = packed.LT(i + 1);
+            Assertions.assertEquals(i, got.getTokenIndex());
+            Assertions.assertEquals(want.getText(), got.getText(), "token " + i);
+            Assertions.assertEquals(want.getLine(), got.getLine(), "token " + i);
+            Assertions.assertEquals(want.getCharPositionInLine(), got.getCharPositionInLine(), "token " + i);
+            Assertions.assertEquals(want.getStartIndex(), got.getStartIndex(), "token " + i);
+            Assertions.assertEquals(want.getStopIndex(), got.getStopIndex(), "token " + i);
+        }
+        Assertions.assertEquals(expected.size(), packed.size());
+        Assertions.assertEquals(Token.EOF, packed.LA(expected.size() + 5));
+
+        packed.seek(3);
+        Assertions.assertEquals(3, packed.index());
+        Assertions.assertEquals(expected.get(2).getText(), packed.LT(-1).getText());
+        packed.consume();
+        Assertions.assertSame(packed.LT(1), packed.get(4));
+        // text between tokens includes the hidden text around them
+        Assertions.assertEquals("def f(x", packed.getText(Interval.of(0, 3)));
+        Assertions.assertEquals(SOURCE.text().strip(), packed.getText());
+    }
+
+    @Test public void testParsesLikeCommonTokenStream() {
+        var common = parse(CommonTokenStream::new);
+        var packed = parse(PackedTokenStream::new);
+        Assertions.assertEquals(common.tree(), packed.tree());
+        Assertions.assertEquals(common.errors(), packed.errors());
+        Assertions.assertFalse(packed.errors().isEmpty());
+    }
+
+    @Test public void testRangeSourceEndsAtNextToken() {
+        var tokens = new PackedTokens();
+        var lexer = lexer();
+        for (Token t = lexer.nextToken(); ; t = lexer.nextToken()) {
+            if (t.getChannel() == Token.DEFAULT_CHANNEL) {
+                tokens.add(t);
+            }
+            if (t.getType() == Token.EOF) {
+                break;
+            }
+        }
+        Assertions.assertEquals(20L * 4096, tokens.packedBytes());
+
+        var range = tokens.source(1, 3, lexer.getInputStream());
+        Assertions.assertEquals("f", range.nextToken().getText());
+        Assertions.assertEquals("(", range.nextToken().getText());
+        Token end = range.nextToken();
+        Assertions.assertEquals(Token.EOF, end.getType());
+        Assertions.assertEquals(tokens.start(3), end.getStartIndex());
+
+        var last = tokens.source(tokens.size() - 1, tokens.size(), lexer.getInputStream());
+        Assertions.assertEquals(Token.EOF, last.nextToken().getType());
+        Assertions.assertEquals(Token.EOF, last.nextToken().getType());
+    }
+
+    private record Parse(String tree, List<String> errors) {
+    }
+
+    private static Parse parse(Function<PiethonLexer, TokenStream> stream) {
+        var errors = new AntlrErrorReportingListener(SOURCE);
+        var parser = new PiethonParser(stream.apply(lexer()));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+        parser.setErrorHandler(new DefBoundaryErrorStrategy());
+        String tree = parser.script().toStringTree(parser);
+        return new Parse(tree, errors.errors().stream()
+                .map(e -> e.message() + " @" + e.loc().beginOffset() + "-" + e.loc().endOffset())
+                .toList());
+    }
+}
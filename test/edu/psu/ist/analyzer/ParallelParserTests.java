@@ -0,0 +1,71 @@
+package edu.psu.ist.analyzer;
+
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ParallelParserTests {
+
+    private final PieChecker sequential = new PieChecker(Options.TestOpts);
+    private final PieChecker parallel = sequential.withOptions(Options.TestOpts.withParseThreads(4));
+
+    /** A script of {@code n} procedures; every {@code brokenEvery}-th one is malformed (0: none). */
+    private static TextInput script(int n, int brokenEvery) {
+        var s = new StringBuilder("// leading comment\n");
+        for (int i = 0; i < n; i++) {
+            boolean broken = brokenEvery > 0 && i % brokenEvery == 0;
+            s.append("def p").append(i).append("(a : Int32, b : Bool) : Int32 is\n")
+                    .append("    var x : Int32 := a + ").append(i).append(";\n");
+            if (i > 0) {
+                s.append("    p").append(i - 1).append("(x, b);\n");
+            }
+            if (broken && i % 2 == 0) {
+                s.append("    x := ;\n"); // a bad statement
+            }
+            s.append("    return x;\n");
+            if (!broken || i % 2 == 0) {
+                s.append("end\n"); // odd broken ones lack their 'end'
+            }
+        }
+        return new TextInput("big", s.toString());
+    }
+
+    private static List<PieErrorMessage> sorted(List<PieErrorMessage> errors) {
+        List<PieErrorMessage> copy = new ArrayList<>(errors);
+        copy.sort(Comparator.comparingInt((PieErrorMessage e) -> e.loc().beginOffset())
+                .thenComparing(Object::toString));
+        return copy;
+    }
+
+    @Test public void testMatchesSequentialParse() {
+        var source = script(2_000, 0);
+        Assertions.assertTrue(source.text().length() > ParallelParser.MIN_CHARS);
+
+        PieAnalysis expected = sequential.analyze(source);
+        PieAnalysis actual = parallel.analyze(source);
+        Assertions.assertTrue(actual.isOk(), () -> actual.errors().toString());
+        // procedure entries carry their locations, so these agree on every span
+        Assertions.assertEquals(expected.procedures(), actual.procedures());
+        Assertions.assertEquals(expected.graph().edges(), actual.graph().edges());
+        Assertions.assertTrue(parallel.check(source).isOk());
+    }
+
+    @Test public void testSyntaxErrorsMatchSequentialParse() {
+        // a few errors, then so many that chunks surely end in broken procedures
+        for (int brokenEvery : new int[]{97, 1}) {
+            var source = script(2_000, brokenEvery);
+
+            PieAnalysis expected = sequential.analyze(source);
+            PieAnalysis actual = parallel.analyze(source);
+            Assertions.assertFalse(expected.isOk());
+            Assertions.assertEquals(sorted(expected.errors()), sorted(actual.errors()));
+            Assertions.assertEquals(expected.procedures(), actual.procedures());
+            Assertions.assertEquals(expected.graph().edges(), actual.graph().edges());
+        }
+    }
+}
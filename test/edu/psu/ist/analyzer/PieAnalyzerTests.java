@@ -4,10 +4,12 @@ import antlr4.edu.psu.ist.parser.PiethonParser;
 import edu.psu.ist.TestUtils;
 import edu.psu.ist.analyzer.errors.ParseError;
 import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.Options;
 import edu.psu.ist.analyzer.utils.Result;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
 import java.util.List;
 
 // NOTE: these will fail until you implement the logic in PieScriptCheckingListener;
@@ -150,6 +152,97 @@ public class PieAnalyzerTests extends TestUtils {
     }
 
 
+    @Test
+    public void testWellTypedScript() {
+        String input = """
+        def add(a : Int32, b : Int32) : Int32 is
+            var sum : Int32 := a + b;
+            var ok : Bool := true;
+            sum := sum + 1;
+            return sum;
+        end
+
+        def main() : Void is
+            add(1, 2);
+        end
+        """;
+
+        var result = check(input);
+        Assertions.assertTrue(result.isOk(), "Expected script to typecheck");
+    }
+
+    // deeply nested (left-recursive) expressions:
+
+    @Test
+    public void testDeeplyNestedAddition() {
+        var input = new StringBuilder("def f(a : Int32) : Int32 is\n    return a");
+        for (int i = 0; i < 100_000; i++) {
+            input.append(" + a");
+        }
+        input.append(";\nend\n");
+
+        var result = check(input.toString());
+        Assertions.assertTrue(result.isOk(), "Expected deep sum to typecheck");
+    }
+
+    @Test
+    public void testDeeplyNestedAdditionTypeMismatch() {
+        var input = new StringBuilder("def f(a : Int32) : Int32 is\n    return true");
+        for (int i = 0; i < 100_000; i++) {
+            input.append(" + a");
+        }
+        input.append(";\nend\n");
+
+        var result = check(input.toString());
+        expectError(SemanticError.TypeMismatch.class, result, 1);
+    }
+
+    // streaming (def-at-a-time) mode:
+
+    @Test
+    public void testStreamingBuildsSameGraph() {
+        String input = """
+        def g() : Void is
+        end
+
+        def f(x : Int32) : Void is
+            var y : Int32 := x + 1;
+            g();
+        end
+
+        def m() : Int32 is
+            f(1);
+            g();
+            return 0;
+        end
+        """;
+
+        var expected = new PieAnalyzer().setOptions(Options.TestOpts)
+                .setScriptCode("<test>", input).buildGraph();
+        var result = new PieAnalyzer().setOptions(Options.TestOpts)
+                .checkStreaming("<test>", new StringReader(input));
+        Assertions.assertTrue(result.isOk(), "Expected streamed script to typecheck");
+        Assertions.assertEquals(expected.edges(), result.get().edges());
+    }
+
+    @Test
+    public void testStreamingReportsErrors() {
+        String input = """
+        def main() : Void is
+            compute(); // No such procedure 'compute'
+        end
+        def invalid(x : Int32 is // Missing closing parenthesis
+            return x;
+        end
+        """;
+
+        var result = new PieAnalyzer().setOptions(Options.TestOpts)
+                .checkStreaming("<test>", new StringReader(input));
+        Assertions.assertTrue(result.isError(), "Expected errors");
+        Assertions.assertTrue(result.getError().stream()
+                .anyMatch(e -> e instanceof ParseError));
+    }
+
     @Test
     public void testNoSuchProcedure() {
         String input = """
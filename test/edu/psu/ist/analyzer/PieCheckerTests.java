@@ -0,0 +1,88 @@
+package edu.psu.ist.analyzer;
+
+import edu.psu.ist.analyzer.utils.CancellationToken;
+import edu.psu.ist.analyzer.utils.CancelledException;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.Result;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PieCheckerTests {
+
+    private static TextInput script(int i) {
+        // every third script has a type error, every fifth a syntax error
+        String body = i % 3 == 0 ? "return true;" : "return x;";
+        String end = i % 5 == 0 ? "" : "end";
+        return new TextInput("s" + i, """
+                def g%d(x : Int32) : Int32 is
+                    return x + %d;
+                end
+                def f%d(x : Int32) : Int32 is
+                    g%d(x);
+                    %s
+                %s
+                """.formatted(i, i, i, i, body, end));
+    }
+
+    @Test public void testConcurrentCallsMatchSequentialOnes() throws Exception {
+        var checker = new PieChecker(Options.TestOpts);
+        int n = 2_000;
+        List<PieAnalysis> expected = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            expected.add(checker.analyze(script(i)));
+        }
+
+        List<Future<PieAnalysis>> actual = new ArrayList<>();
+        try (var threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                int id = i;
+                actual.add(threads.submit(() -> checker.analyze(script(id))));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            PieAnalysis a = actual.get(i).get();
+            Assertions.assertEquals(expected.get(i).errors(), a.errors(), "script " + i);
+            Assertions.assertEquals(expected.get(i).procedures(), a.procedures(), "script " + i);
+            Assertions.assertEquals(expected.get(i).graph().edges(), a.graph().edges(), "script " + i);
+        }
+        Assertions.assertTrue(expected.get(1).isOk());
+        Assertions.assertFalse(expected.get(3).isOk());
+        Assertions.assertFalse(expected.get(5).isOk());
+    }
+
+    @Test public void testMatchesBuilderApi() {
+        var source = script(1);
+        var checker = new PieChecker(Options.TestOpts);
+        var analyzer = new PieAnalyzer().setScriptCode(source.name(), source.text());
+        Assertions.assertEquals(analyzer.buildGraph().edges(), checker.buildGraph(source).edges());
+        Assertions.assertEquals(analyzer.check().isOk(), checker.check(source).isOk());
+    }
+
+    @Test public void testCancellation() {
+        var source = script(1);
+        var token = CancellationToken.create();
+        var checker = new PieChecker(Options.TestOpts.withCancellation(token));
+        Assertions.assertTrue(checker.check(source).isOk());
+
+        token.cancel();
+        var result = checker.check(source);
+        Assertions.assertTrue(result.isCancelled());
+        Assertions.assertEquals("cancelled", ((Result.Cancelled<?, ?>) result).reason());
+        Assertions.assertThrows(CancelledException.class, () -> checker.analyze(source));
+        Assertions.assertThrows(CancelledException.class, () -> checker.buildGraph(source));
+
+        var expired = Options.TestOpts.withCancellation(CancellationToken.withTimeout(Duration.ZERO));
+        var streamed = new PieAnalyzer().setOptions(expired)
+                .checkStreaming(source.name(), new StringReader(source.text()));
+        Assertions.assertEquals(Result.cancelled("deadline exceeded"), streamed);
+        Assertions.assertThrows(UnsupportedOperationException.class, CancellationToken.NONE::cancel);
+    }
+}
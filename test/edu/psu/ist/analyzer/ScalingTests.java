@@ -0,0 +1,167 @@
+package edu.psu.ist.analyzer;
+
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.Options;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Guards against accidentally quadratic code: each test times an operation
+ * at doubling input sizes and fails if the running time grows faster than
+ * the expected bound.
+ * <p>
+ * The growth exponent {@code k} (as in {@code time ~ n^k}) is estimated by a
+ * least-squares fit of {@code log(time)} against {@code log(n)}, using the
+ * fastest of several runs per size to damp noise. Linear code has
+ * {@code k ~ 1} and quadratic code {@code k ~ 2}; the bounds leave room for
+ * noise and {@code n log n} factors in between.
+ * <p>
+ * These take a while and are sensitive to machine load, so they are
+ * excluded from the default build; run them with {@code mvn test -Pscaling}.
+ */
+@Tag("scaling")
+public class ScalingTests {
+
+    /** Largest accepted exponent for operations that should be linear. */
+    private static final double LINEAR = 1.3;
+    /** Largest accepted exponent for operations that should be {@code O(n log n)}. */
+    private static final double N_LOG_N = 1.4;
+
+    private static final int RUNS_PER_SIZE = 5;
+
+    /**
+     * A single run slower than this fails the test outright, so a regression
+     * to quadratic time fails fast instead of running for hours.
+     */
+    private static final long RUN_BUDGET_NANOS = 20_000_000_000L;
+
+    @Test public void testCheckerIsLinearInProcedures() {
+        assertGrowth("check", LINEAR, 1_000, 5, n -> {
+            var analyzer = new PieAnalyzer().setOptions(Options.TestOpts)
+                    .setScriptCode("scaling", script(n));
+            return () -> Assertions.assertTrue(analyzer.check().isOk());
+        });
+    }
+
+    @Test public void testGraphBuildingIsLinearInProcedures() {
+        assertGrowth("buildGraph", LINEAR, 1_000, 5, n -> {
+            var analyzer = new PieAnalyzer().setOptions(Options.TestOpts)
+                    .setScriptCode("scaling", script(n));
+            return () -> Assertions.assertEquals(n, analyzer.buildGraph().getVertices().size());
+        });
+    }
+
+    @Test public void testCheckerIsLinearInExpressionSize() {
+        assertGrowth("check (nested addition)", LINEAR, 5_000, 5, n -> {
+            var analyzer = new PieAnalyzer().setOptions(Options.TestOpts)
+                    .setScriptCode("scaling", "def f() : Int32 is\n    return 1"
+                            + " + 1".repeat(n) + ";\nend\n");
+            return () -> Assertions.assertTrue(analyzer.check().isOk());
+        });
+    }
+
+    @Test public void testDigraphLookupsAreLinear() {
+        assertGrowth("getVertex/inDegree/outDegree", LINEAR, 20_000, 5, n -> {
+            Digraph<ProcNode> g = chain(n);
+            List<String> names = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                names.add("p" + i);
+            }
+            return () -> {
+                long degrees = 0;
+                for (String name : names) {
+                    ProcNode v = g.getVertex(name);
+                    degrees += g.inDegree(v) + g.outDegree(v);
+                }
+                Assertions.assertEquals(4L * n - 6, degrees);
+            };
+        });
+    }
+
+    @Test public void testDigraphConstructionIsNearLinear() {
+        assertGrowth("add/edges", N_LOG_N, 20_000, 5, n -> () ->
+                Assertions.assertEquals(2 * n - 3, chain(n).edges().size()));
+    }
+
+    /**
+     * Times the operation built by {@code setup} (untimed) for sizes
+     * {@code base, 2 base, ...} and fails if the fitted exponent exceeds
+     * {@code maxExponent}.
+     */
+    private static void assertGrowth(String what, double maxExponent, int base, int doublings,
+                                     IntFunction<Runnable> setup) {
+        setup.apply(base).run(); // warm up the JIT on the smallest size
+        double[] logN = new double[doublings];
+        double[] logT = new double[doublings];
+        var report = new StringBuilder();
+        for (int i = 0; i < doublings; i++) {
+            int n = base << i;
+            Runnable op = setup.apply(n);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS_PER_SIZE; run++) {
+                long start = System.nanoTime();
+                op.run();
+                long elapsed = System.nanoTime() - start;
+                best = Math.min(best, elapsed);
+                if (elapsed > RUN_BUDGET_NANOS) {
+                    Assertions.fail(String.format("%s took %.1f s for n=%d:%s",
+                            what, elapsed / 1e9, n, report));
+                }
+            }
+            logN[i] = Math.log(n);
+            logT[i] = Math.log(Math.max(best, 1));
+            report.append(String.format("%n  n=%d: %.2f ms", n, best / 1e6));
+        }
+        double exponent = slope(logN, logT);
+        Assertions.assertTrue(exponent <= maxExponent, String.format(
+                "%s grows like n^%.2f (bound n^%.2f):%s", what, exponent, maxExponent, report));
+    }
+
+    private static double slope(double[] x, double[] y) {
+        double mx = 0, my = 0;
+        for (int i = 0; i < x.length; i++) {
+            mx += x[i] / x.length;
+            my += y[i] / y.length;
+        }
+        double num = 0, den = 0;
+        for (int i = 0; i < x.length; i++) {
+            num += (x[i] - mx) * (y[i] - my);
+            den += (x[i] - mx) * (x[i] - mx);
+        }
+        return num / den;
+    }
+
+    /** A graph where {@code p(i)} calls {@code p(i+1)} and {@code p(i+2)}. */
+    private static Digraph<ProcNode> chain(int n) {
+        var g = new Digraph<ProcNode>();
+        for (int i = 0; i < n; i++) {
+            g.add(new ProcNode("p" + i));
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            g.add(new ProcNode("p" + i), new ProcNode("p" + (i + 1)));
+            if (i + 2 < n) {
+                g.add(new ProcNode("p" + i), new ProcNode("p" + (i + 2)));
+            }
+        }
+        return g;
+    }
+
+    /** A well-typed script of {@code n} procedures, each calling the one before it. */
+    private static String script(int n) {
+        var s = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            s.append("def p").append(i).append("(a : Int32) : Int32 is\n")
+             .append("    var x : Int32 := a + 1;\n");
+            if (i > 0) {
+                s.append("    p").append(i - 1).append("(x);\n");
+            }
+            s.append("    return x;\nend\n");
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package edu.psu.ist.analyzer.cache;
+
+import edu.psu.ist.analyzer.PieAnalysis;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class AnalysisCacheTests {
+
+    @TempDir Path cacheDir;
+
+    private static final TextInput GOOD = new TextInput("good", """
+            def g(x : Int32) : Void is
+            end
+            def f() : Int32 is
+                g(1);
+                return 0;
+            end
+            """);
+
+    private static final TextInput BAD = new TextInput("bad", """
+            def f() : Int32 is
+                var b : Bool := 1;
+                compute();
+                return true;
+            end
+            """);
+
+    @Test public void testRoundTripPreservesAnalysis() throws IOException {
+        var cache = AnalysisCache.open(cacheDir, 1 << 20);
+        for (TextInput source : new TextInput[]{GOOD, BAD}) {
+            PieAnalysis cold = cache.analyze(source, Options.TestOpts);
+            PieAnalysis warm = cache.analyze(source, Options.TestOpts);
+
+            Assertions.assertEquals(cold.errors(), warm.errors());
+            Assertions.assertEquals(cold.procedures(), warm.procedures());
+            Assertions.assertEquals(cold.graph().edges(), warm.graph().edges());
+        }
+        Assertions.assertEquals(2, cache.hits());
+        Assertions.assertEquals(2, cache.misses());
+    }
+
+    @Test public void testEntriesSurviveReopening() throws IOException {
+        AnalysisCache.open(cacheDir, 1 << 20).analyze(BAD, Options.TestOpts);
+
+        var reopened = AnalysisCache.open(cacheDir, 1 << 20);
+        var cached = reopened.lookup(new TextInput("renamed", BAD.text()));
+        Assertions.assertTrue(cached.isPresent());
+        // locations are re-attached to the script being analyzed
+        for (PieErrorMessage e : cached.get().errors()) {
+            Assertions.assertEquals("renamed", e.loc().source().name());
+        }
+    }
+
+    @Test public void testCorruptEntryIsAMiss() throws IOException {
+        var cache = AnalysisCache.open(cacheDir, 1 << 20);
+        cache.analyze(GOOD, Options.TestOpts);
+
+        Path entry = entries().findFirst().orElseThrow();
+        byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(entry, bytes);
+
+        Assertions.assertTrue(cache.lookup(GOOD).isEmpty());
+        Assertions.assertEquals(0, entries().count(), "corrupt entry should be deleted");
+        Assertions.assertTrue(cache.analyze(GOOD, Options.TestOpts).isOk());
+    }
+
+    @Test public void testNamesLongerThan64K() throws IOException {
+        String name = "p".repeat(70_000);
+        var source = new TextInput("long", "def " + name + "() : Void is\nend\ndef " + name + "() : Void is\nend\n");
+        var cache = AnalysisCache.open(cacheDir, 1 << 20);
+        PieAnalysis cold = cache.analyze(source, Options.TestOpts);
+        PieAnalysis warm = cache.lookup(source).orElseThrow();
+
+        Assertions.assertEquals(name, warm.procedures().get(0).name());
+        Assertions.assertEquals(cold.errors(), warm.errors());
+    }
+
+    @Test public void testEvictionKeepsCacheBounded() throws IOException {
+        long bound = 4096;
+        var cache = AnalysisCache.open(cacheDir, bound);
+        for (int i = 0; i < 200; i++) {
+            cache.analyze(new TextInput("s" + i,
+                    "def p" + i + "() : Void is\nend\n"), Options.TestOpts);
+        }
+        long onDisk = 0;
+        try (Stream<Path> files = entries()) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                onDisk += Files.size(p);
+            }
+        }
+        Assertions.assertTrue(onDisk <= bound, "cache holds " + onDisk + " bytes");
+        Assertions.assertEquals(onDisk, cache.sizeInBytes());
+    }
+
+    private Stream<Path> entries() throws IOException {
+        return Files.walk(cacheDir).filter(p -> p.toString().endsWith(".pac"));
+    }
+}
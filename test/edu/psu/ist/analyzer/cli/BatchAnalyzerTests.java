@@ -0,0 +1,99 @@
+package edu.psu.ist.analyzer.cli;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BatchAnalyzerTests {
+
+    @TempDir Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return BatchAnalyzer.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private void writeScripts() throws IOException {
+        Files.createDirectories(dir.resolve("lib"));
+        Files.writeString(dir.resolve("main.pie"), """
+                def g() : Void is
+                end
+                def m() : Int32 is
+                    g();
+                    return 0;
+                end
+                """);
+        Files.writeString(dir.resolve("lib/bad.pie"), """
+                def f() : Int32 is
+                    return true;
+                end
+                """);
+        Files.writeString(dir.resolve("lib/notes.txt"), "not a script");
+    }
+
+    @Test public void testDirectoryJsonAndGraphs() throws IOException {
+        writeScripts();
+        Path graphs = dir.resolve("graphs");
+        int status = run("--format=json", "--threads=2", "--graph-out=" + graphs, dir.toString());
+
+        Assertions.assertEquals(BatchAnalyzer.EXIT_ERRORS, status);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(3, lines.length);
+        String result = String.join("\n", lines);
+        Assertions.assertTrue(result.contains("\"status\":\"ok\",\"procedures\":2,\"calls\":1"));
+        Assertions.assertTrue(result.contains("\"status\":\"errors\""));
+        Assertions.assertTrue(lines[2].startsWith("{\"summary\":{\"files\":2,\"withErrors\":1,\"failed\":0"));
+        try (var svgs = Files.walk(graphs)) {
+            Assertions.assertEquals(2, svgs.filter(p -> p.toString().endsWith(".pie.svg")).count());
+        }
+    }
+
+    @Test public void testGraphNamesKeepDots() throws IOException {
+        Files.writeString(dir.resolve("a..b.pie"), "def f() : Void is\nend\n");
+        Path graphs = dir.resolve("graphs");
+        Assertions.assertEquals(BatchAnalyzer.EXIT_OK,
+                run("--graph-out=" + graphs, dir.resolve("a..b.pie").toString()));
+        try (var svgs = Files.walk(graphs)) {
+            Assertions.assertEquals(1, svgs.filter(p -> p.getFileName().toString().equals("a..b.pie.svg")).count());
+        }
+    }
+
+    @Test public void testSecondRunHitsCache() throws IOException {
+        writeScripts();
+        String cacheDir = "--cache-dir=" + dir.resolve("cache");
+        String scripts = dir.toString();
+        Assertions.assertEquals(BatchAnalyzer.EXIT_ERRORS, run("--format=json", cacheDir, scripts));
+        String first = out.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(first.contains("\"cacheHits\":0,\"cacheMisses\":2"), first);
+
+        out.reset();
+        Assertions.assertEquals(BatchAnalyzer.EXIT_ERRORS, run("--format=json", cacheDir, scripts));
+        String second = out.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(second.contains("\"cacheHits\":2,\"cacheMisses\":0"), second);
+        Assertions.assertTrue(second.contains("\"status\":\"ok\",\"procedures\":2,\"calls\":1"), second);
+        Assertions.assertTrue(second.contains("\"status\":\"errors\""), second);
+    }
+
+    @Test public void testGlobAndUsage() throws IOException {
+        writeScripts();
+        Assertions.assertEquals(BatchAnalyzer.EXIT_OK, run(dir + "/*.pie"));
+        Assertions.assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("OK    "));
+        out.reset();
+        Assertions.assertEquals(BatchAnalyzer.EXIT_OK, run("--graph-only", dir.toString()));
+        Assertions.assertTrue(out.toString(StandardCharsets.UTF_8).contains("(2 vertices, 1 calls"));
+
+        Assertions.assertEquals(BatchAnalyzer.EXIT_USAGE, run());
+        Assertions.assertEquals(BatchAnalyzer.EXIT_USAGE, run("--threads=0", dir.toString()));
+        Assertions.assertEquals(BatchAnalyzer.EXIT_USAGE, run(dir.resolve("missing.pie").toString()));
+    }
+}
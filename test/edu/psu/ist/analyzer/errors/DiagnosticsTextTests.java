@@ -0,0 +1,66 @@
+package edu.psu.ist.analyzer.errors;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DiagnosticsTextTests {
+
+    private final PieChecker checker = new PieChecker(Options.TestOpts);
+
+    @Test public void testSemanticErrorSpansItsConstruct() {
+        var input = new TextInput("test", """
+                def f(x : Int32) : Int32 is
+                \tvar y : Bool := x + 1;
+                    return x;
+                end
+                """);
+
+        var errors = checker.check(input).getError();
+        Assertions.assertEquals(1, errors.size(), errors.toString());
+        var loc = errors.get(0).loc();
+        Assertions.assertEquals(2, loc.beginLine());
+        Assertions.assertEquals(2, loc.endLine());
+        Assertions.assertEquals("x + 1", input.text().substring(loc.beginOffset(), loc.endOffset()));
+        Assertions.assertEquals(loc.beginCol() + "x + 1".length(), loc.endCol());
+
+        String rendered = DiagnosticsText.format(errors.get(0));
+        Assertions.assertTrue(rendered.endsWith("""
+
+                2 | \tvar y : Bool := x + 1;
+                  | \t                ^^^^^"""), rendered);
+    }
+
+    @Test public void testParseErrorMarksOffendingToken() {
+        var input = new TextInput("test", """
+                def f(x : Int32 is
+                    return x;
+                end
+                """);
+
+        var errors = checker.check(input).getError();
+        String rendered = DiagnosticsText.format(errors.get(0));
+        Assertions.assertTrue(rendered.endsWith("""
+
+                1 | def f(x : Int32 is
+                  |                 ^^"""), rendered);
+    }
+
+    @Test public void testLongLinesAreCut() {
+        String padding = "x + ".repeat(500);
+        var input = new TextInput("test", "def f(x : Int32) : Int32 is\n    return "
+                + padding + "nope + " + padding + "x;\nend\n");
+
+        var errors = checker.check(input).getError();
+        Assertions.assertEquals(1, errors.size(), errors.toString());
+        String[] snippet = DiagnosticsText.format(errors.get(0)).split("\n");
+        Assertions.assertEquals(3, snippet.length);
+        Assertions.assertTrue(snippet[1].startsWith("2 | ...") && snippet[1].endsWith("..."), snippet[1]);
+        Assertions.assertTrue(snippet[1].length() < DiagnosticsText.MAX_SNIPPET_WIDTH + 20);
+        int caret = snippet[2].indexOf('^');
+        Assertions.assertEquals("nope", snippet[1].substring(caret, caret + 4));
+        Assertions.assertEquals(caret + 4, snippet[2].length());
+    }
+}
@@ -0,0 +1,74 @@
+package edu.psu.ist.analyzer.flow;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class FlowChecksTests {
+
+    private final PieChecker checker = new PieChecker(Options.TestOpts);
+    private final PieChecker linter = checker.withOptions(Options.TestOpts.withLint(true));
+
+    @Test public void testUnusedVariablesAndDeadStores() {
+        var input = new TextInput("test", """
+                def f(a : Int32) : Int32 is
+                    var unused : Int32 := 1;
+                    var x : Int32 := 0;
+                    var y : Int32 := a;
+                    x := y + 1;
+                    y := 2;
+                    return x;
+                end
+                """);
+
+        Assertions.assertTrue(checker.check(input).isOk());
+
+        List<PieErrorMessage> errors = linter.check(input).getError();
+        Assertions.assertEquals(List.of(
+                new SemanticError.UnusedVariable("unused", errors.get(0).loc()),
+                new SemanticError.DeadStore("x", errors.get(1).loc()),
+                new SemanticError.DeadStore("y", errors.get(2).loc())), errors);
+        Assertions.assertEquals(List.of(2, 3, 6),
+                errors.stream().map(e -> e.loc().beginLine()).toList());
+    }
+
+    @Test public void testStoresReadOnSomePathAreLive() {
+        var input = new TextInput("test", """
+                def f(a : Int32) : Int32 is
+                    var x : Int32 := a;
+                    a := x + a;
+                    return a;
+                    x := 1;
+                end
+                """);
+
+        // the store after the return is unreachable (reported as such), not dead
+        List<PieErrorMessage> errors = linter.check(input).getError();
+        Assertions.assertEquals(1, errors.size(), errors.toString());
+        Assertions.assertInstanceOf(SemanticError.UnreachableCode.class, errors.get(0));
+    }
+
+    @Test public void testManyLocals() {
+        int n = 5_000;
+        var s = new StringBuilder("def f(a : Int32) : Int32 is\n    var v0 : Int32 := a;\n");
+        for (int i = 1; i < n; i++) {
+            s.append("    var v").append(i).append(" : Int32 := v").append(i - 1).append(" + a;\n");
+        }
+        for (int i = 0; i < n; i += 2) {
+            s.append("    v").append(i).append(" := v").append(n - 1).append(";\n");
+        }
+        s.append("    return v").append(n - 2).append(";\nend\n");
+
+        // every even variable but the returned one is overwritten without
+        // being read again
+        List<PieErrorMessage> errors = linter.check(new TextInput("many", s.toString())).getError();
+        Assertions.assertEquals(n / 2 - 1, errors.size());
+        Assertions.assertTrue(errors.stream().allMatch(e -> e instanceof SemanticError.DeadStore));
+    }
+}
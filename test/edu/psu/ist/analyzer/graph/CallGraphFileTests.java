@@ -0,0 +1,55 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+public class CallGraphFileTests {
+
+    @TempDir Path dir;
+
+    @Test public void testRoundTrip() throws IOException {
+        var g = new Digraph<ProcNode>();
+        ProcNode main = new ProcNode("main"), f = new ProcNode("f"),
+                g1 = new ProcNode("g"), leaf = new ProcNode("Ünïcode");
+        g.add(leaf);
+        g.add(main, f);
+        g.add(main, g1);
+        g.add(f, g1);
+        g.add(f, g1); // called twice
+        g.add(g1, main);
+        g.add(f);
+        g.add(g1);
+
+        Path file = dir.resolve("calls.pcg");
+        CallGraphFile.write(g, file);
+        var mapped = MappedCallGraph.open(file);
+
+        Assertions.assertEquals(4, mapped.vertexCount());
+        Assertions.assertEquals(g.edges().size(), mapped.edgeCount());
+        for (ProcNode v : g.getVertices()) {
+            Assertions.assertTrue(mapped.contains(v));
+            Assertions.assertEquals(new HashSet<>(g.neighbors(v)).size(), mapped.outDegree(v));
+            Assertions.assertEquals(g.inDegree(v), mapped.inDegree(v), "in-degree of " + v);
+            Assertions.assertEquals(new HashSet<>(g.neighbors(v)),
+                    new HashSet<>(mapped.neighbors(v)));
+        }
+        Assertions.assertEquals(List.of(g1), mapped.neighbors(f));
+        Assertions.assertFalse(mapped.contains(new ProcNode("nope")));
+        Assertions.assertEquals(0, mapped.inDegree(new ProcNode("nope")));
+    }
+
+    @Test public void testRejectsForeignFiles() throws IOException {
+        Path file = dir.resolve("junk.pcg");
+        Files.write(file, new byte[128]);
+        Assertions.assertThrows(IOException.class, () -> MappedCallGraph.open(file));
+    }
+}
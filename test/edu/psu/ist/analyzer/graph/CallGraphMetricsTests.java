@@ -0,0 +1,92 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CallGraphMetricsTests {
+
+    private static ProcNode p(String name) {
+        return new ProcNode(name);
+    }
+
+    /** main -> a -> b <-> c, main -> b (twice), and a self-recursive d on its own. */
+    private static Digraph<ProcNode> sample() {
+        var g = new Digraph<ProcNode>();
+        g.add(p("main"), p("a"));
+        g.add(p("main"), p("b"));
+        g.add(p("main"), p("b"));
+        g.add(p("a"), p("b"));
+        g.add(p("b"), p("c"));
+        g.add(p("c"), p("b"));
+        g.add(p("d"), p("d"));
+        return g;
+    }
+
+    @Test public void testDegreesDepthRootsAndLeaves() {
+        var metrics = CallGraphMetrics.of(sample());
+        Assertions.assertEquals(5, metrics.procedureCount());
+        Assertions.assertEquals(6, metrics.callCount());
+        Assertions.assertEquals(4, metrics.componentCount());
+
+        Assertions.assertEquals(2, metrics.outDegree(p("main")));
+        Assertions.assertEquals(3, metrics.inDegree(p("b")));
+        // out-degrees: a, b, c and d call 1 procedure, main 2
+        Assertions.assertArrayEquals(new int[] {0, 4, 1}, metrics.outDegreeHistogram());
+        // in-degrees: main 0; a, c and d 1; b 3
+        Assertions.assertArrayEquals(new int[] {1, 3, 0, 1}, metrics.inDegreeHistogram());
+
+        Assertions.assertEquals(List.of(p("d"), p("main")), metrics.roots());
+        Assertions.assertEquals(List.of(p("d")), metrics.leaves());
+
+        Assertions.assertEquals(0, metrics.depth(p("b")));
+        Assertions.assertEquals(0, metrics.depth(p("c")));
+        Assertions.assertEquals(1, metrics.depth(p("a")));
+        Assertions.assertEquals(2, metrics.depth(p("main")));
+        Assertions.assertEquals(2, metrics.maxDepth());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> metrics.depth(p("nope")));
+    }
+
+    @Test public void testRanks() {
+        var metrics = CallGraphMetrics.of(sample());
+        double total = 0;
+        for (String name : List.of("main", "a", "b", "c", "d")) {
+            total += metrics.rank(p(name));
+        }
+        Assertions.assertEquals(1.0, total, 1e-9);
+        Assertions.assertTrue(metrics.rank(p("b")) > metrics.rank(p("a")));
+        Assertions.assertTrue(metrics.rank(p("a")) > metrics.rank(p("main")));
+        Assertions.assertTrue(metrics.iterations() < CallGraphMetrics.MAX_ITERATIONS);
+
+        String json = metrics.toJson();
+        Assertions.assertTrue(json.startsWith("{\"procedures\":5,\"calls\":6,\"components\":4,\"maxDepth\":2,"
+                + "\"roots\":[\"d\",\"main\"],\"leaves\":[\"d\"],"
+                + "\"outDegreeHistogram\":[0,4,1],\"inDegreeHistogram\":[1,3,0,1],"
+                + "\"nodes\":[{\"name\":\"a\",\"out\":1,\"in\":1,\"depth\":1,\"rank\":"), json);
+    }
+
+    @Test public void testLargeGraph() {
+        // a chain long enough to be ranked in parallel, and to overflow a recursive DFS
+        int n = 50_000;
+        var g = new Digraph<ProcNode>();
+        for (int i = 1; i < n; i++) {
+            g.add(p("p" + (i - 1)), p("p" + i));
+        }
+        var metrics = CallGraphMetrics.of(g);
+        Assertions.assertEquals(n - 1, metrics.maxDepth());
+        Assertions.assertEquals(n, metrics.componentCount());
+        Assertions.assertEquals(List.of(p("p0")), metrics.roots());
+        Assertions.assertEquals(List.of(p("p" + (n - 1))), metrics.leaves());
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += metrics.rank(p("p" + i));
+        }
+        Assertions.assertEquals(1.0, total, 1e-6);
+        for (int i = 1; i < 20; i++) {
+            Assertions.assertTrue(metrics.rank(p("p" + i)) > metrics.rank(p("p" + (i - 1))), "p" + i);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class CallGraphScannerTests {
+
+    @Test public void testMatchesParsedGraph() {
+        var random = new Random(42);
+        int n = 200;
+        var s = new StringBuilder("// generated\n");
+        for (int i = 0; i < n; i++) {
+            s.append("def p").append(i).append("(a : Int32, b : Bool) : Int32 is\n")
+             .append("    var x : Int32 := a + 1; /* not(a, call); */\n");
+            for (int c = random.nextInt(4); c > 0; c--) {
+                int callee = random.nextInt(n);
+                s.append("    p").append(callee).append("(x + a, true);\n")
+                 .append("    x := x + ").append(callee).append(";\n");
+            }
+            if (random.nextBoolean()) {
+                s.append("    missing").append(random.nextInt(5)).append("();\n");
+            }
+            s.append("    return x;\nend\n");
+        }
+        var source = new TextInput("generated", s.toString());
+
+        var parsed = new PieChecker(Options.TestOpts).analyze(source).graph();
+        var scanned = CallGraphScanner.scan(source);
+        Assertions.assertEquals(parsed.getVertices(), scanned.getVertices());
+        Assertions.assertEquals(parsed.edges(), scanned.edges());
+        for (ProcNode v : parsed.getVertices()) {
+            Assertions.assertEquals(parsed.outDegree(v), scanned.outDegree(v), v.name());
+            Assertions.assertEquals(parsed.inDegree(v), scanned.inDegree(v), v.name());
+        }
+    }
+
+    @Test public void testBrokenScriptsAreBestEffort() {
+        var scanned = CallGraphScanner.scan(new TextInput("broken", """
+                def f(x : Int32 is
+                    g(x;
+                    h(x);
+                def g() : Void is
+                    f(1) + ;
+                    f(2);
+                end
+                k();
+                """));
+
+        // f's header never closes, but its body still counts; 'def' ends f;
+        // g's malformed first call is skipped; k() lies outside any def
+        Assertions.assertEquals(1, scanned.outDegree(new ProcNode("f")));
+        Assertions.assertEquals(1, scanned.outDegree(new ProcNode("g")));
+        Assertions.assertNull(scanned.getVertex("k"));
+    }
+}
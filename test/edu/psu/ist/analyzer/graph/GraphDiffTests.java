@@ -0,0 +1,80 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.Pair;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class GraphDiffTests {
+
+    private static final ProcNode F = new ProcNode("f"), G = new ProcNode("g"),
+            H = new ProcNode("h"), M = new ProcNode("m");
+
+    @Test public void testScriptDiff() {
+        var before = new TextInput("v1", """
+                def g() : Void is
+                end
+                def f() : Void is
+                    g();
+                end
+                def m() : Void is
+                    f();
+                    g();
+                end
+                """);
+        var after = new TextInput("v2", """
+                def g() : Void is
+                end
+                def h() : Void is
+                    g();
+                end
+                def m() : Void is
+                    h();
+                    g();
+                    g();
+                end
+                """);
+
+        var diff = GraphDiff.between(before, after);
+        Assertions.assertEquals(List.of(H), diff.addedVertices());
+        Assertions.assertEquals(List.of(F), diff.removedVertices());
+        Assertions.assertEquals(List.of(new Pair<>(H, G), new Pair<>(M, H)), diff.addedEdges());
+        Assertions.assertEquals(List.of(new Pair<>(F, G), new Pair<>(M, F)), diff.removedEdges());
+        Assertions.assertEquals(5, diff.union().edges().size());
+    }
+
+    @Test public void testIdenticalGraphsHaveEmptyDiff() {
+        var g = new Digraph<ProcNode>();
+        g.add(G);
+        g.add(F, G);
+        g.add(M, F);
+        Assertions.assertTrue(GraphDiff.between(g, g).isEmpty());
+    }
+
+    @Test public void testLargeDiff() {
+        int n = 200_000;
+        var before = new Digraph<ProcNode>();
+        var after = new Digraph<ProcNode>();
+        ProcNode[] nodes = new ProcNode[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new ProcNode("p" + i);
+            before.add(nodes[i]);
+            after.add(nodes[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            before.add(nodes[i], nodes[(i + 1) % n]);
+            before.add(nodes[i], nodes[(i * 7 + 3) % n]);
+            after.add(nodes[i], nodes[(i + 1) % n]);
+            after.add(nodes[i], nodes[(i * 7 + (i % 10 == 0 ? 4 : 3)) % n]);
+        }
+
+        var diff = GraphDiff.between(before, after);
+        Assertions.assertEquals(n / 10, diff.addedEdges().size());
+        Assertions.assertEquals(n / 10, diff.removedEdges().size());
+        Assertions.assertTrue(diff.addedVertices().isEmpty());
+    }
+}
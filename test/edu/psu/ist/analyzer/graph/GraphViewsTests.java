@@ -0,0 +1,56 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class GraphViewsTests {
+
+    /** A chain p0 -> p1 -> ... -> p(n-1), plus a hub calling every vertex. */
+    private static Digraph<ProcNode> chainWithHub(int n) {
+        var g = new Digraph<ProcNode>();
+        ProcNode hub = new ProcNode("hub");
+        for (int i = 0; i < n; i++) {
+            g.add(p(i));
+            g.add(hub, p(i));
+            if (i > 0) {
+                g.add(p(i - 1), p(i));
+            }
+        }
+        return g;
+    }
+
+    private static ProcNode p(int i) {
+        return new ProcNode("p" + i);
+    }
+
+    @Test public void testKHopCallees() {
+        var g = chainWithHub(100);
+        var view = GraphViews.neighborhood(g, p(10), 2, GraphViews.Direction.CALLEES, 50);
+        Assertions.assertEquals(Set.of(p(10), p(11), p(12)), view.getVertices());
+        Assertions.assertEquals(2, view.edges().size());
+    }
+
+    @Test public void testKHopCallers() {
+        var g = chainWithHub(100);
+        var view = GraphViews.neighborhood(g, p(10), 1, GraphViews.Direction.CALLERS, 50);
+        Assertions.assertEquals(Set.of(p(10), p(9), new ProcNode("hub")), view.getVertices());
+    }
+
+    @Test public void testConesAreBounded() {
+        var g = chainWithHub(10_000);
+        Assertions.assertEquals(25, GraphViews.callees(g, p(0), 25).getVertices().size());
+        Assertions.assertEquals(25, GraphViews.neighborhood(g, p(5000), 10,
+                GraphViews.Direction.BOTH, 25).getVertices().size());
+    }
+
+    @Test public void testTopByDegree() {
+        var g = chainWithHub(1000);
+        var view = GraphViews.topByDegree(g, 3);
+        Assertions.assertEquals(3, view.getVertices().size());
+        Assertions.assertTrue(view.contains(new ProcNode("hub")));
+    }
+}
@@ -0,0 +1,89 @@
+package edu.psu.ist.analyzer.graph;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+public class LayeredLayoutTests {
+
+    private static ProcNode p(int i) {
+        return new ProcNode("p" + i);
+    }
+
+    @Test public void testCyclesAreBroken() {
+        var g = new Digraph<ProcNode>();
+        g.add(p(0), p(1));
+        g.add(p(1), p(2));
+        g.add(p(2), p(0));
+        g.add(p(2), p(3));
+        g.add(p(3), p(3));
+
+        var layout = LayeredLayout.of(g);
+        Assertions.assertEquals(5, layout.edgeCount());
+        Assertions.assertEquals(1, layout.reversedEdgeCount());
+        int backwards = 0;
+        for (int e = 0; e < layout.edgeCount(); e++) {
+            int from = layout.edgeFrom(e), to = layout.edgeTo(e);
+            if (from != to && layout.layerOf(to) <= layout.layerOf(from)) {
+                backwards++;
+            }
+        }
+        Assertions.assertEquals(1, backwards);
+    }
+
+    @Test public void testTreeHasNoCrossings() {
+        // a complete binary tree, with children added in scrambled order
+        var g = new Digraph<ProcNode>();
+        int[] order = {5, 2, 6, 1, 3, 0, 4};
+        for (int i : order) {
+            g.add(p(i), p(2 * i + 2));
+            g.add(p(i), p(2 * i + 1));
+        }
+        var layout = LayeredLayout.of(g);
+        Assertions.assertEquals(4, layout.layerCount());
+        for (int a = 0; a < layout.edgeCount(); a++) {
+            for (int b = 0; b < layout.edgeCount(); b++) {
+                int a1 = layout.edgeFrom(a), a2 = layout.edgeTo(a);
+                int b1 = layout.edgeFrom(b), b2 = layout.edgeTo(b);
+                if (layout.layerOf(a1) == layout.layerOf(b1)
+                        && layout.coordinate(a1) < layout.coordinate(b1)) {
+                    Assertions.assertTrue(layout.coordinate(a2) < layout.coordinate(b2),
+                            "edges " + a + " and " + b + " cross");
+                }
+            }
+        }
+    }
+
+    @Test public void testLargeGraphIsDrawn() throws IOException {
+        int n = 20_000;
+        var random = new Random(42);
+        var g = new Digraph<ProcNode>();
+        for (int i = 0; i < n; i++) {
+            g.add(p(i));
+            for (int k = 0; k < 3; k++) {
+                g.add(p(i), p(random.nextInt(n)));
+            }
+        }
+        var layout = LayeredLayout.of(g);
+        for (int l = 0; l < layout.layerCount(); l++) {
+            int[] vertices = layout.layer(l);
+            for (int i = 1; i < vertices.length; i++) {
+                Assertions.assertTrue(layout.coordinate(vertices[i])
+                        >= layout.coordinate(vertices[i - 1]) + 1 - 1e-9);
+            }
+        }
+
+        var out = new StringWriter();
+        SvgWriter.write(layout, "random", out);
+        String svg = out.toString();
+        Assertions.assertTrue(svg.endsWith("</svg>\n"));
+        Assertions.assertEquals(n, svg.split("<polygon", -1).length - 1);
+        // one path per edge, plus the arrow head
+        Assertions.assertEquals(layout.edgeCount() + 1, svg.split("<path d=|<path stroke", -1).length - 1);
+    }
+}
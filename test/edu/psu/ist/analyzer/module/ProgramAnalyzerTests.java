@@ -0,0 +1,119 @@
+package edu.psu.ist.analyzer.module;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.PieErrorMessage;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.errors.SemanticError;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.Pair;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ProgramAnalyzerTests {
+
+    private final PieChecker checker = new PieChecker(Options.TestOpts);
+
+    private static final TextInput A = new TextInput("a.pie", """
+            def f(x : Int32) : Int32 is
+                return x + 1;
+            end
+            """);
+    private static final TextInput B = new TextInput("b.pie", """
+            def main() : Int32 is
+                f(1);
+                g(true);
+                return 0;
+            end
+            """);
+    private static final TextInput C = new TextInput("c.pie", """
+            def g(b : Bool) : Void is
+                f(2);
+            end
+            """);
+
+    private static List<Class<?>> kinds(List<PieErrorMessage> errors) {
+        return errors.stream().<Class<?>>map(Object::getClass).toList();
+    }
+
+    @Test public void testLinksAcrossFilesAndRelinksOnlyDependents() {
+        var program = new ProgramAnalyzer(checker, 2);
+        Assertions.assertEquals(Set.of("a.pie", "b.pie"), program.addAll(List.of(A, B)));
+        Assertions.assertEquals(List.of(SemanticError.NoSuchSymbol.class), kinds(program.errors("b.pie")));
+        Assertions.assertTrue(program.errors("a.pie").isEmpty());
+
+        // defining g fixes b; a does not depend on it
+        Assertions.assertEquals(Set.of("b.pie", "c.pie"), program.update(C));
+        Assertions.assertTrue(program.isOk());
+        Assertions.assertEquals(Set.of(
+                new Pair<>(new ProcNode("main"), new ProcNode("f")),
+                new Pair<>(new ProcNode("main"), new ProcNode("g")),
+                new Pair<>(new ProcNode("g"), new ProcNode("f"))), program.callGraph().edges());
+
+        // changing f's signature re-checks its callers, reporting bad calls there
+        var a2 = new TextInput("a.pie", """
+                def f(x : Bool) : Int32 is
+                    return 1;
+                end
+                """);
+        Assertions.assertEquals(Set.of("a.pie", "b.pie", "c.pie"), program.update(a2));
+        Assertions.assertEquals(List.of(SemanticError.TypeMismatch.class), kinds(program.errors("b.pie")));
+        Assertions.assertEquals(List.of(SemanticError.TypeMismatch.class), kinds(program.errors("c.pie")));
+
+        // a body-only change does not
+        var a3 = new TextInput("a.pie", """
+                def f(x : Bool) : Int32 is
+                    return 2;
+                end
+                """);
+        Assertions.assertEquals(Set.of("a.pie"), program.update(a3));
+
+        Assertions.assertEquals(Set.of("b.pie"), program.remove("c.pie"));
+        Assertions.assertEquals(List.of(SemanticError.TypeMismatch.class, SemanticError.NoSuchSymbol.class),
+                kinds(program.errors("b.pie")));
+    }
+
+    @Test public void testDuplicatesAndForwardReferences() {
+        var program = new ProgramAnalyzer(checker, 2);
+        var early = new TextInput("x.pie", """
+                def main() : Int32 is
+                    h();
+                    return 0;
+                end
+                def h() : Void is
+                    f(1);
+                end
+                """);
+        program.addAll(List.of(A, early, new TextInput("z.pie", A.text())));
+        // the second definition of f is the duplicate; h is called before it is defined
+        Assertions.assertEquals(List.of(SemanticError.DupSymbol.class), kinds(program.errors("z.pie")));
+        Assertions.assertEquals(List.of(SemanticError.NoSuchSymbol.class), kinds(program.errors("x.pie")));
+        Assertions.assertTrue(program.errors("a.pie").isEmpty());
+
+        Assertions.assertEquals(Set.of("z.pie", "x.pie"), program.remove("a.pie"));
+        Assertions.assertTrue(program.errors("z.pie").isEmpty());
+    }
+
+    @Test public void testParallelPublishing() {
+        List<TextInput> files = new ArrayList<>();
+        int n = 500;
+        for (int i = 0; i < n; i++) {
+            String next = "p" + ((i + 1) % n);
+            files.add(new TextInput("f" + i + ".pie", """
+                    def p%d(x : Int32) : Int32 is
+                        %s(x);
+                        return x;
+                    end
+                    """.formatted(i, next)));
+        }
+        var program = new ProgramAnalyzer(checker, 4);
+        Assertions.assertEquals(n, program.addAll(files).size());
+        Assertions.assertTrue(program.isOk(), () -> program.errors().toString());
+        Assertions.assertEquals(n, program.index().size());
+        Assertions.assertEquals(n, program.callGraph().edges().size());
+    }
+}
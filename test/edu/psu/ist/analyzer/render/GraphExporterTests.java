@@ -0,0 +1,90 @@
+package edu.psu.ist.analyzer.render;
+
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.Options;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+public class GraphExporterTests {
+
+    @TempDir Path outDir;
+
+    private static Digraph<ProcNode> calls(String... names) {
+        var g = new Digraph<ProcNode>();
+        for (int i = 0; i + 1 < names.length; i++) {
+            g.add(new ProcNode(names[i]), new ProcNode(names[i + 1]));
+        }
+        return g;
+    }
+
+    @Test public void testBatchCoalescesDuplicates() throws IOException {
+        String out = outDir.resolve("m.png").toString();
+        try (var service = RenderService.start(Options.TestOpts.withRenderThreads(1));
+             var exporter = new GraphExporter(service, 8)) {
+            var results = exporter.exportAll(List.of(
+                    new ExportJob(calls("m", "f", "g"), out, "v1"),
+                    new ExportJob(calls("m", "f", "g"), out, "v1"),
+                    new ExportJob(calls("m", "g"), out, "v2"),
+                    new ExportJob(calls("h"), outDir.resolve("h.png").toString(), "h")));
+
+            Assertions.assertEquals(results.get(0).join(), results.get(1).join());
+            var e = Assertions.assertThrows(CompletionException.class, results.get(2)::join);
+            Assertions.assertInstanceOf(ExportException.Conflict.class, e.getCause());
+            Assertions.assertTrue(Files.size(results.get(3).join()) > 0);
+
+            Assertions.assertEquals(1, exporter.coalescedCount());
+            Assertions.assertEquals(2, service.metrics().completed());
+        }
+    }
+
+    @Test public void testCloseCancelsRenders() throws InterruptedException {
+        String[] names = new String[60];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "p" + i;
+        }
+        try (var service = RenderService.start(Options.TestOpts.withRenderThreads(1))) {
+            List<CompletableFuture<Path>> results;
+            try (var exporter = new GraphExporter(service, 8)) {
+                results = exporter.exportAll(List.of(
+                        new ExportJob(calls(names), outDir.resolve("a.png").toString(), "a"),
+                        new ExportJob(calls(names), outDir.resolve("b.png").toString(), "b"),
+                        new ExportJob(calls(names), outDir.resolve("c.png").toString(), "c")));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (service.metrics().activeRenders() + service.metrics().queueDepth() > 0
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            for (var result : results) {
+                Assertions.assertTrue(result.isDone());
+                if (result.isCompletedExceptionally()) {
+                    var e = Assertions.assertThrows(CompletionException.class, result::join);
+                    var rejected = Assertions.assertInstanceOf(ExportException.Rejected.class, e.getCause());
+                    Assertions.assertFalse(Files.exists(Path.of(rejected.job().outputName())),
+                            "render of a closed exporter wrote its file");
+                }
+            }
+        }
+    }
+
+    @Test public void testFailuresAreTyped() throws IOException {
+        Path notADirectory = Files.createFile(outDir.resolve("file"));
+        try (var service = RenderService.start(Options.TestOpts.withRenderThreads(1));
+             var exporter = new GraphExporter(service, 8)) {
+            var job = new ExportJob(calls("f", "g"), notADirectory.resolve("g.png").toString(), "g");
+            var e = Assertions.assertThrows(CompletionException.class, exporter.export(job)::join);
+            var failure = Assertions.assertInstanceOf(ExportException.OutputFailed.class, e.getCause());
+            Assertions.assertSame(job, failure.job());
+        }
+    }
+}
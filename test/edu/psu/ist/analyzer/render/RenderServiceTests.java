@@ -0,0 +1,109 @@
+package edu.psu.ist.analyzer.render;
+
+import edu.psu.ist.analyzer.utils.Options;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.model.MutableGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static guru.nidi.graphviz.model.Factory.mutGraph;
+import static guru.nidi.graphviz.model.Factory.mutNode;
+import static guru.nidi.graphviz.model.Link.to;
+
+public class RenderServiceTests {
+
+    @TempDir Path outDir;
+
+    private static MutableGraph chain(int length) {
+        MutableGraph g = mutGraph("chain").setDirected(true);
+        for (int i = 0; i + 1 < length; i++) {
+            g.add(mutNode("p" + i).addLink(to(mutNode("p" + (i + 1)))));
+        }
+        return g;
+    }
+
+    @Test public void testRendersConcurrently() throws Exception {
+        try (var service = RenderService.start(Options.TestOpts.withRenderThreads(2))) {
+            List<CompletableFuture<Path>> renders = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                renders.add(service.render(chain(3 + i), Format.PNG, 200, outDir.resolve(i + ".png")));
+            }
+            for (var render : renders) {
+                Assertions.assertTrue(Files.size(render.join()) > 0);
+            }
+            var metrics = service.metrics();
+            Assertions.assertEquals(4, metrics.completed());
+            Assertions.assertEquals(0, metrics.failed() + metrics.timedOut());
+            Assertions.assertEquals(4, metrics.latency().count());
+        }
+    }
+
+    @Test public void testRenderTimesOut() throws Exception {
+        var opts = Options.TestOpts.withRenderThreads(1).withRenderTimeout(Duration.ofMillis(1));
+        try (var service = RenderService.start(opts)) {
+            var render = service.render(chain(200), Format.PNG, 2000, outDir.resolve("slow.png"));
+            var e = Assertions.assertThrows(CompletionException.class, render::join);
+            Assertions.assertInstanceOf(RenderTimeoutException.class, e.getCause());
+            Assertions.assertEquals(1, service.metrics().timedOut());
+            awaitIdle(service);
+            Assertions.assertFalse(Files.exists(outDir.resolve("slow.png")), "timed out render wrote its file");
+        }
+        try (var files = Files.list(outDir)) {
+            Assertions.assertEquals(0, files.count(), "temporary file left behind");
+        }
+    }
+
+    @Test public void testCloseCompletesPendingRenders() {
+        var service = RenderService.start(Options.TestOpts.withRenderThreads(1));
+        List<CompletableFuture<Path>> renders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            renders.add(service.render(chain(200), Format.PNG, 2000, outDir.resolve(i + ".png")));
+        }
+        service.close();
+        for (var render : renders) {
+            Assertions.assertTrue(render.isDone());
+        }
+        var e = Assertions.assertThrows(CompletionException.class, renders.get(2)::join);
+        Assertions.assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        Assertions.assertFalse(Files.exists(outDir.resolve("2.png")));
+    }
+
+    @Test public void testCancelledRendersReturnTheirPermits() {
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            try (var service = RenderService.start(Options.TestOpts.withRenderThreads(1))) {
+                // keeps the worker busy, so the cancelled renders are still queued
+                var busy = service.renderToBytes(chain(200), Format.SVG, 100);
+                for (int i = 0; i < 2 * (RenderService.QUEUED_PER_THREAD + 1); i++) {
+                    service.renderToBytes(chain(3), Format.SVG, 100).cancel(true);
+                }
+                Assertions.assertTrue(busy.join().length > 0);
+
+                List<CompletableFuture<byte[]>> renders = new ArrayList<>();
+                for (int i = 0; i < 2 * (RenderService.QUEUED_PER_THREAD + 1); i++) {
+                    renders.add(service.renderToBytes(chain(3), Format.SVG, 100));
+                }
+                for (var render : renders) {
+                    Assertions.assertTrue(render.join().length > 0);
+                }
+            }
+        });
+    }
+
+    private static void awaitIdle(RenderService service) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (service.metrics().activeRenders() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.psu.ist.analyzer.server;
+
+import edu.psu.ist.analyzer.render.RenderService;
+import edu.psu.ist.analyzer.utils.Options;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+public class AnalysisServerTests {
+
+    private static final String GOOD = """
+            def g() : Void is
+            end
+            def m() : Int32 is
+                g();
+                return 0;
+            end
+            """;
+
+    private static final String BAD = """
+            def m() : Int32 is
+                return true;
+            end
+            """;
+
+    private AnalysisServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach public void start() throws IOException {
+        server = AnalysisServer.start(0, Options.TestOpts, null, new AnalysisServer.Limits(1024, 1));
+    }
+
+    @AfterEach public void stop() {
+        server.close();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Sends {@code requestLine} as is (the http client rejects malformed URIs) and returns the status line. */
+    private String sendRaw(String requestLine) throws IOException {
+        try (var socket = new Socket("localhost", server.port())) {
+            socket.getOutputStream().write((requestLine + "\r\nHost: localhost\r\n"
+                    + "Content-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+        }
+    }
+
+    @Test public void testMalformedQuery() throws Exception {
+        Assertions.assertEquals("HTTP/1.1 400 Bad Request", sendRaw("POST /check?name=%zz HTTP/1.1"));
+        Assertions.assertEquals(200, post("/check", GOOD).statusCode());
+    }
+
+    @Test public void testCheckAndGraph() throws Exception {
+        var ok = post("/check?name=good.pie", GOOD);
+        Assertions.assertEquals(200, ok.statusCode());
+        Assertions.assertEquals("{\"name\":\"good.pie\",\"ok\":true,\"errors\":[]}", ok.body());
+
+        var bad = post("/check", BAD);
+        Assertions.assertEquals(200, bad.statusCode());
+        Assertions.assertTrue(bad.body().contains("\"ok\":false"));
+        Assertions.assertTrue(bad.body().contains("\"kind\":\"Semantic error\""));
+
+        var dot = post("/graph", GOOD);
+        Assertions.assertEquals(200, dot.statusCode());
+        Assertions.assertTrue(dot.body().contains("\"m\" -> \"g\""), dot.body());
+        Assertions.assertTrue(post("/graph?format=svg", GOOD).body().contains("<svg"));
+        Assertions.assertEquals(422, post("/graph", BAD).statusCode());
+        Assertions.assertEquals(501, post("/graph?format=png", GOOD).statusCode());
+        Assertions.assertEquals(405, get("/check").statusCode());
+    }
+
+    @Test public void testLimits() throws Exception {
+        Assertions.assertEquals(413, post("/check", GOOD.repeat(20)).statusCode());
+
+        // occupy the only slot, as a long-running request would
+        server.inFlight().acquire();
+        try {
+            Assertions.assertTrue(get("/metrics").body().contains("\"inFlight\":1"));
+            var rejected = post("/check", GOOD);
+            Assertions.assertEquals(429, rejected.statusCode());
+            Assertions.assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(""));
+        } finally {
+            server.inFlight().release();
+        }
+        Assertions.assertEquals(200, post("/check", GOOD).statusCode());
+
+        String metrics = get("/metrics").body();
+        Assertions.assertTrue(metrics.contains("\"rejected\":1"), metrics);
+        Assertions.assertTrue(metrics.contains("\"tooLarge\":1"), metrics);
+        Assertions.assertTrue(metrics.contains("\"/check\":{\"count\":"), metrics);
+    }
+
+    @Test public void testPngRendering() throws Exception {
+        var renderer = RenderService.start(Options.TestOpts.withRenderThreads(1));
+        try {
+            server.close();
+            server = AnalysisServer.start(0, Options.TestOpts, renderer, AnalysisServer.Limits.DEFAULT);
+            var ok = post("/graph?format=png", GOOD);
+            Assertions.assertEquals(200, ok.statusCode());
+            Assertions.assertTrue(ok.body().contains("PNG"));
+
+            renderer.close();
+            Assertions.assertEquals(503, post("/graph?format=png", GOOD).statusCode());
+        } finally {
+            renderer.close();
+        }
+    }
+}
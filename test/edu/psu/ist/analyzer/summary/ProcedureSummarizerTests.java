@@ -0,0 +1,119 @@
+package edu.psu.ist.analyzer.summary;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.ProcNode;
+import edu.psu.ist.analyzer.module.ProgramAnalyzer;
+import edu.psu.ist.analyzer.utils.Digraph;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ProcedureSummarizerTests {
+
+    private static final TextInput A = new TextInput("a.pie", """
+            def leaf() : Int32 is
+                var x : Int32 := 40;
+                x := x + 2;
+                return x;
+            end
+            def id(a : Int32) : Int32 is
+                return a;
+            end
+            def mid() : Int32 is
+                leaf();
+                id(1);
+                return 7 + 1;
+            end
+            def r1(n : Int32) : Int32 is
+                r2(n);
+                return 0;
+            end
+            """);
+    private static final TextInput B = new TextInput("b.pie", """
+            def r2(n : Int32) : Int32 is
+                r1(n);
+                return 1;
+            end
+            def top() : Int32 is
+                mid();
+                missing();
+                return 3;
+            end
+            """);
+
+    @Test public void testSummariesAcrossFiles() {
+        var program = new ProgramAnalyzer(new PieChecker(Options.TestOpts), 2);
+        program.addAll(List.of(A, B));
+        var summaries = program.summaries();
+        Assertions.assertEquals(7, program.recomputedSummaries());
+
+        var leaf = summaries.get("leaf");
+        Assertions.assertEquals(new ProcedureSummary("leaf", true, "42", 0, Set.of()), leaf);
+        Assertions.assertFalse(summaries.get("id").returnsConstant());
+
+        var mid = summaries.get("mid");
+        Assertions.assertEquals(new ProcedureSummary("mid", true, "8", 1, Set.of("leaf", "id")), mid);
+
+        // mutual recursion across files: never returns
+        var r1 = summaries.get("r1");
+        Assertions.assertEquals(new ProcedureSummary("r1", true, null, ProcedureSummary.UNBOUNDED,
+                Set.of("r1", "r2")), r1);
+        Assertions.assertEquals(r1.reaches(), summaries.get("r2").reaches());
+
+        // calls a procedure no file defines
+        var top = summaries.get("top");
+        Assertions.assertFalse(top.pure());
+        Assertions.assertNull(top.constant());
+        Assertions.assertEquals(2, top.maxDepth());
+        Assertions.assertEquals(Set.of("mid", "leaf", "id", "missing"), top.reaches());
+        Assertions.assertFalse(summaries.get("missing").pure());
+
+        // nothing changed: nothing is recomputed
+        Assertions.assertEquals(summaries, program.summaries());
+        Assertions.assertEquals(0, program.recomputedSummaries());
+
+        // editing leaf only recomputes it and its (transitive) callers
+        program.update(new TextInput("a.pie", A.text().replace("x + 2", "x + 3")));
+        summaries = program.summaries();
+        Assertions.assertEquals(3, program.recomputedSummaries());
+        Assertions.assertEquals("43", summaries.get("leaf").constant());
+        Assertions.assertEquals("8", summaries.get("mid").constant());
+        Assertions.assertSame(r1.reaches(), summaries.get("r1").reaches());
+    }
+
+    @Test public void testWideLevels() {
+        // 3 levels of 200 procedures: each calls two of the level below
+        int width = 200;
+        var graph = new Digraph<ProcNode>();
+        List<ProcedureFacts> facts = new ArrayList<>();
+        for (int level = 0; level < 3; level++) {
+            for (int i = 0; i < width; i++) {
+                var v = new ProcNode("p" + level + "_" + i);
+                graph.add(v);
+                facts.add(new ProcedureFacts(v.name(), String.valueOf(i)));
+                if (level > 0) {
+                    graph.add(v, new ProcNode("p" + (level - 1) + "_" + i));
+                    graph.add(v, new ProcNode("p" + (level - 1) + "_" + (i + 1) % width));
+                }
+            }
+        }
+        var summarizer = new ProcedureSummarizer(4);
+        var summaries = summarizer.update(graph, facts);
+        Assertions.assertEquals(3 * width, summarizer.recomputed());
+        var s = summaries.get("p2_5");
+        Assertions.assertEquals(new ProcedureSummary("p2_5", true, "5", 2,
+                Set.of("p1_5", "p1_6", "p0_5", "p0_6", "p0_7")), s);
+
+        // removing a bottom procedure's facts makes its callers impure
+        facts.removeIf(f -> f.name().equals("p0_7"));
+        summaries = summarizer.update(graph, facts);
+        Assertions.assertEquals(1 + 2 + 3, summarizer.recomputed());
+        Assertions.assertFalse(summaries.get("p2_5").pure());
+        Assertions.assertTrue(summaries.get("p2_4").pure());
+    }
+}
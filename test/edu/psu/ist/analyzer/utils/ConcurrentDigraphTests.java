@@ -0,0 +1,91 @@
+package edu.psu.ist.analyzer.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentDigraphTests {
+
+    private static final int THREADS = 8;
+    private static final int VERTICES = 500;
+    private static final int EDGES_PER_THREAD = 5_000;
+
+    @Test public void testParallelInsertionMatchesSequential() throws Exception {
+        var expected = new Digraph<String>();
+        var graph = new ConcurrentDigraph<String>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            for (int[] edge : edges(seed)) {
+                expected.add("v" + edge[0], "v" + edge[1]);
+            }
+            tasks.add(() -> {
+                for (int[] edge : edges(seed)) {
+                    graph.add("v" + edge[0], "v" + edge[1]);
+                }
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(expected.getVertices(), graph.getVertices());
+        Assertions.assertEquals(expected.edges(), graph.edges());
+        for (String v : expected.getVertices()) {
+            Assertions.assertEquals(expected.outDegree(v), graph.outDegree(v), v);
+            Assertions.assertEquals(expected.inDegree(v), graph.inDegree(v), v);
+            Assertions.assertEquals(expected.predecessors(v), graph.predecessors(v), v);
+            Assertions.assertSame(expected.getVertex(v), v);
+            Assertions.assertEquals(v, graph.getVertex(v));
+        }
+
+        Digraph<String> compacted = graph.compact();
+        Assertions.assertEquals(expected.edges(), compacted.edges());
+        for (String v : expected.getVertices()) {
+            Assertions.assertEquals(expected.outDegree(v), compacted.outDegree(v), v);
+            Assertions.assertEquals(expected.inDegree(v), compacted.inDegree(v), v);
+            Assertions.assertEquals(v, compacted.getVertex(v));
+        }
+    }
+
+    @Test public void testCompactedGraphIsReadOnly() {
+        var graph = new ConcurrentDigraph<String>();
+        graph.add("a", "b");
+        graph.add("a", "b");
+        graph.remove("a", "b");
+        Assertions.assertEquals(1, graph.outDegree("a"));
+        Assertions.assertEquals(1, graph.inDegree("b"));
+
+        Digraph<String> compacted = graph.compact();
+        Assertions.assertEquals(List.of("b"), compacted.neighbors("a"));
+        Assertions.assertFalse(graph.contains("a"));
+        Assertions.assertThrows(IllegalStateException.class, () -> graph.add("c"));
+        Assertions.assertThrows(IllegalStateException.class, () -> graph.add("a", "c"));
+        Assertions.assertThrows(IllegalStateException.class, graph::compact);
+    }
+
+    /** A deterministic pseudo-random edge list, the same for every call with {@code seed}. */
+    private static List<int[]> edges(int seed) {
+        List<int[]> edges = new ArrayList<>();
+        long x = seed * 0x9E3779B97F4A7C15L + 1;
+        for (int i = 0; i < EDGES_PER_THREAD; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            edges.add(new int[] {Math.floorMod(x, VERTICES), Math.floorMod(x >>> 32, VERTICES)});
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,40 @@
+package edu.psu.ist.analyzer.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LineIndexTests {
+
+    @Test public void testOffsetsMapToLinesAndColumns() {
+        String text = "def\r\n  x\n\nend";
+        var index = new LineIndex(text);
+        Assertions.assertEquals(4, index.lineCount());
+        for (int offset = 0; offset <= text.length(); offset++) {
+            // reference: count the newlines before offset
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < offset; i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            Assertions.assertEquals(line, index.lineOf(offset), "offset " + offset);
+            Assertions.assertEquals(offset - lineStart, index.columnOf(offset), "offset " + offset);
+            Assertions.assertEquals(offset, index.offsetOf(line, offset - lineStart));
+        }
+        Assertions.assertEquals("def", index.line(1).toString());
+        Assertions.assertEquals("  x", index.line(2).toString());
+        Assertions.assertEquals("", index.line(3).toString());
+        Assertions.assertEquals("end", index.line(4).toString());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.lineOf(text.length() + 1));
+    }
+
+    @Test public void testManyLines() {
+        int n = 100_000;
+        var index = new LineIndex("x\n".repeat(n));
+        Assertions.assertEquals(n + 1, index.lineCount());
+        Assertions.assertEquals(n / 2 + 1, index.lineOf(n + 1));
+        Assertions.assertEquals(1, index.columnOf(n + 1));
+    }
+}
@@ -0,0 +1,96 @@
+package edu.psu.ist.bench;
+
+import edu.psu.ist.analyzer.utils.ConcurrentDigraph;
+import edu.psu.ist.analyzer.utils.Digraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures edge insertion throughput into a {@link ConcurrentDigraph} from
+ * 1 to 32 threads (and the cost of {@link ConcurrentDigraph#compact()}),
+ * against a {@link Digraph} filled by one thread. Not a unit test; run the
+ * {@code main} method directly (optionally passing the number of vertices
+ * and of edges). Past the number of cores, more threads can only add
+ * contention.
+ */
+public final class ConcurrentDigraphBenchmark {
+
+    private static final int MAX_THREADS = 32;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int edges = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Integer[] names = new Integer[vertices];
+        for (int i = 0; i < vertices; i++) {
+            names[i] = i;
+        }
+        int[][] edgeList = mkEdges(vertices, edges);
+
+        long sequential = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            var graph = new Digraph<Integer>();
+            for (int[] e : edgeList) {
+                graph.add(names[e[0]], names[e[1]]);
+            }
+            if (i >= WARMUP_ROUNDS) {
+                sequential = Math.min(sequential, System.nanoTime() - start);
+            }
+        }
+        System.out.printf("Digraph:     %8.1f ms (%5.1f M edges/s)%n", sequential / 1e6, edges / (sequential / 1e3));
+
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                long best = Long.MAX_VALUE;
+                long compaction = Long.MAX_VALUE;
+                for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+                    var graph = new ConcurrentDigraph<Integer>();
+                    List<Callable<Void>> tasks = new ArrayList<>();
+                    for (int t = 0; t < threads; t++) {
+                        int from = (int) ((long) edges * t / threads);
+                        int to = (int) ((long) edges * (t + 1) / threads);
+                        tasks.add(() -> {
+                            for (int e = from; e < to; e++) {
+                                graph.add(names[edgeList[e][0]], names[edgeList[e][1]]);
+                            }
+                            return null;
+                        });
+                    }
+                    long start = System.nanoTime();
+                    for (Future<Void> f : pool.invokeAll(tasks)) {
+                        f.get();
+                    }
+                    long inserted = System.nanoTime();
+                    graph.compact();
+                    if (i >= WARMUP_ROUNDS) {
+                        best = Math.min(best, inserted - start);
+                        compaction = Math.min(compaction, System.nanoTime() - inserted);
+                    }
+                }
+                System.out.printf("%3d threads: %8.1f ms (%5.1f M edges/s, %4.2fx), compact %6.1f ms%n",
+                        threads, best / 1e6, edges / (best / 1e3), (double) sequential / best, compaction / 1e6);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /** Random edges, skewed so that a few vertices have many callers. */
+    private static int[][] mkEdges(int vertices, int edges) {
+        var random = new java.util.Random(42);
+        int[][] result = new int[edges][];
+        for (int i = 0; i < edges; i++) {
+            int callee = (int) (vertices * Math.pow(random.nextDouble(), 3));
+            result[i] = new int[] {random.nextInt(vertices), callee};
+        }
+        return result;
+    }
+}
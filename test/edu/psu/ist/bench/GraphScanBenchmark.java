@@ -0,0 +1,71 @@
+package edu.psu.ist.bench;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.graph.CallGraphScanner;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+/**
+ * Compares the throughput of extracting call graphs with the
+ * {@link CallGraphScanner} against a full {@link PieChecker#analyze}. Not a
+ * unit test; run the {@code main} method directly.
+ */
+public final class GraphScanBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int RUNS_PER_ROUND = 20;
+
+    public static void main(String[] args) {
+        TextInput source = new TextInput("bench", mkScript(2_000));
+        PieChecker checker = new PieChecker(Options.TestOpts);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            timeAnalyze(checker, source);
+            timeScan(source);
+        }
+        long analyze = 0, scan = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            analyze += timeAnalyze(checker, source);
+            scan += timeScan(source);
+        }
+        double runs = (double) MEASURED_ROUNDS * RUNS_PER_ROUND;
+        double megabytes = source.text().length() / (1024.0 * 1024.0);
+        System.out.printf("full analysis: %8.2f ms/run (%6.1f MB/s)%n",
+                analyze / runs / 1e6, megabytes * runs / (analyze / 1e9));
+        System.out.printf("token scan:    %8.2f ms/run (%6.1f MB/s)%n",
+                scan / runs / 1e6, megabytes * runs / (scan / 1e9));
+        System.out.printf("speedup:       %8.1fx%n", (double) analyze / scan);
+    }
+
+    private static long timeAnalyze(PieChecker checker, TextInput source) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS_PER_ROUND; i++) {
+            checker.analyze(source);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeScan(TextInput source) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS_PER_ROUND; i++) {
+            CallGraphScanner.scan(source);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String mkScript(int procedures) {
+        var s = new StringBuilder();
+        for (int i = 0; i < procedures; i++) {
+            s.append("def p").append(i).append("(a : Int32, b : Bool) : Int32 is\n")
+             .append("    var x : Int32 := a + ").append(i).append(";\n")
+             .append("    var y : Int32 := x + x + a;\n");
+            if (i > 0) {
+                s.append("    p").append(i - 1).append("(y, b);\n");
+                s.append("    p").append(i / 2).append("(x + 1, true);\n");
+            }
+            s.append("    x := y + 1;\n    return x;\nend\n");
+        }
+        return s.toString();
+    }
+}
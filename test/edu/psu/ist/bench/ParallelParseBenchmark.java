@@ -0,0 +1,56 @@
+package edu.psu.ist.bench;
+
+import edu.psu.ist.analyzer.PieChecker;
+import edu.psu.ist.analyzer.utils.Options;
+import edu.psu.ist.analyzer.utils.TextInput;
+
+/**
+ * Measures how checking a single large script scales with
+ * {@link Options#parseThreads()}, from one thread up to one per core. Not a
+ * unit test; run the {@code main} method directly (optionally passing the
+ * number of procedures and the largest thread count to try).
+ */
+public final class ParallelParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int procedures = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        TextInput source = new TextInput("bench", mkScript(procedures));
+        double megabytes = source.text().length() / (1024.0 * 1024.0);
+        int cores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        long baseline = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            PieChecker checker = new PieChecker(Options.TestOpts.withParseThreads(threads));
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                checker.check(source);
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                checker.check(source);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (threads == 1) {
+                baseline = best;
+            }
+            System.out.printf("%3d threads: %8.1f ms (%6.1f MB/s, %4.1fx)%n", threads, best / 1e6,
+                    megabytes / (best / 1e9), (double) baseline / best);
+        }
+    }
+
+    static String mkScript(int procedures) {
+        var s = new StringBuilder();
+        for (int i = 0; i < procedures; i++) {
+            s.append("def p").append(i).append("(a : Int32, b : Bool) : Int32 is\n")
+                    .append("    var x : Int32 := a + ").append(i).append(";\n");
+            if (i > 0) {
+                s.append("    p").append(i - 1).append("(x, b);\n");
+            }
+            s.append("    x := x + 1;\n    return x;\nend\n");
+        }
+        return s.toString();
+    }
+}
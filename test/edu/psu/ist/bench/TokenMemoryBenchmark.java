@@ -0,0 +1,105 @@
+package edu.psu.ist.bench;
+
+import antlr4.PackedTokenStream;
+import antlr4.PackedTokens;
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap retained by the token buffers and parse trees of a
+ * large script: {@link CommonTokenStream} against {@link PackedTokenStream},
+ * and the parallel parser's pre-scan as a token list against
+ * {@link PackedTokens}. Not a unit test; run the {@code main} method
+ * directly (optionally passing the number of procedures), with a fixed heap
+ * (e.g. {@code -Xms2g -Xmx2g}) so the numbers are stable.
+ */
+public final class TokenMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int procedures = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        String text = ParallelParseBenchmark.mkScript(procedures);
+        int tokens = countTokens(text);
+        System.out.printf("%d procedures, %.1f MB of text, %d default-channel tokens%n",
+                procedures, text.length() / (1024.0 * 1024.0), tokens);
+
+        report("CommonTokenStream + tree", tokens, () -> parse(text, CommonTokenStream::new));
+        report("PackedTokenStream + tree", tokens, () -> parse(text, PackedTokenStream::new));
+        report("tree alone (packed parse)", tokens, () -> parse(text, PackedTokenStream::new)[1]);
+        report("pre-scan as List<Token>", tokens, () -> preScanList(text));
+        report("pre-scan as PackedTokens", tokens, () -> preScanPacked(text));
+    }
+
+    /** Returns {stream, tree} of a parse of {@code text}, both kept alive. */
+    private static Object[] parse(String text, Function<PiethonLexer, TokenStream> stream) {
+        TokenStream tokens = stream.apply(lexer(text));
+        var parser = new PiethonParser(tokens);
+        parser.removeErrorListeners();
+        return new Object[]{tokens, parser.script()};
+    }
+
+    private static List<Token> preScanList(String text) {
+        List<Token> tokens = new ArrayList<>();
+        var lexer = lexer(text);
+        for (Token t = lexer.nextToken(); ; t = lexer.nextToken()) {
+            if (t.getChannel() == Token.DEFAULT_CHANNEL || t.getType() == Token.EOF) {
+                tokens.add(t);
+            }
+            if (t.getType() == Token.EOF) {
+                return tokens;
+            }
+        }
+    }
+
+    private static PackedTokens preScanPacked(String text) {
+        var tokens = new PackedTokens();
+        var lexer = lexer(text);
+        for (Token t = lexer.nextToken(); ; t = lexer.nextToken()) {
+            if (t.getChannel() == Token.DEFAULT_CHANNEL || t.getType() == Token.EOF) {
+                tokens.add(t);
+            }
+            if (t.getType() == Token.EOF) {
+                return tokens;
+            }
+        }
+    }
+
+    private static int countTokens(String text) {
+        return preScanPacked(text).size();
+    }
+
+    private static PiethonLexer lexer(String text) {
+        var lexer = new PiethonLexer(CharStreams.fromString(text, "bench"));
+        lexer.removeErrorListeners();
+        return lexer;
+    }
+
+    private static void report(String what, int tokens, Supplier<Object> build) {
+        build.get(); // warm up, so class loading is not counted
+        long before = usedAfterGc();
+        Object kept = build.get();
+        long retained = usedAfterGc() - before;
+        System.out.printf("%-28s %8.1f MB retained, %6.1f bytes/token%n",
+                what, retained / (1024.0 * 1024.0), (double) retained / tokens);
+        Reference.reachabilityFence(kept);
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.psu.ist.bench;
+
+import antlr4.IterativeParseTreeWalker;
+import antlr4.edu.psu.ist.parser.PiethonLexer;
+import antlr4.edu.psu.ist.parser.PiethonParser;
+import edu.psu.ist.analyzer.PieScriptCheckingListener;
+import edu.psu.ist.analyzer.utils.TextInput;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+/**
+ * Compares the throughput of the recursive {@link ParseTreeWalker} with the
+ * {@link IterativeParseTreeWalker} when driving the checking listener over an
+ * ordinary (shallow) script. Not a unit test; run the {@code main} method
+ * directly.
+ */
+public final class WalkerBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int WALKS_PER_ROUND = 200;
+
+    public static void main(String[] args) {
+        TextInput source = new TextInput("bench", mkScript(500));
+        PiethonParser.ScriptContext tree = new PiethonParser(new CommonTokenStream(
+                new PiethonLexer(CharStreams.fromString(source.text())))).script();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            time(ParseTreeWalker.DEFAULT, source, tree);
+            time(IterativeParseTreeWalker.DEFAULT, source, tree);
+        }
+        long recursive = 0, iterative = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            recursive += time(ParseTreeWalker.DEFAULT, source, tree);
+            iterative += time(IterativeParseTreeWalker.DEFAULT, source, tree);
+        }
+        double walks = (double) MEASURED_ROUNDS * WALKS_PER_ROUND;
+        System.out.printf("recursive walker: %8.2f ms/walk%n", recursive / walks / 1e6);
+        System.out.printf("iterative walker: %8.2f ms/walk%n", iterative / walks / 1e6);
+    }
+
+    private static long time(ParseTreeWalker walker, TextInput source,
+                             PiethonParser.ScriptContext tree) {
+        long start = System.nanoTime();
+        for (int i = 0; i < WALKS_PER_ROUND; i++) {
+            walker.walk(new PieScriptCheckingListener(source, tree), tree);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Returns a script with {@code procs} small, well-typed procedures. */
+    static String mkScript(int procs) {
+        var s = new StringBuilder();
+        for (int i = 0; i < procs; i++) {
+            s.append("def p").append(i).append("(a : Int32, b : Int32) : Int32 is\n")
+             .append("    var x : Int32 := a + b + 1;\n")
+             .append("    var y : Bool := true;\n")
+             .append("    x := x + a;\n");
+            if (i > 0) {
+                s.append("    p").append(i - 1).append("(x, 2);\n");
+            }
+            s.append("    return x;\nend\n\n");
+        }
+        return s.toString();
+    }
+}